@@ -16,6 +16,7 @@ import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Binder;
 import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
 import android.text.TextUtils;
 
 import com.nextcloud.android.sso.aidl.IInputStreamService;
@@ -55,9 +56,11 @@ import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import androidx.annotation.VisibleForTesting;
 
@@ -84,6 +87,13 @@ public class InputStreamBinder extends IInputStreamService.Stub {
 
     private static final char PATH_SEPARATOR = '/';
     private static final int ZERO_LENGTH = 0;
+
+    private static final ValidatedTokenCache validatedTokens = new ValidatedTokenCache();
+    private static final AtomicLong requestCount = new AtomicLong();
+    private static final AtomicLong failedRequestCount = new AtomicLong();
+    private static final AtomicLong requestTimeMillis = new AtomicLong();
+    private static final AtomicLong hashedTokenCount = new AtomicLong();
+
     private Context context;
     private UserAccountManager accountManager;
 
@@ -106,15 +116,18 @@ public class InputStreamBinder extends IInputStreamService.Stub {
             new ParcelFileDescriptor.AutoCloseInputStream(requestBodyParcelFileDescriptor) : null;
         Exception exception = null;
         Response response = new Response();
+        long startTime = SystemClock.elapsedRealtime();
+        NextcloudRequest request = null;
 
         try {
             // Start request and catch exceptions
-            NextcloudRequest request = deserializeObjectAndCloseStream(is);
+            request = deserializeObjectAndCloseStream(is);
             response = processRequestV2(request, requestBodyInputStream);
         } catch (Exception e) {
             Log_OC.e(TAG, "Error during Nextcloud request", e);
             exception = e;
         }
+        logRequest(request, startTime, exception);
 
         try {
             // Write exception to the stream followed by the actual network stream
@@ -151,15 +164,19 @@ public class InputStreamBinder extends IInputStreamService.Stub {
             }
         };
 
+        long startTime = SystemClock.elapsedRealtime();
+        NextcloudRequest request = null;
+
         try {
             // Start request and catch exceptions
-            NextcloudRequest request = deserializeObjectAndCloseStream(is);
+            request = deserializeObjectAndCloseStream(is);
             httpMethod = processRequest(request, requestBodyInputStream);
             httpStream = httpMethod.getResponseBodyAsStream();
         } catch (Exception e) {
             Log_OC.e(TAG, "Error during Nextcloud request", e);
             exception = e;
         }
+        logRequest(request, startTime, exception);
 
         try {
             // Write exception to the stream followed by the actual network stream
@@ -179,6 +196,45 @@ public class InputStreamBinder extends IInputStreamService.Stub {
         return null;
     }
 
+    /**
+     * Logs the time until the response of a request was available, its body is then transferred by
+     * {@link ParcelFileDescriptorUtil}, which logs its size and duration.
+     */
+    private static void logRequest(NextcloudRequest request, long startTime, Exception exception) {
+        long elapsed = SystemClock.elapsedRealtime() - startTime;
+        requestCount.incrementAndGet();
+        requestTimeMillis.addAndGet(elapsed);
+        if (exception != null) {
+            failedRequestCount.incrementAndGet();
+        }
+
+        Log_OC.d(TAG, (request != null ? request.getMethod() + " " + request.getUrl() : "Invalid request") +
+            (exception != null ? " failed" : " answered") + " after " + elapsed + " ms");
+    }
+
+    public static long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public static long getFailedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    /**
+     * @return mean time in milliseconds until responses were available, 0 before the first request
+     */
+    public static long getMeanRequestTimeMillis() {
+        long count = requestCount.get();
+        return count == 0 ? 0 : requestTimeMillis.get() / count;
+    }
+
+    /**
+     * @return number of tokens that had to be hashed, the others were found in the cache of validated tokens
+     */
+    public static long getHashedTokenCount() {
+        return hashedTokenCount.get();
+    }
+
     private ByteArrayInputStream serializeObjectToInputStreamV2(Exception exception, String headers) {
         byte[] baosByteArray = new byte[0];
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -443,15 +499,36 @@ public class InputStreamBinder extends IInputStreamService.Stub {
     }
 
     private boolean isValid(NextcloudRequest request) {
-        String[] callingPackageNames = context.getPackageManager().getPackagesForUid(Binder.getCallingUid());
+        int callingUid = Binder.getCallingUid();
+        String[] callingPackageNames = context.getPackageManager().getPackagesForUid(callingUid);
+        if (callingPackageNames == null) {
+            return false;
+        }
 
         SharedPreferences sharedPreferences = context.getSharedPreferences(SSO_SHARED_PREFERENCE,
                                                                            Context.MODE_PRIVATE);
+        String accountName = request.getAccountName();
+        String token = request.getToken();
+        long now = SystemClock.elapsedRealtime();
+
+        List<String> packageNames = Arrays.asList(callingPackageNames);
+        if (token != null && validatedTokens.isValid(
+            callingUid,
+            accountName,
+            token,
+            packageName -> packageNames.contains(packageName) ?
+                sharedPreferences.getString(packageName + DELIMITER + accountName, "") : "",
+            now)) {
+            return true;
+        }
+
         for (String callingPackageName : callingPackageNames) {
-            String hash = sharedPreferences.getString(callingPackageName + DELIMITER + request.getAccountName(), "");
+            String hash = sharedPreferences.getString(callingPackageName + DELIMITER + accountName, "");
             if (hash.isEmpty())
                 continue;
-            if (validateToken(hash, request.getToken())) {
+            hashedTokenCount.incrementAndGet();
+            if (validateToken(hash, token)) {
+                validatedTokens.put(callingUid, accountName, token, callingPackageName, hash, now);
                 return true;
             }
         }
@@ -0,0 +1,116 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.android.sso;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Remembers for a short time which (calling uid, account, token) tuples were validated against the salted hash stored
+ * for a calling package, so apps sending many requests do not have the token hashed again for each of them.
+ * <p>
+ * An entry only counts as long as the hash it was validated against is still the stored one, so a token that was
+ * revoked or replaced is rejected right away.
+ */
+final class ValidatedTokenCache {
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_ENTRIES = 64;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    private static final class Key {
+        private final int uid;
+        private final String accountName;
+        private final String token;
+
+        private Key(int uid, String accountName, String token) {
+            this.uid = uid;
+            this.accountName = accountName;
+            this.token = token;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return uid == other.uid &&
+                Objects.equals(accountName, other.accountName) &&
+                Objects.equals(token, other.token);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(uid, accountName, token);
+        }
+    }
+
+    private static final class Entry {
+        private final String packageName;
+        private final String hash;
+        private final long expiresAt;
+
+        private Entry(String packageName, String hash, long expiresAt) {
+            this.packageName = packageName;
+            this.hash = hash;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    ValidatedTokenCache() {
+        this(DEFAULT_TTL_MILLIS);
+    }
+
+    @VisibleForTesting
+    ValidatedTokenCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Current hashes stored for the packages of the calling uid.
+     */
+    interface StoredHashes {
+        /**
+         * @return the hash stored for the package and account, an empty string if there is none or the package does
+         * not belong to the calling uid
+         */
+        String get(String packageName);
+    }
+
+    /**
+     * @return true if the tuple was validated recently against the hash that is still stored for its package
+     */
+    boolean isValid(int uid, String accountName, String token, StoredHashes storedHashes, long now) {
+        Key key = new Key(uid, accountName, token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return false;
+        }
+
+        if (now >= entry.expiresAt || !entry.hash.equals(storedHashes.get(entry.packageName))) {
+            entries.remove(key, entry);
+            return false;
+        }
+
+        return true;
+    }
+
+    void put(int uid, String accountName, String token, String packageName, String hash, long now) {
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        entries.put(new Key(uid, accountName, token), new Entry(packageName, hash, now + ttlMillis));
+    }
+}
@@ -15,8 +15,42 @@ import org.apache.commons.httpclient.HttpMethodBase;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Pipes response streams of SSO requests to the calling app.
+ * <p>
+ * Transfers run on a pool of at most {@link #MAX_POOLED_TRANSFERS} reused threads, each with its own large buffer. A
+ * transfer blocks as long as the calling app does not read, and an app may wait for one response before it reads
+ * another, so transfers are never queued: once all pooled threads are busy, further transfers get a thread of their
+ * own, as all transfers did before.
+ */
 public final class ParcelFileDescriptorUtil {
+    private static final String TAG = ParcelFileDescriptorUtil.class.getSimpleName();
+    private static final int MAX_POOLED_TRANSFERS = 8;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final AtomicLong transferCount = new AtomicLong();
+    private static final AtomicLong failedTransferCount = new AtomicLong();
+    private static final AtomicLong unpooledTransferCount = new AtomicLong();
+    private static final AtomicLong transferredBytes = new AtomicLong();
+
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        0,
+        MAX_POOLED_TRANSFERS,
+        KEEP_ALIVE_SECONDS,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        ParcelFileDescriptorUtil::newTransferThread);
 
     private ParcelFileDescriptorUtil() { }
 
@@ -28,43 +62,74 @@ public final class ParcelFileDescriptorUtil {
         ParcelFileDescriptor readSide = pipe[0];
         ParcelFileDescriptor writeSide = pipe[1];
 
-        // start the transfer thread
-        new TransferThread(inputStream,
-                           new ParcelFileDescriptor.AutoCloseOutputStream(writeSide),
-                           listener,
-                           method)
-                .start();
+        Transfer transfer = new Transfer(inputStream,
+                                         new ParcelFileDescriptor.AutoCloseOutputStream(writeSide),
+                                         listener,
+                                         method);
+        try {
+            executor.execute(transfer);
+        } catch (RejectedExecutionException e) {
+            unpooledTransferCount.incrementAndGet();
+            newTransferThread(transfer).start();
+        }
 
         return readSide;
     }
 
-    public static class TransferThread extends Thread {
-        private static final String TAG = TransferThread.class.getCanonicalName();
+    private static Thread newTransferThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "ParcelFileDescriptor Transfer Thread " + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    public static long getTransferCount() {
+        return transferCount.get();
+    }
+
+    public static long getFailedTransferCount() {
+        return failedTransferCount.get();
+    }
+
+    /**
+     * @return number of transfers that found all pooled threads busy and were run on a thread of their own
+     */
+    public static long getUnpooledTransferCount() {
+        return unpooledTransferCount.get();
+    }
+
+    public static long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    private static final class Transfer implements Runnable {
         private final InputStream inputStream;
         private final OutputStream outputStream;
         private final IThreadListener threadListener;
         private final HttpMethodBase httpMethod;
 
-        TransferThread(InputStream in, OutputStream out, IThreadListener listener, HttpMethodBase method) {
-            super("ParcelFileDescriptor Transfer Thread");
+        Transfer(InputStream in, OutputStream out, IThreadListener listener, HttpMethodBase method) {
             inputStream = in;
             outputStream = out;
             threadListener = listener;
             httpMethod = method;
-            setDaemon(true);
         }
 
         @Override
         public void run() {
-            byte[] buf = new byte[1024];
+            long startTime = System.currentTimeMillis();
+            long transferred = 0;
+            boolean failed = false;
+            byte[] buf = buffers.get();
             int len;
 
             try {
                 while ((len = inputStream.read(buf)) > 0) {
                     outputStream.write(buf, 0, len);
+                    transferred += len;
                 }
                 outputStream.flush(); // just to be safe
             } catch (IOException e) {
+                failed = true;
                 Log_OC.e(TAG, "writing failed: " + e.getMessage());
             } finally {
                 try {
@@ -78,8 +143,20 @@ public final class ParcelFileDescriptorUtil {
                     Log_OC.e(TAG, e.getMessage());
                 }
             }
+
+            transferCount.incrementAndGet();
+            transferredBytes.addAndGet(transferred);
+            if (failed) {
+                failedTransferCount.incrementAndGet();
+            }
+
+            long elapsed = System.currentTimeMillis() - startTime;
+            Log_OC.d(TAG, "Transferred " + transferred + " bytes" +
+                (httpMethod != null ? " of " + httpMethod.getName() + " " + httpMethod.getPath() : "") +
+                " in " + elapsed + " ms" + (failed ? ", failed" : ""));
+
             if (threadListener != null) {
-                threadListener.onThreadFinished(this);
+                threadListener.onThreadFinished(Thread.currentThread());
             }
 
             if (httpMethod != null) {
@@ -39,6 +39,7 @@ import com.nextcloud.client.database.entity.VirtualEntity
 import com.nextcloud.client.database.migrations.DatabaseMigrationUtil
 import com.nextcloud.client.database.migrations.MIGRATION_88_89
 import com.nextcloud.client.database.migrations.MIGRATION_97_98
+import com.nextcloud.client.database.migrations.MIGRATION_98_99
 import com.nextcloud.client.database.migrations.Migration67to68
 import com.nextcloud.client.database.migrations.RoomMigration
 import com.nextcloud.client.database.migrations.addLegacyMigrations
@@ -94,7 +95,7 @@ import com.owncloud.android.db.ProviderMeta
         AutoMigration(from = 94, to = 95, spec = DatabaseMigrationUtil.ResetCapabilitiesPostMigration::class),
         AutoMigration(from = 95, to = 96),
         AutoMigration(from = 96, to = 97, spec = DatabaseMigrationUtil.ResetCapabilitiesPostMigration::class)
-        // manual migration used for 97 to 98
+        // manual migrations used for 97 to 98 and 98 to 99
     ],
     exportSchema = true
 )
@@ -133,6 +134,7 @@ abstract class NextcloudDatabase : RoomDatabase() {
                     .addMigrations(Migration67to68())
                     .addMigrations(MIGRATION_88_89)
                     .addMigrations(MIGRATION_97_98)
+                    .addMigrations(MIGRATION_98_99)
                     .build()
             }
             return instance!!
@@ -9,6 +9,7 @@ package com.nextcloud.client.database.dao
 
 import androidx.room.Dao
 import androidx.room.Query
+import androidx.room.Transaction
 import com.nextcloud.client.database.entity.ArbitraryDataEntity
 
 @Dao
@@ -19,8 +20,27 @@ interface ArbitraryDataDao {
     @Query("SELECT * FROM arbitrary_data WHERE cloud_id = :accountName AND `key` = :key LIMIT 1")
     fun getByAccountAndKey(accountName: String, key: String): ArbitraryDataEntity?
 
+    /**
+     * @return number of updated rows
+     */
     @Query("UPDATE arbitrary_data SET value = :value WHERE cloud_id = :accountName AND `key` = :key ")
-    fun updateValue(accountName: String, key: String, value: String?)
+    fun updateValue(accountName: String, key: String, value: String?): Int
+
+    /**
+     * Updates the value and only inserts it if no row was updated, so an existing value is written with a single
+     * statement. The table has no unique index on account and key that an `INSERT OR REPLACE` could rely on.
+     */
+    @Transaction
+    fun upsertValue(accountName: String, key: String, value: String?) {
+        if (updateValue(accountName, key, value) == 0) {
+            insertValue(accountName, key, value)
+        }
+    }
+
+    @Transaction
+    fun upsertValues(accountName: String, values: Map<String, String?>) {
+        values.forEach { (key, value) -> upsertValue(accountName, key, value) }
+    }
 
     @Query("DELETE FROM arbitrary_data WHERE cloud_id = :accountName AND `key` = :key")
     fun deleteValue(accountName: String, key: String)
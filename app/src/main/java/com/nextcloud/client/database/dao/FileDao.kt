@@ -7,7 +7,9 @@
  */
 package com.nextcloud.client.database.dao
 
+import androidx.room.ColumnInfo
 import androidx.room.Dao
+import androidx.room.MapColumn
 import androidx.room.Query
 import androidx.room.Update
 import com.nextcloud.client.database.entity.FileEntity
@@ -44,6 +46,30 @@ interface FileDao {
     @Query("SELECT * FROM filelist WHERE parent = :parentId ORDER BY ${ProviderTableMeta.FILE_DEFAULT_SORT_ORDER}")
     fun getFolderContent(parentId: Long): List<FileEntity>
 
+    /**
+     * Returns the row ids of all direct children of a folder, keyed by their (encrypted) remote path.
+     *
+     * Used to reconcile a whole folder listing against the database with a single query.
+     */
+    @Query("SELECT path, _id FROM filelist WHERE parent = :parentId AND file_owner = :fileOwner")
+    fun getFolderContentIdsByPath(
+        parentId: Long,
+        fileOwner: String
+    ): Map<@MapColumn(columnName = ProviderTableMeta.FILE_PATH) String, @MapColumn(columnName = ProviderTableMeta._ID) Long>
+
+    /**
+     * Same as [getFolderContentIdsByPath], restricted to the given remote paths, e.g. one window of a huge folder.
+     */
+    @Query("SELECT path, _id FROM filelist WHERE parent = :parentId AND file_owner = :fileOwner AND path IN (:paths)")
+    fun getFolderContentIdsByPaths(
+        parentId: Long,
+        fileOwner: String,
+        paths: List<String>
+    ): Map<@MapColumn(columnName = ProviderTableMeta.FILE_PATH) String, @MapColumn(columnName = ProviderTableMeta._ID) Long>
+
+    @Query("SELECT * FROM filelist WHERE parent = :parentId AND file_owner = :fileOwner AND path IN (:paths)")
+    fun getFolderContentByPaths(parentId: Long, fileOwner: String, paths: List<String>): List<FileEntity>
+
     @Query("SELECT * FROM filelist WHERE parent = :parentId ORDER BY ${ProviderTableMeta.FILE_DEFAULT_SORT_ORDER}")
     suspend fun getFolderContentSuspended(parentId: Long): List<FileEntity>
 
@@ -106,17 +132,21 @@ interface FileDao {
         webdavType: String = MimeType.WEBDAV_FOLDER
     ): List<FileEntity>
 
+    /**
+     * Returns id, parent, name and type of all files of an account, the input of the in-memory name index used for
+     * searching by name.
+     */
+    @Query("SELECT _id, parent, filename, content_type FROM filelist WHERE file_owner = :fileOwner")
+    fun getFileNames(fileOwner: String): List<FileNameRow>
+
     @Query(
-        """
-    SELECT * 
-    FROM filelist 
-    WHERE file_owner = :fileOwner 
-      AND parent = :parentId
-      AND ${ProviderTableMeta.FILE_NAME} LIKE '%' || :query || '%'
-    ORDER BY ${ProviderTableMeta.FILE_DEFAULT_SORT_ORDER}
-    """
+        "SELECT _id, parent, filename, content_type FROM filelist " +
+            "WHERE file_owner = :fileOwner AND parent IN (:parentIds)"
     )
-    fun searchFilesInFolder(parentId: Long, fileOwner: String, query: String): List<FileEntity>
+    fun getFileNamesInFolders(parentIds: List<Long>, fileOwner: String): List<FileNameRow>
+
+    @Query("SELECT * FROM filelist WHERE file_owner = :fileOwner AND _id IN (:ids)")
+    fun getFilesByIds(ids: List<Long>, fileOwner: String): List<FileEntity>
 
     @Query(
         """
@@ -147,3 +177,17 @@ interface FileDao {
     @Query("SELECT remote_id FROM filelist WHERE file_owner = :accountName AND remote_id IS NOT NULL")
     fun getAllRemoteIds(accountName: String): List<String>
 }
+
+/**
+ * Name of a file as read by [FileDao.getFileNames].
+ */
+data class FileNameRow(
+    @ColumnInfo(name = ProviderTableMeta._ID)
+    val id: Long,
+    @ColumnInfo(name = ProviderTableMeta.FILE_PARENT)
+    val parent: Long?,
+    @ColumnInfo(name = ProviderTableMeta.FILE_NAME)
+    val name: String?,
+    @ColumnInfo(name = ProviderTableMeta.FILE_CONTENT_TYPE)
+    val contentType: String?
+)
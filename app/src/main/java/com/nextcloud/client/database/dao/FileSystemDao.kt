@@ -20,6 +20,9 @@ interface FileSystemDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     fun insertOrReplace(filesystemEntity: FilesystemEntity)
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertOrReplaceAll(filesystemEntities: List<FilesystemEntity>)
+
     @Delete
     fun delete(entity: FilesystemEntity)
 
@@ -50,11 +53,11 @@ interface FileSystemDao {
         """
         UPDATE ${ProviderMeta.ProviderTableMeta.FILESYSTEM_TABLE_NAME}
         SET ${ProviderMeta.ProviderTableMeta.FILESYSTEM_FILE_SENT_FOR_UPLOAD} = 1
-        WHERE ${ProviderMeta.ProviderTableMeta.FILESYSTEM_FILE_LOCAL_PATH} = :localPath
+        WHERE ${ProviderMeta.ProviderTableMeta.FILESYSTEM_FILE_LOCAL_PATH} IN (:localPaths)
           AND ${ProviderMeta.ProviderTableMeta.FILESYSTEM_SYNCED_FOLDER_ID} = :syncedFolderId
     """
     )
-    suspend fun markFileAsUploaded(localPath: String, syncedFolderId: String)
+    suspend fun markFilesAsUploaded(localPaths: List<String>, syncedFolderId: String)
 
     @Query(
         """
@@ -66,4 +69,13 @@ interface FileSystemDao {
     """
     )
     fun getFileByPathAndFolder(localPath: String, syncedFolderId: String): FilesystemEntity?
+
+    @Query(
+        """
+    SELECT *
+    FROM ${ProviderMeta.ProviderTableMeta.FILESYSTEM_TABLE_NAME}
+    WHERE ${ProviderMeta.ProviderTableMeta.FILESYSTEM_SYNCED_FOLDER_ID} = :syncedFolderId
+    """
+    )
+    fun getFilesBySyncedFolder(syncedFolderId: String): List<FilesystemEntity>
 }
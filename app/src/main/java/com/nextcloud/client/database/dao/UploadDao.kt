@@ -54,6 +54,9 @@ interface UploadDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     fun insertOrReplace(entity: UploadEntity): Long
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    fun insertOrReplaceAll(entities: List<UploadEntity>): List<Long>
+
     @Query(
         "SELECT * FROM " + ProviderTableMeta.UPLOADS_TABLE_NAME +
             " WHERE " + ProviderTableMeta.UPLOADS_ACCOUNT_NAME + " = :accountName AND " +
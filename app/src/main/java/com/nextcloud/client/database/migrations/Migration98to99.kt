@@ -0,0 +1,32 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+
+package com.nextcloud.client.database.migrations
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import com.nextcloud.client.database.migrations.model.SQLiteColumnType
+import com.owncloud.android.db.ProviderMeta
+
+@Suppress("MagicNumber")
+val MIGRATION_98_99 = object : Migration(98, 99) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        DatabaseMigrationUtil.addColumnIfNotExists(
+            db,
+            ProviderMeta.ProviderTableMeta.FILESYSTEM_TABLE_NAME,
+            ProviderMeta.ProviderTableMeta.FILESYSTEM_FILE_SIZE,
+            SQLiteColumnType.INTEGER_DEFAULT_NULL
+        )
+
+        DatabaseMigrationUtil.addColumnIfNotExists(
+            db,
+            ProviderMeta.ProviderTableMeta.FILESYSTEM_TABLE_NAME,
+            ProviderMeta.ProviderTableMeta.FILESYSTEM_INODE,
+            SQLiteColumnType.INTEGER_DEFAULT_NULL
+        )
+    }
+}
@@ -163,10 +163,17 @@ class AppModule {
 
     @Provides
     @Singleton
-    Logger logger(Context context, Clock clock) {
+    Logger logger(Context context, Clock clock, AppPreferences preferences) {
         File logDir = new File(context.getFilesDir(), "logs");
         FileLogHandler handler = new FileLogHandler(logDir, "log.txt", 1024 * 1024);
         LoggerImpl logger = new LoggerImpl(clock, handler, new Handler(), 1000);
+        logger.setDebugLoggingEnabled(preferences.isDebugLoggingEnabled());
+        preferences.addListener(new AppPreferences.Listener() {
+            @Override
+            public void onDebugLoggingChanged(boolean enabled) {
+                logger.setDebugLoggingEnabled(enabled);
+            }
+        });
         logger.start();
         return logger;
     }
@@ -31,6 +31,7 @@ import com.owncloud.android.datamodel.FilesystemDataProvider
 import com.owncloud.android.datamodel.PushConfigurationState
 import com.owncloud.android.datamodel.SyncedFolderProvider
 import com.owncloud.android.datamodel.UploadsStorageManager
+import com.owncloud.android.datamodel.e2e.E2EMetadataCache
 import com.owncloud.android.lib.common.OwnCloudClient
 import com.owncloud.android.lib.common.OwnCloudClientManagerFactory
 import com.owncloud.android.lib.common.utils.Log_OC
@@ -104,8 +105,9 @@ class AccountRemovalWork(
         // delete all uploads for account
         uploadsStorageManager.removeUserUploads(user)
 
-        // delete stored E2E keys and mnemonic
+        // delete stored E2E keys and mnemonic, with the metadata decrypted by them
         EncryptionUtils.removeE2E(arbitraryDataProvider, user)
+        E2EMetadataCache.getInstance(context).clear(user.accountName)
 
         // unset default account, if needed
         if (preferences.currentAccountName.equals(user.accountName)) {
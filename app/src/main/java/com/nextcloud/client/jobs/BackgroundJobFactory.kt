@@ -180,6 +180,7 @@ class BackgroundJobFactory @Inject constructor(
         syncedFolderProvider = syncedFolderProvider,
         backgroundJobManager = backgroundJobManager.get(),
         repository = FileSystemRepository(dao = database.fileSystemDao(), uploadsStorageManager, context),
+        preferences = preferences,
         viewThemeUtils = viewThemeUtils.get(),
         localBroadcastManager = localBroadcastManager.get()
     )
@@ -283,7 +284,8 @@ class BackgroundJobFactory @Inject constructor(
             accountManager,
             powerManagementService,
             connectivityService,
-            preferences
+            preferences,
+            arbitraryDataProvider
         )
 
     private fun createMetadataWorker(context: Context, params: WorkerParameters): MetadataWorker = MetadataWorker(
@@ -10,13 +10,16 @@ package com.nextcloud.client.jobs
 import android.content.Context
 import androidx.work.Worker
 import androidx.work.WorkerParameters
+import com.nextcloud.client.account.User
 import com.nextcloud.client.account.UserAccountManager
 import com.nextcloud.client.device.PowerManagementService
 import com.nextcloud.client.network.ConnectivityService
 import com.nextcloud.client.preferences.AppPreferences
 import com.owncloud.android.MainApp
+import com.owncloud.android.datamodel.ArbitraryDataProvider
 import com.owncloud.android.datamodel.FileDataStorageManager
 import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode
 import com.owncloud.android.lib.common.utils.Log_OC
 import com.owncloud.android.operations.SynchronizeFolderOperation
 import com.owncloud.android.utils.FileStorageUtils
@@ -29,10 +32,14 @@ class InternalTwoWaySyncWork(
     private val userAccountManager: UserAccountManager,
     private val powerManagementService: PowerManagementService,
     private val connectivityService: ConnectivityService,
-    private val appPreferences: AppPreferences
+    private val appPreferences: AppPreferences,
+    private val arbitraryDataProvider: ArbitraryDataProvider
 ) : Worker(context, params) {
+    @Volatile
     private var shouldRun = true
-    private var operation: SynchronizeFolderOperation? = null
+
+    @Volatile
+    private var engine: TwoWaySyncEngine? = null
 
     override fun doWork(): Result {
         Log_OC.d(TAG, "Worker started!")
@@ -67,25 +74,38 @@ class InternalTwoWaySyncWork(
                 }
 
                 Log_OC.d(TAG, "Folder ${folder.remotePath}: started!")
-                operation = SynchronizeFolderOperation(context, folder.remotePath, user, fileDataStorageManager, true)
-                val operationResult = operation?.execute(context)
+                val cursor = TwoWaySyncCursor(arbitraryDataProvider, user.accountName, folder.fileId)
+                val folderEngine = TwoWaySyncEngine(
+                    cursor,
+                    isKnownFolder = { fileDataStorageManager.getFileByPath(it) != null }
+                ) { SynchronizeFolderTask(it, user, fileDataStorageManager) }
+                engine = folderEngine
+                if (!shouldRun) {
+                    // stopped while the engine was created, it would not have been cancelled
+                    folderEngine.cancel()
+                }
+                val dirtyFolders = findDirtyFolders(folder, user, fileDataStorageManager)
+                val summary = folderEngine.run(folder.remotePath, dirtyFolders)
 
-                if (operationResult?.isSuccess == true) {
+                if (summary.isSuccess) {
                     Log_OC.d(TAG, "Folder ${folder.remotePath}: finished!")
                 } else {
                     Log_OC.d(TAG, "Folder ${folder.remotePath} failed!")
                     result = false
                 }
 
-                folder.apply {
-                    operationResult?.let {
-                        internalFolderSyncResult = it.code.toString()
+                // the folder itself was updated by the synchronization
+                val syncedFolder = fileDataStorageManager.getFileByPath(folder.remotePath) ?: folder
+                syncedFolder.apply {
+                    internalFolderSyncResult = when {
+                        summary.failureCode != null -> summary.failureCode
+                        summary.stopped -> ResultCode.CANCELLED.toString()
+                        else -> ResultCode.OK.toString()
                     }
-
                     internalFolderSyncTimestamp = System.currentTimeMillis()
                 }
 
-                fileDataStorageManager.saveFile(folder)
+                fileDataStorageManager.saveFile(syncedFolder)
             }
         }
 
@@ -100,11 +120,75 @@ class InternalTwoWaySyncWork(
 
     override fun onStopped() {
         Log_OC.d(TAG, "OnStopped of worker called!")
-        operation?.cancel()
         shouldRun = false
+        engine?.cancel()
         super.onStopped()
     }
 
+    /**
+     * Finds the folders below the sync folder that need synchronization because of what is known locally, even if
+     * the eTag of their parent did not change: folders whose eTag differs from the last one seen on the server and
+     * folders with files that are not downloaded or were modified locally.
+     */
+    private fun findDirtyFolders(root: OCFile, user: User, storageManager: FileDataStorageManager): List<String> {
+        val dirtyFolders = LinkedHashSet<String>()
+        storageManager.fileDao
+            .getFolderWithDescendants(root.remotePath + "%", user.accountName)
+            .asSequence()
+            .map { storageManager.createFileInstance(it) }
+            .filter { it.remotePath.startsWith(root.remotePath) && it.remotePath != root.remotePath }
+            .forEach { file ->
+                if (file.isFolder) {
+                    if (file.isEtagChanged) {
+                        dirtyFolders.add(file.remotePath)
+                    }
+                } else if (!file.isDown || file.localModificationTimestamp > file.lastSyncDateForData) {
+                    file.parentRemotePath?.let { dirtyFolders.add(it) }
+                }
+            }
+
+        return dirtyFolders.toList()
+    }
+
+    /**
+     * Synchronizes the files of a single folder, its subfolders are visited by the engine.
+     */
+    private inner class SynchronizeFolderTask(
+        private val folder: TwoWaySyncEngine.Folder,
+        user: User,
+        private val storageManager: FileDataStorageManager
+    ) : TwoWaySyncEngine.FolderTask {
+        private val operation =
+            SynchronizeFolderOperation(context, folder.remotePath, user, storageManager, true).apply {
+                setSynchronizeSubfolders(false)
+                if (folder.knownAsChanged) {
+                    setKnownAsChanged()
+                }
+            }
+
+        override fun run(): TwoWaySyncEngine.FolderResult {
+            val result = operation.execute(context)
+
+            val localFolder = storageManager.getFileByPath(folder.remotePath)
+            val changedSubfolders = localFolder
+                ?.let { storageManager.getFolderContent(it, false) }
+                .orEmpty()
+                .filter { it.isFolder && it.isEtagChanged }
+                .map { TwoWaySyncEngine.Folder(it.remotePath, !it.etagOnServer.isNullOrEmpty()) }
+
+            return TwoWaySyncEngine.FolderResult(
+                result.isSuccess,
+                result.code.toString(),
+                changedSubfolders,
+                result.code == ResultCode.FILE_NOT_FOUND
+            )
+        }
+
+        override fun cancel() {
+            operation.cancel()
+        }
+    }
+
     @Suppress("TooGenericExceptionCaught")
     private fun checkFreeSpace(folder: OCFile): Result? {
         val storagePath = folder.storagePath ?: MainApp.getStoragePath()
@@ -0,0 +1,52 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs
+
+import com.google.gson.Gson
+import com.google.gson.JsonParseException
+import com.owncloud.android.datamodel.ArbitraryDataProvider
+import com.owncloud.android.lib.common.utils.Log_OC
+
+/**
+ * Folders of an internal two-way sync folder that still have to be synchronized, because the last run was stopped
+ * before reaching them or failed to synchronize them. Kept per account and sync folder id.
+ */
+class TwoWaySyncCursor(
+    private val arbitraryDataProvider: ArbitraryDataProvider,
+    private val accountName: String,
+    folderId: Long
+) {
+    private val key = KEY_PREFIX + folderId
+    private val gson = Gson()
+
+    fun load(): List<String> {
+        val value = arbitraryDataProvider.getValue(accountName, key)
+        if (value.isEmpty()) {
+            return emptyList()
+        }
+
+        return try {
+            gson.fromJson(value, Array<String>::class.java)?.toList() ?: emptyList()
+        } catch (e: JsonParseException) {
+            Log_OC.e(TAG, "Ignoring unreadable cursor $key", e)
+            emptyList()
+        }
+    }
+
+    fun save(remotePaths: Collection<String>) {
+        if (remotePaths.isEmpty()) {
+            arbitraryDataProvider.deleteKeyForAccount(accountName, key)
+        } else {
+            arbitraryDataProvider.storeOrUpdateKeyValue(accountName, key, gson.toJson(remotePaths))
+        }
+    }
+
+    companion object {
+        private const val TAG = "TwoWaySyncCursor"
+        private const val KEY_PREFIX = "internal_two_way_sync_cursor_"
+    }
+}
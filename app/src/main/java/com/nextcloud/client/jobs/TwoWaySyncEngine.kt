@@ -0,0 +1,224 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs
+
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * Synchronizes the folder tree of an internal two-way sync folder.
+ *
+ * Folders are synchronized one level at a time by [FolderTask]s, up to [parallelism] at once. After a folder was
+ * synchronized only the subfolders whose eTag changed on the server are visited, unchanged subtrees are skipped as
+ * the server changes the eTag of every parent of a changed file.
+ *
+ * Folders not reached when the walk is stopped and folders that failed are kept in a [TwoWaySyncCursor] and visited
+ * first by the next run, so it continues where the last one left off. Folders that no longer exist are done and
+ * dropped from the cursor.
+ */
+class TwoWaySyncEngine(
+    private val cursor: TwoWaySyncCursor,
+    private val parallelism: Int = DEFAULT_PARALLELISM,
+    private val isKnownFolder: (String) -> Boolean = { true },
+    private val taskFactory: (Folder) -> FolderTask
+) {
+
+    /**
+     * @param knownAsChanged true if the eTag of the folder is known to have changed, so it does not have to be
+     * checked again
+     */
+    class Folder(val remotePath: String, val knownAsChanged: Boolean)
+
+    /**
+     * @param code result code of the synchronization, recorded for the sync folder
+     * @param changedSubfolders subfolders that have to be synchronized too
+     * @param notFound true if the folder was deleted on the server or locally, there is nothing left to retry
+     */
+    class FolderResult(
+        val success: Boolean,
+        val code: String,
+        val changedSubfolders: List<Folder>,
+        val notFound: Boolean = false
+    )
+
+    /**
+     * Synchronizes a single folder without its subfolders, called on a thread of the engine.
+     */
+    interface FolderTask {
+        fun run(): FolderResult
+        fun cancel()
+    }
+
+    /**
+     * @param failureCode code of the first failed folder, null if none failed
+     */
+    class Summary(
+        val visitedCount: Int,
+        val failedPaths: List<String>,
+        val pendingCount: Int,
+        val failureCode: String?,
+        val stopped: Boolean
+    ) {
+        val isSuccess: Boolean
+            get() = failedPaths.isEmpty() && !stopped
+    }
+
+    private val runningTasks = ConcurrentHashMap<String, FolderTask>()
+
+    @Volatile
+    private var cancelled = false
+
+    /**
+     * Stops the walk: no more folders are started and running tasks are cancelled.
+     */
+    fun cancel() {
+        cancelled = true
+        runningTasks.values.forEach { it.cancel() }
+    }
+
+    /**
+     * Walks the tree starting with the folders left by the last run, then the root folder and the given folders.
+     * Folders left by the last run that are no longer below the root or no longer known are dropped.
+     *
+     * @param rootPath remote path of the sync folder
+     * @param dirtyFolders folders known to need synchronization from the local state, e.g. with files that are not
+     * downloaded or were modified locally
+     */
+    fun run(rootPath: String, dirtyFolders: Collection<String>): Summary {
+        val resumed = cursor.load().filter { it.startsWith(rootPath) && isKnownFolder(it) }
+        if (resumed.isNotEmpty()) {
+            Log_OC.d(TAG, "Resuming $rootPath with ${resumed.size} folders left by the last run")
+        }
+
+        val executor = Executors.newFixedThreadPool(parallelism)
+        val walk = Walk(executor)
+        resumed.forEach { walk.enqueue(Folder(it, false)) }
+        walk.enqueue(Folder(rootPath, false))
+        dirtyFolders.forEach { walk.enqueue(Folder(it, false)) }
+
+        val start = System.currentTimeMillis()
+        try {
+            walk.run()
+        } finally {
+            executor.shutdownNow()
+            cursor.save(walk.pendingPaths())
+        }
+
+        val summary = walk.summary()
+        Log_OC.d(
+            TAG,
+            "Synchronized $rootPath: ${summary.visitedCount} folders visited, ${summary.failedPaths.size} failed, " +
+                "${summary.pendingCount} left, ${System.currentTimeMillis() - start} ms"
+        )
+        return summary
+    }
+
+    private inner class Walk(executor: ExecutorService) {
+        private val completion = ExecutorCompletionService<Pair<Folder, FolderResult>>(executor)
+        private val queue = ArrayDeque<Folder>()
+        private val known = HashSet<String>()
+        private val inFlight = LinkedHashSet<String>()
+        private val interrupted = LinkedHashSet<String>()
+        private val failed = LinkedHashSet<String>()
+        private var failureCode: String? = null
+        private var visitedCount = 0
+        private var lastSave = System.currentTimeMillis()
+
+        fun enqueue(folder: Folder) {
+            if (known.add(folder.remotePath)) {
+                queue.addLast(folder)
+            }
+        }
+
+        fun run() {
+            while (true) {
+                while (!cancelled && inFlight.size < parallelism && queue.isNotEmpty()) {
+                    submit(queue.removeFirst())
+                }
+                if (inFlight.isEmpty()) {
+                    return
+                }
+
+                val (folder, result) = completion.take().get()
+                onFinished(folder, result)
+
+                val now = System.currentTimeMillis()
+                if (now - lastSave >= CURSOR_SAVE_INTERVAL_MILLIS) {
+                    cursor.save(pendingPaths())
+                    lastSave = now
+                }
+            }
+        }
+
+        @Suppress("TooGenericExceptionCaught")
+        private fun submit(folder: Folder) {
+            inFlight.add(folder.remotePath)
+            completion.submit(
+                Callable {
+                    val task = taskFactory(folder)
+                    runningTasks[folder.remotePath] = task
+                    try {
+                        if (cancelled) {
+                            task.cancel()
+                        }
+                        folder to task.run()
+                    } catch (e: RuntimeException) {
+                        Log_OC.e(TAG, "Synchronization of ${folder.remotePath} failed", e)
+                        folder to FolderResult(false, e.javaClass.simpleName, emptyList())
+                    } finally {
+                        runningTasks.remove(folder.remotePath)
+                    }
+                }
+            )
+        }
+
+        private fun onFinished(folder: Folder, result: FolderResult) {
+            inFlight.remove(folder.remotePath)
+            visitedCount++
+
+            if (result.notFound) {
+                Log_OC.d(TAG, "${folder.remotePath} no longer exists, not retried")
+            } else if (!result.success) {
+                if (cancelled) {
+                    interrupted.add(folder.remotePath)
+                } else {
+                    failed.add(folder.remotePath)
+                    failureCode = failureCode ?: result.code
+                }
+            }
+
+            // also after a failure, subfolders already known to have changed stay to be synchronized
+            result.changedSubfolders.forEach { enqueue(it) }
+        }
+
+        fun pendingPaths(): Set<String> {
+            val paths = LinkedHashSet<String>(failed)
+            paths.addAll(interrupted)
+            paths.addAll(inFlight)
+            queue.mapTo(paths) { it.remotePath }
+            return paths
+        }
+
+        fun summary() = Summary(
+            visitedCount,
+            failed.toList(),
+            pendingPaths().size - failed.size,
+            failureCode,
+            cancelled
+        )
+    }
+
+    companion object {
+        private const val TAG = "TwoWaySyncEngine"
+        const val DEFAULT_PARALLELISM = 4
+        private const val CURSOR_SAVE_INTERVAL_MILLIS = 5000L
+    }
+}
@@ -15,14 +15,17 @@ import androidx.work.ForegroundInfo
 import androidx.work.WorkerParameters
 import com.nextcloud.client.account.User
 import com.nextcloud.client.account.UserAccountManager
+import com.nextcloud.client.database.entity.UploadEntity
 import com.nextcloud.client.database.entity.toOCUpload
 import com.nextcloud.client.database.entity.toUploadEntity
 import com.nextcloud.client.device.PowerManagementService
 import com.nextcloud.client.jobs.BackgroundJobManager
 import com.nextcloud.client.jobs.upload.FileUploadBroadcastManager
 import com.nextcloud.client.jobs.upload.FileUploadWorker
+import com.nextcloud.client.jobs.upload.UploadLanes
 import com.nextcloud.client.jobs.utils.UploadErrorNotificationManager
 import com.nextcloud.client.network.ConnectivityService
+import com.nextcloud.client.preferences.AppPreferences
 import com.nextcloud.utils.extensions.isNonRetryable
 import com.nextcloud.utils.extensions.updateStatus
 import com.owncloud.android.R
@@ -35,8 +38,10 @@ import com.owncloud.android.db.OCUpload
 import com.owncloud.android.db.UploadResult
 import com.owncloud.android.files.services.NameCollisionPolicy
 import com.owncloud.android.lib.common.OwnCloudAccount
+import com.owncloud.android.lib.common.OwnCloudClient
 import com.owncloud.android.lib.common.OwnCloudClientManagerFactory
 import com.owncloud.android.lib.common.operations.RemoteOperationResult
+import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode
 import com.owncloud.android.lib.common.utils.Log_OC
 import com.owncloud.android.operations.UploadFileOperation
 import com.owncloud.android.ui.activity.SettingsActivity
@@ -56,6 +61,7 @@ class AutoUploadWorker(
     private val syncedFolderProvider: SyncedFolderProvider,
     private val backgroundJobManager: BackgroundJobManager,
     private val repository: FileSystemRepository,
+    private val preferences: AppPreferences,
     val viewThemeUtils: ViewThemeUtils,
     localBroadcastManager: LocalBroadcastManager
 ) : CoroutineWorker(context, params) {
@@ -258,7 +264,7 @@ class AutoUploadWorker(
         }
     }
 
-    @Suppress("LongMethod", "DEPRECATION", "TooGenericExceptionCaught")
+    @Suppress("DEPRECATION")
     private suspend fun uploadFiles(syncedFolder: SyncedFolder) = withContext(Dispatchers.IO) {
         val user = getUserOrReturn(syncedFolder) ?: return@withContext
         val ocAccount = OwnCloudAccount(user.toPlatformAccount(), context)
@@ -268,6 +274,9 @@ class AutoUploadWorker(
         trySetForeground()
         updateNotification()
 
+        val uploadSettings = getUploadSettings(syncedFolder)
+        val lanes = UploadLanes(FileDataStorageManager(user, context.contentResolver))
+
         var lastId = 0
 
         while (true) {
@@ -279,95 +288,159 @@ class AutoUploadWorker(
             }
             Log_OC.d(TAG, "started, processing batch: lastId=$lastId, count=${filePathsWithIds.size}")
 
-            filePathsWithIds.forEachIndexed { batchIndex, (path, id) ->
-                val file = File(path)
-                val localPath = file.absolutePath
-                val remotePath = syncFolderHelper.getAutoUploadRemotePath(syncedFolder, file)
-
-                try {
-                    val entityResult = getEntityResult(user, localPath, remotePath)
-                    if (entityResult !is AutoUploadEntityResult.Success) {
-                        repository.markFileAsHandled(localPath, syncedFolder)
-                        Log_OC.d(TAG, "marked file as handled: $localPath")
-                        continue
-                    }
-
-                    var (uploadEntity, upload) = entityResult.data
-
-                    // if local file deleted, upload process cannot be started or retriable thus needs to be removed
-                    if (path.isEmpty() || !file.exists()) {
-                        Log_OC.w(TAG, "detected non-existing local file, removing entity")
-                        deleteNonExistingFile(path, id, upload)
-                        continue
-                    }
-
-                    try {
-                        // Insert/update to IN_PROGRESS state before starting upload
-                        val generatedId = uploadsStorageManager.uploadDao.insertOrReplace(uploadEntity)
-                        uploadEntity = uploadEntity.copy(id = generatedId.toInt())
-                        upload.uploadId = generatedId
-
-                        fileUploadBroadcastManager.sendAdded(context)
-                        val operation = createUploadFileOperation(upload, user)
-                        Log_OC.d(TAG, "🕒 uploading: $localPath, id: $generatedId")
-
-                        val result = operation.execute(client)
-                        fileUploadBroadcastManager.sendStarted(operation, context)
-
-                        UploadErrorNotificationManager.handleResult(
-                            context,
-                            notificationManager,
-                            operation,
-                            result
-                        )
-
-                        if (result.isSuccess) {
-                            repository.markFileAsHandled(localPath, syncedFolder)
-                            Log_OC.d(TAG, "✅ upload completed: $localPath")
-                        } else {
-                            Log_OC.e(
-                                TAG,
-                                "❌ upload failed $localPath (${upload.accountName}): ${result.logMessage}"
-                            )
-
-                            // Mark CONFLICT files as handled to prevent retries
-                            if (result.code == RemoteOperationResult.ResultCode.SYNC_CONFLICT) {
-                                repository.markFileAsHandled(localPath, syncedFolder)
-                                Log_OC.w(TAG, "Marked CONFLICT file as handled: $localPath")
-                            }
-                        }
-
-                        val isLastInBatch = (batchIndex == filePathsWithIds.size - 1)
-                        if (isLastInBatch) {
-                            sendUploadFinishEvent(operation, result)
-                        }
-                    } catch (e: Exception) {
-                        uploadsStorageManager.updateStatus(
-                            uploadEntity,
-                            UploadsStorageManager.UploadStatus.UPLOAD_FAILED
-                        )
-                        Log_OC.e(
-                            TAG,
-                            "Exception during upload file, localPath: $localPath, remotePath: $remotePath," +
-                                " exception: $e"
-                        )
-
-                        if (path.isEmpty() || !file.exists()) {
-                            Log_OC.w(TAG, "detected non-existing local file, removing entity")
-                            deleteNonExistingFile(path, id, upload)
-                            continue
-                        }
-                    }
-                } catch (e: Exception) {
-                    Log_OC.e(
-                        TAG,
-                        "Exception uploadFiles during creating entity and upload, localPath: $localPath, " +
-                            "remotePath: $remotePath, exception: $e"
-                    )
-                } finally {
-                    // update last id so upload can continue where it left
-                    lastId = id
+            val handledPaths = mutableListOf<String>()
+            val pendingUploads = preparePage(user, filePathsWithIds, uploadSettings, handledPaths)
+            val results = if (pendingUploads.isEmpty()) {
+                emptyList()
+            } else {
+                lanes.runAll(
+                    pendingUploads,
+                    FileUploadWorker.getParallelUploads(preferences),
+                    { it.upload.remotePath }
+                ) { uploadFile(user, client, it) }
+            }
+            finishPage(handledPaths, results)
+
+            // update last id so upload can continue where it left
+            lastId = filePathsWithIds.last().second
+        }
+    }
+
+    /**
+     * Creates the upload entities of a page and stores them in IN_PROGRESS state with a single insert. Files which
+     * need no upload are added to [handledPaths], to be marked together with the uploaded ones by [finishPage].
+     */
+    @Suppress("TooGenericExceptionCaught")
+    private suspend fun preparePage(
+        user: User,
+        filePathsWithIds: List<Pair<String, Int>>,
+        uploadSettings: Triple<Boolean, Boolean, Int>,
+        handledPaths: MutableList<String>
+    ): List<PendingUpload> {
+        val pendingUploads = mutableListOf<PendingUpload>()
+
+        filePathsWithIds.forEach { (path, id) ->
+            val file = File(path)
+            val localPath = file.absolutePath
+            val remotePath = syncFolderHelper.getAutoUploadRemotePath(syncedFolder, file)
+
+            try {
+                val entityResult = getEntityResult(user, localPath, remotePath, uploadSettings)
+                if (entityResult !is AutoUploadEntityResult.Success) {
+                    handledPaths.add(localPath)
+                    Log_OC.d(TAG, "marked file as handled: $localPath")
+                    return@forEach
                 }
+
+                val (uploadEntity, upload) = entityResult.data
+
+                // if local file deleted, upload process cannot be started or retriable thus needs to be removed
+                if (path.isEmpty() || !file.exists()) {
+                    Log_OC.w(TAG, "detected non-existing local file, removing entity")
+                    deleteNonExistingFile(path, id, upload)
+                    return@forEach
+                }
+
+                pendingUploads.add(PendingUpload(path, id, localPath, uploadEntity, upload))
+            } catch (e: Exception) {
+                Log_OC.e(
+                    TAG,
+                    "Exception uploadFiles during creating entity, localPath: $localPath, " +
+                        "remotePath: $remotePath, exception: $e"
+                )
+            }
+        }
+
+        if (pendingUploads.isEmpty()) {
+            return pendingUploads
+        }
+
+        return try {
+            // Insert/update to IN_PROGRESS state before starting upload
+            val generatedIds = uploadsStorageManager.uploadDao.insertOrReplaceAll(pendingUploads.map { it.entity })
+            fileUploadBroadcastManager.sendAdded(context)
+
+            pendingUploads.mapIndexed { index, pendingUpload ->
+                val generatedId = generatedIds[index]
+                pendingUpload.upload.uploadId = generatedId
+                pendingUpload.copy(entity = pendingUpload.entity.copy(id = generatedId.toInt()))
+            }
+        } catch (e: Exception) {
+            // files stay unhandled and are picked up again by the next run
+            Log_OC.e(TAG, "Exception uploadFiles during storing upload entities: $e")
+            emptyList()
+        }
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    private suspend fun uploadFile(user: User, client: OwnCloudClient, pendingUpload: PendingUpload): PageResult {
+        val localPath = pendingUpload.localPath
+
+        return try {
+            val operation = createUploadFileOperation(pendingUpload.upload, user)
+            Log_OC.d(TAG, "🕒 uploading: $localPath, id: ${pendingUpload.upload.uploadId}")
+
+            val result = operation.execute(client)
+            fileUploadBroadcastManager.sendStarted(operation, context)
+
+            UploadErrorNotificationManager.handleResult(
+                context,
+                notificationManager,
+                operation,
+                result
+            )
+
+            if (result.isSuccess) {
+                Log_OC.d(TAG, "✅ upload completed: $localPath")
+            } else {
+                Log_OC.e(
+                    TAG,
+                    "❌ upload failed $localPath (${pendingUpload.upload.accountName}): ${result.logMessage}"
+                )
+            }
+
+            PageResult(pendingUpload, operation, result)
+        } catch (e: Exception) {
+            Log_OC.e(
+                TAG,
+                "Exception during upload file, localPath: $localPath, " +
+                    "remotePath: ${pendingUpload.upload.remotePath}, exception: $e"
+            )
+            PageResult(pendingUpload, null, null)
+        }
+    }
+
+    /**
+     * Stores the outcome of a page: handled files, i.e. [skippedPaths] which needed no upload and the uploaded files,
+     * and failed uploads are written with one statement each.
+     */
+    private suspend fun finishPage(skippedPaths: List<String>, results: List<PageResult>) {
+        // Mark CONFLICT files as handled as well to prevent retries
+        val handledPaths = skippedPaths + results
+            .filter { it.result?.isSuccess == true || it.result?.code == ResultCode.SYNC_CONFLICT }
+            .map { it.pendingUpload.localPath }
+        repository.markFilesAsHandled(handledPaths, syncedFolder)
+
+        val failedUploads = results.filter { it.result == null }.map { it.pendingUpload }
+        try {
+            uploadsStorageManager.updateStatus(
+                failedUploads.map { it.entity },
+                UploadsStorageManager.UploadStatus.UPLOAD_FAILED
+            )
+        } catch (e: Exception) {
+            Log_OC.e(TAG, "Exception uploadFiles during storing failed uploads: $e")
+        }
+
+        failedUploads
+            .filter { it.path.isEmpty() || !File(it.path).exists() }
+            .forEach {
+                Log_OC.w(TAG, "detected non-existing local file, removing entity")
+                deleteNonExistingFile(it.path, it.id, it.upload)
+            }
+
+        results.lastOrNull { it.operation != null && it.result != null }?.let { (_, operation, result) ->
+            if (operation != null && result != null) {
+                sendUploadFinishEvent(operation, result)
             }
         }
     }
@@ -378,8 +451,13 @@ class AutoUploadWorker(
     }
 
     @Suppress("ReturnCount")
-    private fun getEntityResult(user: User, localPath: String, remotePath: String): AutoUploadEntityResult {
-        val (needsCharging, needsWifi, uploadAction) = getUploadSettings(syncedFolder)
+    private fun getEntityResult(
+        user: User,
+        localPath: String,
+        remotePath: String,
+        uploadSettings: Triple<Boolean, Boolean, Int>
+    ): AutoUploadEntityResult {
+        val (needsCharging, needsWifi, uploadAction) = uploadSettings
         Log_OC.d(TAG, "creating oc upload for ${user.accountName}")
 
         // Get existing upload or create new one
@@ -454,4 +532,18 @@ class AutoUploadWorker(
             context
         )
     }
+
+    private data class PendingUpload(
+        val path: String,
+        val id: Int,
+        val localPath: String,
+        val entity: UploadEntity,
+        val upload: OCUpload
+    )
+
+    private data class PageResult(
+        val pendingUpload: PendingUpload,
+        val operation: UploadFileOperation?,
+        val result: RemoteOperationResult<*>?
+    )
 }
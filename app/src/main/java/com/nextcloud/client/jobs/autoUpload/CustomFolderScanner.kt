@@ -0,0 +1,211 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+
+package com.nextcloud.client.jobs.autoUpload
+
+import com.nextcloud.client.database.entity.FilesystemEntity
+import com.nextcloud.utils.extensions.toLocalPath
+import com.owncloud.android.datamodel.SyncedFolder
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Scans a custom auto upload folder and stores new and changed files.
+ *
+ * Stored entities of the folder are loaded once into an index instead of being queried per file, directories are
+ * listed in parallel by a bounded pool and changed entities are written in batches, each in a single transaction.
+ */
+@Suppress("TooGenericExceptionCaught")
+class CustomFolderScanner(
+    private val folder: SyncedFolder,
+    private val repository: FileSystemRepository,
+    private val parallelism: Int = DEFAULT_PARALLELISM
+) {
+    companion object {
+        private const val TAG = "CustomFolderScanner"
+        private const val MAX_DEPTH = 100
+        private const val DEFAULT_PARALLELISM = 4
+        private const val BATCH_SIZE = 500
+        private const val LOG_INTERVAL = 1000
+    }
+
+    /**
+     * @param scanned files visited
+     * @param skipped hidden directories and files which did not need to be stored
+     * @param changed new or changed files stored
+     * @param errors files and directories which could not be read or stored
+     */
+    data class Result(val scanned: Int, val skipped: Int, val changed: Int, val errors: Int)
+
+    private val existingEntities = ConcurrentHashMap<String, FilesystemEntity>()
+    private val visitedDirectories: MutableSet<Any> = ConcurrentHashMap.newKeySet()
+    private val pendingEntities = mutableListOf<FilesystemEntity>()
+
+    private val scanned = AtomicInteger()
+    private val skipped = AtomicInteger()
+    private val changed = AtomicInteger()
+    private val errors = AtomicInteger()
+
+    private val pendingDirectories = AtomicInteger()
+    private val done = CountDownLatch(1)
+
+    fun scan(root: Path): Result {
+        val startTime = System.currentTimeMillis()
+
+        try {
+            existingEntities.putAll(repository.getEntitiesByPath(folder))
+        } catch (e: Exception) {
+            // without the index every file is treated as new, which only costs additional writes
+            Log_OC.e(TAG, "Could not load stored entities of ${folder.localPath}", e)
+        }
+
+        val executor = Executors.newFixedThreadPool(parallelism.coerceAtLeast(1))
+        try {
+            submitDirectory(executor, root, 0)
+            done.await()
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            Log_OC.w(TAG, "Scan interrupted: ${folder.localPath}, $e")
+        } finally {
+            executor.shutdownNow()
+        }
+
+        flush(force = true)
+
+        return Result(scanned.get(), skipped.get(), changed.get(), errors.get()).also {
+            Log_OC.d(
+                TAG,
+                "Scan complete for ${folder.localPath} in ${System.currentTimeMillis() - startTime} ms: " +
+                    "${it.scanned} files scanned, ${it.changed} changed, ${it.skipped} skipped, ${it.errors} errors"
+            )
+        }
+    }
+
+    private fun submitDirectory(executor: ExecutorService, dir: Path, depth: Int) {
+        pendingDirectories.incrementAndGet()
+        executor.execute {
+            try {
+                scanDirectory(executor, dir, depth)
+            } catch (e: Exception) {
+                Log_OC.e(TAG, "Error scanning directory: $dir", e)
+                errors.incrementAndGet()
+            } finally {
+                if (pendingDirectories.decrementAndGet() == 0) {
+                    done.countDown()
+                }
+            }
+        }
+    }
+
+    private fun scanDirectory(executor: ExecutorService, dir: Path, depth: Int) {
+        // symbolic links are followed, a directory reachable through several links is scanned once
+        val key = readAttributes(dir)?.fileKey() ?: dir.toRealPath()
+        if (!visitedDirectories.add(key)) {
+            return
+        }
+
+        try {
+            Files.newDirectoryStream(dir).use { entries ->
+                entries.forEach { entry ->
+                    val attrs = readAttributes(entry)
+                    when {
+                        attrs == null -> errors.incrementAndGet()
+                        attrs.isDirectory -> visitDirectory(executor, entry, depth + 1)
+                        else -> visitFile(entry, attrs)
+                    }
+                }
+            }
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Failed to list directory: $dir", e)
+            errors.incrementAndGet()
+        }
+    }
+
+    private fun visitDirectory(executor: ExecutorService, dir: Path, depth: Int) {
+        if (depth > MAX_DEPTH) {
+            return
+        }
+
+        if (folder.isExcludeHidden && dir.toFile().isHidden) {
+            Log_OC.d(TAG, "Skipping hidden directory: ${dir.fileName}")
+            skipped.incrementAndGet()
+            return
+        }
+
+        submitDirectory(executor, dir, depth)
+    }
+
+    private fun visitFile(file: Path, attrs: BasicFileAttributes) {
+        try {
+            val localPath = file.toLocalPath()
+            val entity = repository.createEntity(
+                file.toFile(),
+                localPath,
+                attrs.lastModifiedTime().toMillis(),
+                attrs.creationTime().toMillis(),
+                folder,
+                existingEntities[localPath]
+            )
+
+            if (entity == null) {
+                skipped.incrementAndGet()
+            } else {
+                addPending(entity)
+            }
+
+            if (scanned.incrementAndGet() % LOG_INTERVAL == 0) {
+                Log_OC.d(TAG, "Processed ${scanned.get()} files so far...")
+            }
+        } catch (e: Exception) {
+            Log_OC.e(TAG, "Error processing file: $file", e)
+            errors.incrementAndGet()
+        }
+    }
+
+    private fun readAttributes(path: Path): BasicFileAttributes? = try {
+        Files.readAttributes(path, BasicFileAttributes::class.java)
+    } catch (e: IOException) {
+        Log_OC.w(TAG, "Failed to visit file: $path, $e")
+        null
+    }
+
+    private fun addPending(entity: FilesystemEntity) {
+        val isBatchFull = synchronized(pendingEntities) {
+            pendingEntities.add(entity)
+            pendingEntities.size >= BATCH_SIZE
+        }
+
+        if (isBatchFull) {
+            flush(force = false)
+        }
+    }
+
+    private fun flush(force: Boolean) {
+        val batch = synchronized(pendingEntities) {
+            if (!force && pendingEntities.size < BATCH_SIZE) {
+                return
+            }
+            pendingEntities.toList().also { pendingEntities.clear() }
+        }
+
+        try {
+            repository.insertOrReplaceAll(batch)
+            changed.addAndGet(batch.size)
+        } catch (e: Exception) {
+            Log_OC.e(TAG, "Failed to store ${batch.size} entities of ${folder.localPath}", e)
+            errors.addAndGet(batch.size)
+        }
+    }
+}
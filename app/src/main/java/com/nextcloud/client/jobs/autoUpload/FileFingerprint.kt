@@ -0,0 +1,41 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+
+package com.nextcloud.client.jobs.autoUpload
+
+import android.system.Os
+import com.nextcloud.client.database.entity.FilesystemEntity
+import java.io.File
+
+/**
+ * Change key of a file found by auto upload, stored in [FilesystemEntity.fileSize] and [FilesystemEntity.inode].
+ *
+ * Together with the modification time it tells whether a file changed without reading it. Rows written by older
+ * versions have neither value, for them only the CRC32 checksum in [FilesystemEntity.crc32] can tell.
+ */
+data class FileFingerprint(val size: Long?, val inode: Long?) {
+
+    /**
+     * True if size or inode are known on both sides and differ, so the content changed without need for a checksum.
+     */
+    fun hasDifferentKey(other: FileFingerprint): Boolean = differs(size, other.size) || differs(inode, other.inode)
+
+    private fun differs(first: Long?, second: Long?): Boolean = first != null && second != null && first != second
+
+    companion object {
+        fun of(file: File): FileFingerprint = FileFingerprint(file.length(), getInode(file))
+
+        fun of(entity: FilesystemEntity): FileFingerprint = FileFingerprint(entity.fileSize, entity.inode)
+
+        @Suppress("TooGenericExceptionCaught")
+        private fun getInode(file: File): Long? = try {
+            Os.stat(file.absolutePath).st_ino
+        } catch (_: Exception) {
+            null
+        }
+    }
+}
@@ -84,12 +84,19 @@ class FileSystemRepository(
         return filtered
     }
 
-    suspend fun markFileAsHandled(localPath: String, syncedFolder: SyncedFolder) {
+    /**
+     * Marks all given files of a page as handled with a single statement.
+     */
+    suspend fun markFilesAsHandled(localPaths: List<String>, syncedFolder: SyncedFolder) {
+        if (localPaths.isEmpty()) {
+            return
+        }
+
         val syncedFolderIdStr = syncedFolder.id.toString()
 
         try {
-            dao.markFileAsUploaded(localPath, syncedFolderIdStr)
-            Log_OC.d(TAG, "Marked file as uploaded: $localPath for syncedFolderId=$syncedFolderIdStr")
+            dao.markFilesAsUploaded(localPaths, syncedFolderIdStr)
+            Log_OC.d(TAG, "Marked ${localPaths.size} files as uploaded for syncedFolderId=$syncedFolderIdStr")
         } catch (e: Exception) {
             Log_OC.e(TAG, "Error marking file as uploaded: ${e.message}", e)
         }
@@ -181,38 +188,96 @@ class FileSystemRepository(
             }
 
             val entity = dao.getFileByPathAndFolder(localPath, syncedFolder.id.toString())
+            createEntity(file, localPath, lastModified, creationTime, syncedFolder, entity)?.let {
+                dao.insertOrReplace(it)
+            }
+        } catch (e: Exception) {
+            Log_OC.e(TAG, "Failed to insert/update file: $localPath", e)
+        }
+    }
 
-            val fileModified = (lastModified ?: file.lastModified())
-            val hasNotChanged = entity?.fileModified == fileModified
-            val fileSentForUpload = entity?.fileSentForUpload == 1
+    /**
+     * Returns the entity to store for a file found in [syncedFolder], or null if the stored [entity] is up to date or
+     * the file is not eligible for auto upload.
+     */
+    fun createEntity(
+        file: File,
+        localPath: String,
+        lastModified: Long?,
+        creationTime: Long?,
+        syncedFolder: SyncedFolder,
+        entity: FilesystemEntity?
+    ): FilesystemEntity? {
+        val fileModified = (lastModified ?: file.lastModified())
+        val hasNotChanged = entity?.fileModified == fileModified
+        val fileSentForUpload = entity?.fileSentForUpload == 1
+
+        if (hasNotChanged && fileSentForUpload) {
+            Log_OC.d(TAG, "File hasn't changed since last scan. skipping: $localPath")
+            return null
+        }
 
-            if (hasNotChanged && fileSentForUpload) {
-                Log_OC.d(TAG, "File hasn't changed since last scan. skipping: $localPath")
-                return
-            }
+        if (syncedFolder.shouldSkipFile(file, fileModified, creationTime, fileSentForUpload)) {
+            return null
+        }
 
-            if (syncedFolder.shouldSkipFile(file, fileModified, creationTime, fileSentForUpload)) {
-                return
+        val fingerprint = FileFingerprint.of(file)
+        val storedChecksum = entity?.crc32?.toLongOrNull()
+        var checksum: Long? = null
+
+        // only the modification time moved since the last upload, a stored checksum tells whether the content did;
+        // without one the file is treated as changed rather than read as a whole
+        if (entity != null && fileSentForUpload && storedChecksum != null &&
+            !fingerprint.hasDifferentKey(FileFingerprint.of(entity))
+        ) {
+            checksum = getFileChecksum(file)
+
+            if (checksum == storedChecksum) {
+                Log_OC.d(TAG, "File content hasn't changed since last upload. skipping: $localPath")
+                return entity.copy(
+                    fileFoundRecently = System.currentTimeMillis(),
+                    fileModified = fileModified,
+                    fileSize = fingerprint.size,
+                    inode = fingerprint.inode
+                )
             }
+        }
 
-            val crc = getFileChecksum(file)
-            val newEntity = FilesystemEntity(
-                id = entity?.id,
-                localPath = localPath,
-                fileIsFolder = if (file.isDirectory) 1 else 0,
-                fileFoundRecently = System.currentTimeMillis(),
-                fileSentForUpload = 0, // Reset to 0 to queue for upload
-                syncedFolderId = syncedFolder.id.toString(),
-                crc32 = crc?.toString(),
-                fileModified = fileModified
-            )
-
-            Log_OC.d(TAG, "inserting new file system entity: $newEntity")
-
-            dao.insertOrReplace(newEntity)
-        } catch (e: Exception) {
-            Log_OC.e(TAG, "Failed to insert/update file: $localPath", e)
+        val newEntity = FilesystemEntity(
+            id = entity?.id,
+            localPath = localPath,
+            fileIsFolder = if (file.isDirectory) 1 else 0,
+            fileFoundRecently = System.currentTimeMillis(),
+            fileSentForUpload = 0, // Reset to 0 to queue for upload
+            syncedFolderId = syncedFolder.id.toString(),
+            crc32 = checksum?.toString(),
+            fileModified = fileModified,
+            fileSize = fingerprint.size,
+            inode = fingerprint.inode
+        )
+
+        Log_OC.d(TAG, "inserting new file system entity: $newEntity")
+
+        return newEntity
+    }
+
+    /**
+     * Loads all stored entities of [syncedFolder] keyed by their local path, to look them up without a query per file.
+     */
+    fun getEntitiesByPath(syncedFolder: SyncedFolder): Map<String, FilesystemEntity> = dao
+        .getFilesBySyncedFolder(syncedFolder.id.toString())
+        .mapNotNull { entity -> entity.localPath?.let { it to entity } }
+        .toMap()
+
+    /**
+     * Stores all given entities in a single transaction.
+     */
+    fun insertOrReplaceAll(entities: List<FilesystemEntity>) {
+        if (entities.isEmpty()) {
+            return
         }
+
+        dao.insertOrReplaceAll(entities)
     }
 
     private fun getFileChecksum(file: File): Long? = try {
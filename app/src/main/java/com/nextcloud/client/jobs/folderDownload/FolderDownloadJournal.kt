@@ -0,0 +1,123 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs.folderDownload
+
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.io.File
+import java.io.FileWriter
+import java.io.IOException
+import java.io.Writer
+
+/**
+ * Append-only record of the files and folders a folder download completed, so a stopped or killed worker resumes
+ * where it left off instead of walking and checking the whole tree again.
+ *
+ * Each entry stores the eTag the file or folder had when it was completed; an entry whose eTag no longer matches is
+ * ignored. A folder entry covers its whole subtree, as the eTag of a folder changes with any change below it.
+ */
+class FolderDownloadJournal(private val file: File) {
+
+    private val completedFiles = HashMap<String, String>()
+    private val completedFolders = HashMap<String, String>()
+    private var writer: Writer? = null
+
+    init {
+        load()
+    }
+
+    private fun load() {
+        if (!file.exists()) {
+            return
+        }
+
+        try {
+            file.forEachLine { line ->
+                val parts = line.split(SEPARATOR, limit = ENTRY_PARTS)
+                if (parts.size == ENTRY_PARTS) {
+                    when (parts[0]) {
+                        FILE_ENTRY -> completedFiles[parts[2]] = parts[1]
+                        FOLDER_ENTRY -> completedFolders[parts[2]] = parts[1]
+                    }
+                }
+            }
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Cannot read journal ${file.name}", e)
+        }
+    }
+
+    val isEmpty: Boolean
+        get() = completedFiles.isEmpty() && completedFolders.isEmpty()
+
+    fun isFileCompleted(remotePath: String, etag: String?): Boolean =
+        !etag.isNullOrEmpty() && completedFiles[remotePath] == etag
+
+    fun isFolderCompleted(remotePath: String, etag: String?): Boolean =
+        !etag.isNullOrEmpty() && completedFolders[remotePath] == etag
+
+    fun fileCompleted(remotePath: String, etag: String?) {
+        if (!etag.isNullOrEmpty()) {
+            completedFiles[remotePath] = etag
+            append(FILE_ENTRY, etag, remotePath)
+        }
+    }
+
+    fun folderCompleted(remotePath: String, etag: String?) {
+        if (!etag.isNullOrEmpty()) {
+            completedFolders[remotePath] = etag
+            append(FOLDER_ENTRY, etag, remotePath)
+        }
+    }
+
+    private fun append(kind: String, etag: String, remotePath: String) {
+        try {
+            val out = writer ?: run {
+                file.parentFile?.mkdirs()
+                FileWriter(file, true).buffered().also { writer = it }
+            }
+            out.write(kind + SEPARATOR + etag + SEPARATOR + remotePath + "\n")
+            // entries are small and rare compared to the downloads they record, flushing keeps them across a kill
+            out.flush()
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Cannot write journal ${file.name}", e)
+        }
+    }
+
+    fun close() {
+        try {
+            writer?.close()
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Cannot close journal ${file.name}", e)
+        }
+        writer = null
+    }
+
+    /**
+     * Closes and removes the journal once the folder download finished.
+     */
+    fun delete() {
+        close()
+        completedFiles.clear()
+        completedFolders.clear()
+        if (file.exists() && !file.delete()) {
+            Log_OC.w(TAG, "Cannot delete journal ${file.name}")
+        }
+    }
+
+    companion object {
+        private const val TAG = "FolderDownloadJournal"
+        private const val SEPARATOR = "\t"
+        private const val FILE_ENTRY = "F"
+        private const val FOLDER_ENTRY = "D"
+        private const val ENTRY_PARTS = 3
+        private const val JOURNAL_DIR = "folder_download_journals"
+
+        fun forFolder(filesDir: File, accountName: String, folderId: Long): FolderDownloadJournal {
+            val name = "${accountName.hashCode().toUInt()}_$folderId"
+            return FolderDownloadJournal(File(File(filesDir, JOURNAL_DIR), name))
+        }
+    }
+}
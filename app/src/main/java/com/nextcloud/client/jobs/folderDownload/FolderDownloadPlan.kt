@@ -0,0 +1,74 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs.folderDownload
+
+import com.owncloud.android.datamodel.OCFile
+
+/**
+ * Files of a folder tree that still have to be downloaded, with the bookkeeping telling when a folder and its whole
+ * subtree are complete so it can be recorded in the [journal].
+ *
+ * Not thread safe, to be used by the thread walking the tree and handling download results.
+ */
+class FolderDownloadPlan(private val journal: FolderDownloadJournal) {
+
+    private val folders = HashMap<String, OCFile>()
+
+    // files and subfolders of each folder not completed yet
+    private val remaining = HashMap<String, Int>()
+
+    val files = mutableListOf<OCFile>()
+
+    /**
+     * Adds a folder with its content as stored locally.
+     *
+     * @return subfolders to walk, without those completed by an earlier run
+     */
+    fun addFolder(folder: OCFile, content: List<OCFile>): List<OCFile> {
+        val subfolders = content.filter { it.isFolder && !journal.isFolderCompleted(it.remotePath, serverEtag(it)) }
+        val downloads = content.filter {
+            !it.isFolder && !it.isDown && !journal.isFileCompleted(it.remotePath, serverEtag(it))
+        }
+
+        folders[folder.remotePath] = folder
+        remaining[folder.remotePath] = subfolders.size + downloads.size
+        files.addAll(downloads)
+
+        if (subfolders.isEmpty() && downloads.isEmpty()) {
+            folderCompleted(folder)
+        }
+        return subfolders
+    }
+
+    /**
+     * @param etag eTag of the downloaded content
+     */
+    fun fileCompleted(file: OCFile, etag: String?) {
+        journal.fileCompleted(file.remotePath, if (etag.isNullOrEmpty()) serverEtag(file) else etag)
+        countDown(file.parentRemotePath)
+    }
+
+    fun isCompleted(folder: OCFile): Boolean = remaining[folder.remotePath] == 0
+
+    private fun folderCompleted(folder: OCFile) {
+        journal.folderCompleted(folder.remotePath, folder.etag)
+        countDown(folder.parentRemotePath)
+    }
+
+    private fun countDown(folderPath: String?) {
+        val left = remaining[folderPath ?: return] ?: return
+        remaining[folderPath] = left - 1
+        if (left == 1) {
+            folders[folderPath]?.let { folderCompleted(it) }
+        }
+    }
+
+    /**
+     * eTag last seen on the server, from the listing of the parent folder if it was refreshed.
+     */
+    private fun serverEtag(file: OCFile): String? = file.etagOnServer.takeUnless { it.isNullOrEmpty() } ?: file.etag
+}
@@ -11,21 +11,28 @@ import android.content.Context
 import androidx.work.CoroutineWorker
 import androidx.work.ForegroundInfo
 import androidx.work.WorkerParameters
+import com.nextcloud.client.account.User
 import com.nextcloud.client.account.UserAccountManager
 import com.nextcloud.client.jobs.download.FileDownloadHelper
 import com.nextcloud.model.WorkerState
 import com.nextcloud.model.WorkerStateObserver
 import com.owncloud.android.datamodel.FileDataStorageManager
 import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.lib.common.OwnCloudClient
 import com.owncloud.android.lib.common.OwnCloudClientManagerFactory
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener
+import com.owncloud.android.lib.common.operations.RemoteOperationResult
 import com.owncloud.android.lib.common.utils.Log_OC
+import com.owncloud.android.operations.ContentTransferExecutor
 import com.owncloud.android.operations.DownloadFileOperation
 import com.owncloud.android.operations.DownloadType
+import com.owncloud.android.operations.RefreshFolderOperation
 import com.owncloud.android.ui.helpers.FileOperationsHelper
 import com.owncloud.android.utils.theme.ViewThemeUtils
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
 
 @Suppress("LongMethod", "TooGenericExceptionCaught")
 class FolderDownloadWorker(
@@ -41,12 +48,14 @@ class FolderDownloadWorker(
         const val ACCOUNT_NAME = "ACCOUNT_NAME"
 
         private val pendingDownloads: MutableSet<Long> = ConcurrentHashMap.newKeySet<Long>()
+        private const val NOTIFICATION_INTERVAL_MILLIS = 1000L
 
         fun isDownloading(id: Long): Boolean = pendingDownloads.contains(id)
     }
 
     private val notificationManager = FolderDownloadWorkerNotificationManager(context, viewThemeUtils)
     private lateinit var storageManager: FileDataStorageManager
+    private val lastNotification = AtomicLong()
 
     @Suppress("ReturnCount", "DEPRECATION")
     override suspend fun doWork(): Result {
@@ -77,56 +86,35 @@ class FolderDownloadWorker(
 
         Log_OC.d(TAG, "🕒 started for ${user.accountName} downloading ${folder.fileName}")
 
+        // once before the tree is walked, progress updates later replace the notification of the foreground service
         trySetForeground(folder)
 
         pendingDownloads.add(folder.fileId)
 
-        val downloadHelper = FileDownloadHelper.instance()
+        val journal = FolderDownloadJournal.forFolder(context.filesDir, user.accountName, folder.fileId)
+        if (!journal.isEmpty) {
+            Log_OC.d(TAG, "resuming download of ${folder.fileName}")
+        }
 
         return withContext(Dispatchers.IO) {
             try {
-                val files = getFiles(folder, storageManager)
                 val account = user.toOwnCloudAccount()
                 val client = OwnCloudClientManagerFactory.getDefaultSingleton().getClientFor(account, context)
 
-                var result = true
-                files.forEachIndexed { index, file ->
-                    if (!checkDiskSize(file)) {
-                        return@withContext Result.failure()
-                    }
-
-                    withContext(Dispatchers.Main) {
-                        val notification = notificationManager.getProgressNotification(
-                            folder.fileName,
-                            file.fileName,
-                            index,
-                            files.size
-                        )
-                        notificationManager.showNotification(notification)
-
-                        val foregroundInfo = notificationManager.getForegroundInfo(notification)
-                        setForeground(foregroundInfo)
-                    }
-
-                    val operation = DownloadFileOperation(user, file, context)
-                    val operationResult = operation.execute(client)
-                    if (operationResult?.isSuccess == true && operation.downloadType === DownloadType.DOWNLOAD) {
-                        getOCFile(operation)?.let { ocFile ->
-                            downloadHelper.saveFile(ocFile, operation, storageManager)
-                        }
-                    }
-
-                    if (!operationResult.isSuccess) {
-                        result = false
-                    }
-                }
+                val plan = FolderDownloadPlan(journal)
+                var result = walk(folder, plan, user, client)
 
-                withContext(Dispatchers.Main) {
-                    notificationManager.showCompletionNotification(folder.fileName, result)
+                if (!checkDiskSize(plan.files)) {
+                    return@withContext Result.failure()
                 }
 
+                result = download(folder, plan, user, client) && result
+
+                notificationManager.showCompletionNotification(folder.fileName, result)
+
                 if (result) {
                     Log_OC.d(TAG, "✅ completed")
+                    journal.delete()
                     Result.success()
                 } else {
                     Log_OC.d(TAG, "❌ failed")
@@ -136,6 +124,7 @@ class FolderDownloadWorker(
                 Log_OC.d(TAG, "❌ failed reason: $e")
                 Result.failure()
             } finally {
+                journal.close()
                 WorkerStateObserver.send(WorkerState.FolderDownloadCompleted(folder))
                 pendingDownloads.remove(folder.fileId)
                 notificationManager.dismiss()
@@ -143,6 +132,98 @@ class FolderDownloadWorker(
         }
     }
 
+    /**
+     * Collects the files to download in the folder tree. Folders whose eTag changed since their content was stored
+     * locally are listed from the server first, folders completed by an earlier run are skipped.
+     *
+     * @return false if a folder could not be listed or the worker was stopped
+     */
+    private fun walk(root: OCFile, plan: FolderDownloadPlan, user: User, client: OwnCloudClient): Boolean {
+        var result = true
+        val queue = ArrayDeque(listOf(root))
+        while (queue.isNotEmpty()) {
+            if (isStopped) {
+                return false
+            }
+
+            var folder = queue.removeFirst()
+            if (folder.isEtagChanged) {
+                val operation = RefreshFolderOperation(
+                    folder,
+                    System.currentTimeMillis(),
+                    false,
+                    false,
+                    storageManager,
+                    user,
+                    context
+                )
+                if (!operation.execute(client).isSuccess) {
+                    Log_OC.e(TAG, "could not list ${folder.remotePath}")
+                    result = false
+                    continue
+                }
+                folder = storageManager.getFileByPath(folder.remotePath) ?: continue
+            }
+
+            queue.addAll(plan.addFolder(folder, storageManager.getFolderContent(folder, false)))
+        }
+        return result
+    }
+
+    /**
+     * Downloads the files of the plan, up to [ContentTransferExecutor.DEFAULT_PARALLELISM] at once.
+     *
+     * @return false if a download failed or the worker was stopped
+     */
+    private fun download(folder: OCFile, plan: FolderDownloadPlan, user: User, client: OwnCloudClient): Boolean {
+        val downloadHelper = FileDownloadHelper.instance()
+        val host = user.server.uri.host ?: user.accountName
+        val executor = ContentTransferExecutor(host, { isStopped })
+        executor.progressListener = ContentTransferExecutor.ProgressListener { transferred, total, finished, count ->
+            showProgress(folder, transferred, total, finished, count)
+        }
+
+        var result = true
+        val transfers = plan.files.map { FileDownload(DownloadFileOperation(user, it, context), client) }
+        val complete = executor.execute(transfers) { transfer, operationResult ->
+            val operation = (transfer as FileDownload).operation
+            if (operationResult?.isSuccess == true && operation.downloadType === DownloadType.DOWNLOAD) {
+                getOCFile(operation)?.let { ocFile ->
+                    downloadHelper.saveFile(ocFile, operation, storageManager)
+                    plan.fileCompleted(ocFile, operation.etag)
+                }
+            } else {
+                result = false
+            }
+        }
+        return complete && result
+    }
+
+    /**
+     * Updates the notification of the foreground service with the progress, at most every
+     * [NOTIFICATION_INTERVAL_MILLIS] apart from the last update.
+     */
+    private fun showProgress(folder: OCFile, transferred: Long, total: Long, finished: Int, count: Int) {
+        if (finished < count) {
+            val now = System.currentTimeMillis()
+            val last = lastNotification.get()
+            if (now - last < NOTIFICATION_INTERVAL_MILLIS || !lastNotification.compareAndSet(last, now)) {
+                return
+            }
+        }
+
+        // the notification builder is shared, progress is reported from several threads
+        val notification = synchronized(notificationManager) {
+            notificationManager.getProgressNotification(folder.fileName, finished, count, transferred, total)
+        }
+        try {
+            setForegroundAsync(notificationManager.getForegroundInfo(notification))
+        } catch (e: Exception) {
+            Log_OC.w(TAG, "⚠️ Could not update foreground service: ${e.message}")
+            notificationManager.showNotification(notification)
+        }
+    }
+
     @Suppress("ReturnCount")
     override suspend fun getForegroundInfo(): ForegroundInfo {
         return try {
@@ -182,12 +263,8 @@ class FolderDownloadWorker(
         return file
     }
 
-    private fun getFiles(folder: OCFile, storageManager: FileDataStorageManager): List<OCFile> =
-        storageManager.getFolderContent(folder, false)
-            .filter { !it.isFolder && !it.isDown }
-
-    private fun checkDiskSize(file: OCFile): Boolean {
-        val fileSizeInByte = file.fileLength
+    private fun checkDiskSize(files: List<OCFile>): Boolean {
+        val fileSizeInByte = files.sumOf { it.fileLength }
         val availableDiskSpace = FileOperationsHelper.getAvailableSpaceOnDevice()
 
         return if (availableDiskSpace < fileSizeInByte) {
@@ -197,4 +274,18 @@ class FolderDownloadWorker(
             true
         }
     }
+
+    private class FileDownload(val operation: DownloadFileOperation, private val client: OwnCloudClient) :
+        ContentTransferExecutor.Transfer<RemoteOperationResult<*>> {
+
+        override val size: Long
+            get() = operation.size
+
+        override fun run(progressListener: OnDatatransferProgressListener): RemoteOperationResult<*> {
+            operation.addDownloadDataTransferProgressListener(progressListener)
+            return operation.execute(client)
+        }
+
+        override fun cancel() = operation.cancel()
+    }
 }
@@ -16,6 +16,7 @@ import com.nextcloud.client.jobs.notification.WorkerNotificationManager
 import com.owncloud.android.R
 import com.owncloud.android.datamodel.OCFile
 import com.owncloud.android.ui.notifications.NotificationUtils
+import com.owncloud.android.utils.DisplayUtils
 import com.owncloud.android.utils.theme.ViewThemeUtils
 import kotlin.random.Random
 
@@ -65,16 +66,21 @@ class FolderDownloadWorkerNotificationManager(private val context: Context, view
         )
     }
 
-    @Suppress("MagicNumber")
     fun getProgressNotification(
         folderName: String,
-        filename: String,
-        currentIndex: Int,
-        totalFileSize: Int
+        finishedCount: Int,
+        totalCount: Int,
+        transferredBytes: Long,
+        totalBytes: Long
     ): Notification {
-        val currentFileIndex = (currentIndex + 1)
-        val description = context.getString(R.string.folder_download_counter, currentFileIndex, totalFileSize, filename)
-        val progress = (currentFileIndex * MAX_PROGRESS) / totalFileSize
+        val size = DisplayUtils.bytesToHumanReadable(transferredBytes) + " / " +
+            DisplayUtils.bytesToHumanReadable(totalBytes)
+        val description = context.getString(R.string.folder_download_counter, finishedCount, totalCount, size)
+        val progress = if (totalBytes > 0) {
+            (transferredBytes * MAX_PROGRESS / totalBytes).toInt()
+        } else {
+            finishedCount * MAX_PROGRESS / totalCount.coerceAtLeast(1)
+        }
         return getNotification(folderName, description, progress)
     }
 
@@ -18,7 +18,7 @@ import com.nextcloud.client.database.entity.toUploadEntity
 import com.nextcloud.client.device.BatteryStatus
 import com.nextcloud.client.device.PowerManagementService
 import com.nextcloud.client.jobs.BackgroundJobManager
-import com.nextcloud.client.jobs.upload.FileUploadWorker.Companion.currentUploadFileOperation
+import com.nextcloud.client.jobs.upload.FileUploadWorker.Companion.activeUploadFileOperations
 import com.nextcloud.client.network.Connectivity
 import com.nextcloud.client.network.ConnectivityService
 import com.nextcloud.client.notifications.AppWideNotificationManager
@@ -369,19 +369,19 @@ class FileUploadHelper {
         return conditions
     }
 
-    @Suppress("ReturnCount")
     fun isUploadingNow(upload: OCUpload?): Boolean {
-        val currentUploadFileOperation = currentUploadFileOperation
-        if (currentUploadFileOperation == null || currentUploadFileOperation.user == null) return false
-        if (upload == null || upload.accountName != currentUploadFileOperation.user.accountName) return false
-
-        return if (currentUploadFileOperation.oldFile != null) {
-            // For file conflicts check old file remote path
-            upload.remotePath == currentUploadFileOperation.remotePath ||
-                upload.remotePath == currentUploadFileOperation.oldFile!!
-                    .remotePath
-        } else {
-            upload.remotePath == currentUploadFileOperation.remotePath
+        upload ?: return false
+
+        return activeUploadFileOperations.any { operation ->
+            if (operation.user == null || upload.accountName != operation.user.accountName) {
+                false
+            } else if (operation.oldFile != null) {
+                // For file conflicts check old file remote path
+                upload.remotePath == operation.remotePath ||
+                    upload.remotePath == operation.oldFile!!.remotePath
+            } else {
+                upload.remotePath == operation.remotePath
+            }
         }
     }
 
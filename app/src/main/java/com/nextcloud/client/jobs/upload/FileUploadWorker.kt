@@ -42,9 +42,15 @@ import com.owncloud.android.operations.UploadFileOperation
 import com.owncloud.android.ui.notifications.NotificationUtils
 import com.owncloud.android.utils.theme.ViewThemeUtils
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReference
 import kotlin.random.Random
 
 @Suppress("LongParameterList", "TooGenericExceptionCaught")
@@ -59,8 +65,7 @@ class FileUploadWorker(
     val preferences: AppPreferences,
     val context: Context,
     params: WorkerParameters
-) : CoroutineWorker(context, params),
-    OnDatatransferProgressListener {
+) : CoroutineWorker(context, params) {
 
     companion object {
         val TAG: String = FileUploadWorker::class.java.simpleName
@@ -73,7 +78,24 @@ class FileUploadWorker(
         const val TOTAL_UPLOAD_SIZE = "total_upload_size"
         const val SHOW_SAME_FILE_ALREADY_EXISTS_NOTIFICATION = "show_same_file_already_exists_notification"
 
-        var currentUploadFileOperation: UploadFileOperation? = null
+        /**
+         * Number of uploads of a batch running at the same time unless configured otherwise.
+         */
+        const val DEFAULT_PARALLEL_UPLOADS = 3
+
+        /**
+         * Connection limit per host of the shared client, more parallel uploads would only wait for a connection.
+         */
+        const val MAX_PARALLEL_UPLOADS = 5
+
+        /**
+         * Number of uploads of a batch running at the same time: [AppPreferences.getParallelUploads], limited to
+         * 1..[MAX_PARALLEL_UPLOADS].
+         */
+        fun getParallelUploads(preferences: AppPreferences): Int =
+            preferences.parallelUploads.coerceIn(1, MAX_PARALLEL_UPLOADS)
+
+        val activeUploadFileOperations: MutableSet<UploadFileOperation> = ConcurrentHashMap.newKeySet()
 
         private const val BATCH_SIZE = 100
 
@@ -91,20 +113,16 @@ class FileUploadWorker(
         const val LOCAL_BEHAVIOUR_DELETE = 3
 
         fun cancelCurrentUpload(remotePath: String, accountName: String, onCompleted: () -> Unit) {
-            currentUploadFileOperation?.let {
-                if (it.remotePath == remotePath && it.user.accountName == accountName) {
+            activeUploadFileOperations
+                .firstOrNull { it.remotePath == remotePath && it.user.accountName == accountName }
+                ?.let {
                     it.cancel(ResultCode.USER_CANCELLED)
                     onCompleted()
                 }
-            }
         }
 
-        fun isUploading(remotePath: String?, accountName: String?): Boolean {
-            currentUploadFileOperation?.let {
-                return it.remotePath == remotePath && it.user.accountName == accountName
-            }
-
-            return false
+        fun isUploading(remotePath: String?, accountName: String?): Boolean = activeUploadFileOperations.any {
+            it.remotePath == remotePath && it.user.accountName == accountName
         }
 
         fun getUploadAction(action: String): Int = when (action) {
@@ -115,7 +133,13 @@ class FileUploadWorker(
         }
     }
 
+    private val progress = ConcurrentHashMap<UploadFileOperation, Pair<Long, Long>>()
     private var lastPercent = 0
+
+    /** Progress of an upload last seen and last handed to its bound listener */
+    private class ListenerProgress(var lastPercent: Int = 0, var lastUpdateTime: Long = 0L)
+
+    private val listenerProgress = ConcurrentHashMap<UploadFileOperation, ListenerProgress>()
     private val notificationId = Random.nextInt()
     private val notificationManager = UploadNotificationManager(context, viewThemeUtils, notificationId)
     private val intents = FileUploaderIntents(context)
@@ -134,7 +158,7 @@ class FileUploadWorker(
         result
     } catch (t: Throwable) {
         Log_OC.e(TAG, "exception $t")
-        currentUploadFileOperation?.cancel(null)
+        activeUploadFileOperations.forEach { it.cancel(null) }
         Result.failure()
     } finally {
         // Ensure all database operations are complete before signaling completion
@@ -226,50 +250,82 @@ class FileUploadWorker(
         val ocAccount = OwnCloudAccount(user.toPlatformAccount(), context)
         val client = OwnCloudClientManagerFactory.getDefaultSingleton().getClientFor(ocAccount, context)
 
-        for ((index, upload) in uploads.withIndex()) {
-            ensureActive()
+        val lanes = UploadLanes(FileDataStorageManager(user, context.contentResolver))
+        val queue = Channel<OCUpload>(Channel.UNLIMITED).apply {
+            uploads.forEach { trySend(it) }
+            close()
+        }
+        val startedUploads = AtomicInteger(previouslyUploadedFileSize)
+        val finishedUploads = AtomicInteger(previouslyUploadedFileSize)
+        val stopResult = AtomicReference<Result?>(null)
 
-            if (preferences.isGlobalUploadPaused) {
-                Log_OC.d(TAG, "Upload is paused, skip uploading files!")
-                notificationManager.notifyPaused(
-                    intents.openUploadListIntent(null)
-                )
-                return@withContext Result.success()
-            }
+        val parallelUploads = getParallelUploads(preferences)
+        Log_OC.d(TAG, "uploading ${uploads.size} files with $parallelUploads parallel uploads")
 
-            if (canExitEarly()) {
-                notificationManager.showConnectionErrorNotification()
-                return@withContext Result.failure()
-            }
+        coroutineScope {
+            repeat(parallelUploads) {
+                launch {
+                    for (upload in queue) {
+                        ensureActive()
 
-            fileUploadBroadcastManager.sendAdded(context)
-            val operation = createUploadFileOperation(upload, user)
-            currentUploadFileOperation = operation
+                        if (stopResult.get() != null) {
+                            break
+                        }
 
-            val currentIndex = (index + 1)
-            val currentUploadIndex = (currentIndex + previouslyUploadedFileSize)
-            notificationManager.prepareForStart(
-                operation,
-                startIntent = intents.openUploadListIntent(operation),
-                currentUploadIndex = currentUploadIndex,
-                totalUploadSize = totalUploadSize
-            )
+                        if (preferences.isGlobalUploadPaused) {
+                            Log_OC.d(TAG, "Upload is paused, skip uploading files!")
+                            if (stopResult.compareAndSet(null, Result.success())) {
+                                notificationManager.notifyPaused(
+                                    intents.openUploadListIntent(null)
+                                )
+                            }
+                            break
+                        }
 
-            val result = withContext(Dispatchers.IO) {
-                upload(upload, operation, user, client)
-            }
-            currentUploadFileOperation = null
+                        if (canExitEarly()) {
+                            if (stopResult.compareAndSet(null, Result.failure())) {
+                                notificationManager.showConnectionErrorNotification()
+                            }
+                            break
+                        }
 
-            if (result.code == ResultCode.QUOTA_EXCEEDED) {
-                Log_OC.w(TAG, "Quota exceeded, stopping uploads")
-                notificationManager.showQuotaExceedNotification(operation)
-                break
-            }
+                        fileUploadBroadcastManager.sendAdded(context)
+                        val operation = createUploadFileOperation(upload, user)
+
+                        val result = lanes.run(upload.remotePath) {
+                            activeUploadFileOperations.add(operation)
+                            notificationManager.prepareForStart(
+                                operation,
+                                startIntent = intents.openUploadListIntent(operation),
+                                currentUploadIndex = startedUploads.incrementAndGet(),
+                                totalUploadSize = totalUploadSize
+                            )
+
+                            try {
+                                upload(upload, operation, user, client)
+                            } finally {
+                                activeUploadFileOperations.remove(operation)
+                                progress.remove(operation)
+                                listenerProgress.remove(operation)
+                            }
+                        }
+
+                        if (result.code == ResultCode.QUOTA_EXCEEDED) {
+                            // uploads already running are finished, no new ones are started
+                            if (stopResult.compareAndSet(null, Result.success())) {
+                                Log_OC.w(TAG, "Quota exceeded, stopping uploads")
+                                notificationManager.showQuotaExceedNotification(operation)
+                            }
+                            break
+                        }
 
-            sendUploadFinishEvent(totalUploadSize, currentUploadIndex, operation, result)
+                        sendUploadFinishEvent(totalUploadSize, finishedUploads.incrementAndGet(), operation, result)
+                    }
+                }
+            }
         }
 
-        return@withContext Result.success()
+        return@withContext stopResult.get() ?: Result.success()
     }
 
     private fun sendUploadFinishEvent(
@@ -323,7 +379,12 @@ class FileUploadWorker(
         true,
         FileDataStorageManager(user, context.contentResolver)
     ).apply {
-        addDataTransferProgressListener(this@FileUploadWorker)
+        val operation = this
+        addDataTransferProgressListener(
+            OnDatatransferProgressListener { progressRate, totalTransferredSoFar, totalToTransfer, fileAbsoluteName ->
+                onTransferProgress(operation, progressRate, totalTransferredSoFar, totalToTransfer, fileAbsoluteName)
+            }
+        )
     }
 
     @Suppress("TooGenericExceptionCaught", "DEPRECATION")
@@ -382,43 +443,50 @@ class FileUploadWorker(
     private var lastUpdateTime = 0L
 
     /**
-     * Receives from [com.owncloud.android.operations.UploadFileOperation.normalUpload]
+     * Receives from [com.owncloud.android.operations.UploadFileOperation.normalUpload] for every running upload; the
+     * notification shows the progress over all of them.
      */
     @Suppress("MagicNumber")
-    override fun onTransferProgress(
+    private fun onTransferProgress(
+        operation: UploadFileOperation,
         progressRate: Long,
         totalTransferredSoFar: Long,
         totalToTransfer: Long,
         fileAbsoluteName: String
     ) {
-        val percent = getPercent(totalTransferredSoFar, totalToTransfer)
+        progress[operation] = totalTransferredSoFar to totalToTransfer
         val currentTime = System.currentTimeMillis()
 
-        if (percent != lastPercent && (currentTime - lastUpdateTime) >= minProgressUpdateInterval) {
-            notificationManager.run {
-                val accountName = currentUploadFileOperation?.user?.accountName
-                val remotePath = currentUploadFileOperation?.remotePath
-
-                updateUploadProgress(percent, currentUploadFileOperation)
+        // each upload reports from its own transfer thread, its listener is throttled like the notification
+        val listener = listenerProgress.getOrPut(operation) { ListenerProgress() }
+        val operationPercent = getPercent(totalTransferredSoFar, totalToTransfer)
+        if (operationPercent != listener.lastPercent &&
+            (currentTime - listener.lastUpdateTime) >= minProgressUpdateInterval
+        ) {
+            val key: String = FileUploadHelper.buildRemoteName(operation.user.accountName, operation.remotePath)
+            FileUploadHelper.mBoundListeners[key]?.onTransferProgress(
+                progressRate,
+                totalTransferredSoFar,
+                totalToTransfer,
+                operation.fileName ?: fileAbsoluteName
+            )
+            listener.lastUpdateTime = currentTime
+        }
+        listener.lastPercent = operationPercent
 
-                if (accountName != null && remotePath != null) {
-                    val key: String = FileUploadHelper.buildRemoteName(accountName, remotePath)
-                    val boundListener = FileUploadHelper.mBoundListeners[key]
-                    val filename = currentUploadFileOperation?.fileName ?: ""
+        val inFlight = progress.values
+        val percent = getPercent(inFlight.sumOf { it.first }, inFlight.sumOf { it.second })
 
-                    boundListener?.onTransferProgress(
-                        progressRate,
-                        totalTransferredSoFar,
-                        totalToTransfer,
-                        filename
-                    )
+        synchronized(this) {
+            if (percent != lastPercent && (currentTime - lastUpdateTime) >= minProgressUpdateInterval) {
+                notificationManager.run {
+                    updateUploadProgress(percent, operation)
+                    dismissOldErrorNotification(operation)
                 }
-
-                dismissOldErrorNotification(currentUploadFileOperation)
+                lastUpdateTime = currentTime
             }
-            lastUpdateTime = currentTime
-        }
 
-        lastPercent = percent
+            lastPercent = percent
+        }
     }
 }
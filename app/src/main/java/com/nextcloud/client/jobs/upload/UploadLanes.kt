@@ -0,0 +1,140 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs.upload
+
+import com.owncloud.android.datamodel.FileDataStorageManager
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.utils.FileStorageUtils
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Decides which uploads of a batch may run concurrently.
+ *
+ * Uploads are grouped in lanes by the remote folders they go into:
+ * - a folder not known locally yet may have to be created on the server, together with its missing ancestors, so
+ *   uploads below it run one after the other until it is known; an upload holds the lanes of all such folders above
+ *   it, from the top down, and two uploads into different new subfolders of the same new folder do not create it
+ *   at the same time
+ * - uploads into end-to-end encrypted folders always run one after the other, as each of them locks the folder and
+ *   updates its metadata
+ * - all other uploads run without restriction
+ */
+class UploadLanes(private val storageManager: FileDataStorageManager) {
+
+    private val mutexes = ConcurrentHashMap<String, Mutex>()
+    private val preparedFolders: MutableSet<String> = ConcurrentHashMap.newKeySet()
+    private val encryptedFolders = ConcurrentHashMap<String, Boolean>()
+
+    suspend fun <T> run(remotePath: String, block: suspend () -> T): T {
+        val parentPath = getParentPath(remotePath)
+        val encrypted = isEncrypted(parentPath)
+
+        val lanePaths = getUnpreparedFolders(parentPath)
+        if (encrypted && lanePaths.lastOrNull() != parentPath) {
+            lanePaths.add(parentPath)
+        }
+        if (lanePaths.isEmpty()) {
+            return block()
+        }
+
+        val locked = ArrayList<Mutex>(lanePaths.size)
+        try {
+            // always locked from the top down, so uploads sharing new ancestors cannot wait for each other
+            for (path in lanePaths) {
+                val mutex = mutexes.getOrPut(path) { Mutex() }
+                mutex.lock()
+
+                // folder got created while waiting for the lane, no need to keep others waiting
+                if (isPrepared(path) && !(encrypted && path == parentPath)) {
+                    mutex.unlock()
+                } else {
+                    locked.add(mutex)
+                }
+            }
+
+            return block().also {
+                lanePaths.forEach { isPrepared(it) }
+            }
+        } finally {
+            locked.asReversed().forEach { it.unlock() }
+        }
+    }
+
+    /**
+     * Runs [block] for all [items] with at most [parallelism] of them at the same time, each in the lane of the
+     * remote path given by [remotePath].
+     *
+     * @return results in the order of [items]
+     */
+    suspend fun <T, R> runAll(
+        items: List<T>,
+        parallelism: Int,
+        remotePath: (T) -> String,
+        block: suspend (T) -> R
+    ): List<R> = coroutineScope {
+        val semaphore = Semaphore(parallelism)
+
+        items.map { item ->
+            async {
+                // waiting for a lane does not take a slot from uploads which can run
+                run(remotePath(item)) {
+                    semaphore.withPermit { block(item) }
+                }
+            }
+        }.awaitAll()
+    }
+
+    /**
+     * @return folders from the top down to [parentPath] which are not known locally yet
+     */
+    private fun getUnpreparedFolders(parentPath: String): MutableList<String> {
+        val folders = ArrayList<String>()
+        var path = parentPath
+        while (path != OCFile.ROOT_PATH && !isPrepared(path)) {
+            folders.add(path)
+            path = getParentPath(path)
+        }
+        folders.reverse()
+        return folders
+    }
+
+    private fun isPrepared(path: String): Boolean {
+        if (preparedFolders.contains(path)) {
+            return true
+        }
+
+        return (storageManager.getFileByPath(path) != null).also { prepared ->
+            if (prepared) {
+                preparedFolders.add(path)
+            }
+        }
+    }
+
+    private fun isEncrypted(parentPath: String): Boolean = encryptedFolders.getOrPut(parentPath) {
+        // folder may not exist yet, encryption is inherited from the closest existing ancestor
+        var path: String? = parentPath
+        var folder: OCFile? = null
+        while (folder == null && path != null) {
+            folder = storageManager.getFileByPath(path)
+            path = if (path == OCFile.ROOT_PATH) null else getParentPath(path)
+        }
+
+        folder != null && FileStorageUtils.checkEncryptionStatus(folder, storageManager)
+    }
+
+    private fun getParentPath(remotePath: String): String {
+        val parent = File(remotePath).parent ?: return OCFile.ROOT_PATH
+        return if (parent.endsWith(OCFile.PATH_SEPARATOR)) parent else parent + OCFile.PATH_SEPARATOR
+    }
+}
@@ -6,11 +6,15 @@
  */
 package com.nextcloud.client.logger
 
+import java.io.BufferedOutputStream
 import java.io.File
 import java.io.FileNotFoundException
 import java.io.FileOutputStream
 import java.io.IOException
-import java.nio.charset.Charset
+import java.io.OutputStream
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.CodingErrorAction
 
 /**
  * Very simple log writer with file rotations.
@@ -18,6 +22,8 @@ import java.nio.charset.Charset
  * Files are rotated when writing entry causes log file to exceed it's maximum size.
  * Last entry is not truncated and final log file can exceed max file size, but
  * no further entries will be written to it.
+ *
+ * Writes are buffered while the file is open; they reach the file on [flush] or [close].
  */
 internal class FileLogHandler(private val logDir: File, private val logFilename: String, private val maxSize: Long) {
 
@@ -25,10 +31,16 @@ internal class FileLogHandler(private val logDir: File, private val logFilename:
 
     companion object {
         const val ROTATED_LOGS_COUNT = 3
+        private const val BUFFER_SIZE = 16 * 1024
+        private const val MAX_RETAINED_ENCODE_BUFFER = 64 * 1024
     }
 
-    private var writer: FileOutputStream? = null
+    private var writer: OutputStream? = null
     private var size: Long = 0
+    private val encoder = Charsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+    private var encodeBuffer = ByteBuffer.allocate(BUFFER_SIZE)
     private val rotationList = listOf(
         "$logFilename.2",
         "$logFilename.1",
@@ -49,25 +61,40 @@ internal class FileLogHandler(private val logDir: File, private val logFilename:
     val maxLogFilesCount get() = rotationList.size
 
     fun open() {
-        try {
-            writer = FileOutputStream(logFile, true)
-            size = logFile.length()
+        val stream = try {
+            FileOutputStream(logFile, true)
         } catch (ex: FileNotFoundException) {
             logFile.parentFile.mkdirs()
-            writer = FileOutputStream(logFile, true)
-            size = logFile.length()
+            FileOutputStream(logFile, true)
         }
+        writer = BufferedOutputStream(stream, BUFFER_SIZE)
+        size = logFile.length()
     }
 
-    fun write(logEntry: String) {
-        val rawLogEntry = logEntry.toByteArray(Charset.forName("UTF-8"))
-        writer?.write(rawLogEntry)
-        size += rawLogEntry.size
+    fun write(logEntry: CharSequence) {
+        val maxLength = (logEntry.length * encoder.maxBytesPerChar()).toInt()
+        val buffer = when {
+            maxLength <= encodeBuffer.capacity() -> encodeBuffer
+            maxLength <= MAX_RETAINED_ENCODE_BUFFER -> ByteBuffer.allocate(maxLength).also { encodeBuffer = it }
+            else -> ByteBuffer.allocate(maxLength)
+        }
+
+        buffer.clear()
+        encoder.reset()
+        encoder.encode(CharBuffer.wrap(logEntry), buffer, true)
+        encoder.flush(buffer)
+
+        writer?.write(buffer.array(), 0, buffer.position())
+        size += buffer.position()
         if (size > maxSize) {
             rotateLogs()
         }
     }
 
+    fun flush() {
+        writer?.flush()
+    }
+
     fun close() {
         writer?.close()
         writer = null
@@ -45,6 +45,42 @@ data class LogEntry(val timestamp: Date, val level: Level, val tag: String, val
             }
         }
 
+        /**
+         * Appends an entry in the format read by [parse] without creating a [LogEntry].
+         *
+         * @param date date to be set to the entry time, reused by callers formatting many entries
+         */
+        @Suppress("LongParameterList")
+        internal fun format(
+            sb: StringBuilder,
+            dateFormat: SimpleDateFormat,
+            date: Date,
+            timestamp: Long,
+            level: Level,
+            tag: String,
+            message: String
+        ) {
+            date.time = timestamp
+            sb.append(dateFormat.format(date))
+            sb.append(';')
+            sb.append(level.tag)
+            sb.append(';')
+            appendReplacing(sb, tag, ';', " ")
+            sb.append(';')
+            appendReplacing(sb, message, '\n', "\\n")
+        }
+
+        private fun appendReplacing(sb: StringBuilder, text: String, char: Char, replacement: String) {
+            var start = 0
+            var index = text.indexOf(char)
+            while (index >= 0) {
+                sb.append(text, start, index).append(replacement)
+                start = index + 1
+                index = text.indexOf(char, start)
+            }
+            sb.append(text, start, text.length)
+        }
+
         @Suppress("ReturnCount")
         @JvmStatic
         fun parse(s: String): LogEntry? {
@@ -82,12 +118,6 @@ data class LogEntry(val timestamp: Date, val level: Level, val tag: String, val
     }
 
     private fun format(sb: StringBuilder, dateFormat: SimpleDateFormat) {
-        sb.append(dateFormat.format(timestamp))
-        sb.append(';')
-        sb.append(level.tag)
-        sb.append(';')
-        sb.append(tag.replace(';', ' '))
-        sb.append(';')
-        sb.append(message.replace("\n", "\\n"))
+        format(sb, dateFormat, Date(), timestamp.time, level, tag, message)
     }
 }
@@ -0,0 +1,109 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.logger
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * Bounded lock-free queue of log entries for many writing threads and a single reading thread.
+ *
+ * Entry fields are stored in preallocated slots instead of entry objects. Each slot has a sequence number telling
+ * whether it is free for the writer claiming the position or holds an entry for the reader, so writers never wait:
+ * when the queue is full, [offer] fails right away.
+ */
+internal class LogRingBuffer(private val capacity: Int) {
+
+    private val sequences = AtomicLongArray(capacity)
+    private val timestamps = LongArray(capacity)
+    private val levels = arrayOfNulls<Level>(capacity)
+    private val tags = arrayOfNulls<String>(capacity)
+    private val messages = arrayOfNulls<String>(capacity)
+
+    private val tail = AtomicLong()
+
+    fun interface Consumer {
+        fun accept(timestamp: Long, level: Level, tag: String, message: String)
+    }
+
+    // read by the reader thread only
+    private var head = 0L
+
+    init {
+        require(capacity > 0) { "Capacity must be positive" }
+        for (i in 0 until capacity) {
+            sequences.set(i, i.toLong())
+        }
+    }
+
+    /**
+     * @return false if the queue is full and the entry was not added
+     */
+    fun offer(timestamp: Long, level: Level, tag: String, message: String): Boolean {
+        var position = tail.get()
+        while (true) {
+            val slot = slot(position)
+            val sequence = sequences.get(slot)
+            when {
+                sequence == position -> if (tail.compareAndSet(position, position + 1)) {
+                    timestamps[slot] = timestamp
+                    levels[slot] = level
+                    tags[slot] = tag
+                    messages[slot] = message
+                    // publishes the fields to the reader
+                    sequences.set(slot, position + 1)
+                    return true
+                } else {
+                    position = tail.get()
+                }
+
+                // the slot still holds the entry written one round earlier
+                sequence < position -> return false
+
+                else -> position = tail.get()
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest entry and passes its fields to [consumer]. To be called by the reader thread only.
+     *
+     * @return false if the queue is empty
+     */
+    fun poll(consumer: Consumer): Boolean {
+        val slot = peekSlot()
+        if (slot < 0) {
+            return false
+        }
+
+        val timestamp = timestamps[slot]
+        val level = levels[slot]!!
+        val tag = tags[slot]!!
+        val message = messages[slot]!!
+        release(slot)
+        consumer.accept(timestamp, level, tag, message)
+        return true
+    }
+
+    val isEmpty: Boolean
+        get() = peekSlot() < 0
+
+    private fun peekSlot(): Int {
+        val slot = slot(head)
+        return if (sequences.get(slot) == head + 1) slot else -1
+    }
+
+    private fun release(slot: Int) {
+        levels[slot] = null
+        tags[slot] = null
+        messages[slot] = null
+        sequences.set(slot, head + capacity)
+        head++
+    }
+
+    private fun slot(position: Long) = (position % capacity).toInt()
+}
@@ -10,12 +10,20 @@ import android.os.Handler
 import android.util.Log
 import com.nextcloud.client.core.Clock
 import java.util.Date
-import java.util.concurrent.BlockingQueue
-import java.util.concurrent.LinkedBlockingQueue
+import java.util.Queue
+import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
 
+/**
+ * Logger writing entries to the log file on a background thread.
+ *
+ * Logging threads never wait: entries are put into a [LogRingBuffer] and dropped when it is full, which is reported
+ * with a warning in the log. Entries below [minLevel] are not queued at all. The log file is kept open and flushed
+ * at most every [FLUSH_INTERVAL_MILLIS], or right after an error entry, so a burst of entries is written at once.
+ */
 @Suppress("TooManyFunctions")
 internal class LoggerImpl(
     private val clock: Clock,
@@ -28,19 +36,73 @@ internal class LoggerImpl(
     data class Load(val onResult: (List<LogEntry>, Long) -> Unit)
     class Delete
 
+    companion object {
+        private const val FLUSH_INTERVAL_MILLIS = 1000L
+        private val FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS)
+    }
+
     private val looper = ThreadLoop()
-    private val eventQueue: BlockingQueue<Any> = LinkedBlockingQueue(queueCapacity)
+    private val entries = LogRingBuffer(queueCapacity)
+    private val otherEvents: Queue<Any> = ConcurrentLinkedQueue()
+
+    @Volatile
+    private var loopThread: Thread? = null
+    private val waiting = AtomicBoolean()
 
-    private val processedEvents = mutableListOf<Any>()
-    private val otherEvents = mutableListOf<Any>()
     private val missedLogs = AtomicBoolean()
     private val missedLogsCount = AtomicLong()
+    private val droppedEntries = AtomicLong()
+    private val writtenEntries = AtomicLong()
+    private val flushes = AtomicLong()
+    private val flushNanos = AtomicLong()
+
+    // used by the loop thread only
+    private val dateFormat = LogEntry.buildDateFormat()
+    private val date = Date()
+    private val line = StringBuilder()
+    private val writeEntry = LogRingBuffer.Consumer(this::write)
+    private var lastFlushNanos = System.nanoTime() - FLUSH_INTERVAL_NANOS
+    private var unflushed = false
+    private var flushNow = false
+
+    /**
+     * Entries of lower levels are only sent to logcat.
+     */
+    @Volatile
+    var minLevel: Level = Level.VERBOSE
+
+    /**
+     * Debug and verbose entries are written to the log file only while debug logging is enabled.
+     */
+    var isDebugLoggingEnabled: Boolean
+        get() = minLevel <= Level.DEBUG
+        set(enabled) {
+            minLevel = if (enabled) Level.VERBOSE else Level.INFO
+        }
 
     override val lostEntries: Boolean
         get() {
             return missedLogs.get()
         }
 
+    /**
+     * Number of entries dropped because the queue was full.
+     */
+    val droppedEntryCount: Long
+        get() = droppedEntries.get()
+
+    val writtenEntryCount: Long
+        get() = writtenEntries.get()
+
+    val flushCount: Long
+        get() = flushes.get()
+
+    val meanFlushTimeMillis: Double
+        get() {
+            val count = flushes.get()
+            return if (count == 0L) 0.0 else flushNanos.get() / count / 1_000_000.0
+        }
+
     fun start() {
         looper.start(this::eventLoop)
     }
@@ -81,83 +143,143 @@ internal class LoggerImpl(
     }
 
     override fun load(onLoaded: (entries: List<LogEntry>, totalLogSize: Long) -> Unit) {
-        eventQueue.put(Load(onLoaded))
+        otherEvents.add(Load(onLoaded))
+        wakeUp()
     }
 
     override fun deleteAll() {
-        eventQueue.put(Delete())
+        otherEvents.add(Delete())
+        wakeUp()
     }
 
     private fun enqueue(level: Level, tag: String, message: String) {
-        try {
-            val entry = LogEntry(timestamp = clock.currentDate, level = level, tag = tag, message = message)
-            val enqueued = eventQueue.offer(entry, 1, TimeUnit.SECONDS)
-            if (!enqueued) {
-                missedLogs.set(true)
-                missedLogsCount.incrementAndGet()
-            }
-        } catch (ex: InterruptedException) {
-            // since interrupted flag is consumed now, we need to re-set the flag so
-            // the caller can continue handling the thread interruption in it's own way
-            Thread.currentThread().interrupt()
+        if (level < minLevel) {
+            return
+        }
+
+        if (entries.offer(clock.currentTime, level, tag, message)) {
+            wakeUp()
+        } else {
+            missedLogs.set(true)
+            missedLogsCount.incrementAndGet()
+            droppedEntries.incrementAndGet()
+        }
+    }
+
+    private fun wakeUp() {
+        if (waiting.get()) {
+            LockSupport.unpark(loopThread)
         }
     }
 
     private fun eventLoop() {
+        loopThread = Thread.currentThread()
         try {
-            processedEvents.clear()
-            otherEvents.clear()
-
-            processedEvents.add(eventQueue.take())
-            eventQueue.drainTo(processedEvents)
-
-            // process all writes in bulk - this is most frequest use case and we can
-            // assume handler must be opened 99.999% of time; anything that is not a log
-            // write should be deferred
-            handler.open()
-            for (event in processedEvents) {
-                if (event is LogEntry) {
-                    handler.write(event.toString() + "\n")
-                } else {
-                    otherEvents.add(event)
-                }
+            // entries queued before an event are written before it is handled
+            while (entries.poll(writeEntry)) {
+                writtenEntries.incrementAndGet()
             }
-            handler.close()
 
             // Those events are very sporadic and we don't have to be clever here
-            for (event in otherEvents) {
+            var event = otherEvents.poll()
+            while (event != null) {
                 when (event) {
                     is Load -> {
+                        flush()
                         val loaded = handler.loadLogFiles()
-                        val entries = loaded.lines.mapNotNull { LogEntry.parse(it) }
+                        val loadedEntries = loaded.lines.mapNotNull { LogEntry.parse(it) }
                         mainThreadHandler.post {
-                            event.onResult(entries, loaded.logSize)
+                            event.onResult(loadedEntries, loaded.logSize)
                         }
                     }
 
-                    is Delete -> handler.deleteAll()
+                    is Delete -> {
+                        handler.close()
+                        unflushed = false
+                        handler.deleteAll()
+                    }
                 }
+                event = otherEvents.poll()
             }
 
             checkAndLogLostMessages()
+
+            val sinceFlush = System.nanoTime() - lastFlushNanos
+            if (unflushed && (flushNow || sinceFlush >= FLUSH_INTERVAL_NANOS)) {
+                flush()
+            }
+            waitForEvents()
+
+            if (Thread.interrupted()) {
+                throw InterruptedException()
+            }
         } catch (ex: InterruptedException) {
             handler.close()
             throw ex
         }
     }
 
+    private fun write(timestamp: Long, level: Level, tag: String, message: String) {
+        line.setLength(0)
+        LogEntry.format(line, dateFormat, date, timestamp, level, tag, message)
+        line.append('\n')
+        writeLine(level)
+    }
+
+    private fun writeLine(level: Level) {
+        if (!handler.isOpened) {
+            handler.open()
+        }
+        handler.write(line)
+        unflushed = true
+        flushNow = flushNow || level >= Level.ERROR
+    }
+
+    private fun flush() {
+        if (!unflushed) {
+            return
+        }
+
+        val start = System.nanoTime()
+        handler.flush()
+        lastFlushNanos = System.nanoTime()
+        flushes.incrementAndGet()
+        flushNanos.addAndGet(lastFlushNanos - start)
+        unflushed = false
+        flushNow = false
+    }
+
+    /**
+     * Parks the loop thread until new events arrive, or until written entries are due to be flushed.
+     */
+    private fun waitForEvents() {
+        waiting.set(true)
+        // checked again after announcing the wait, so events added meanwhile are not missed
+        if (entries.isEmpty && otherEvents.isEmpty()) {
+            if (unflushed) {
+                LockSupport.parkNanos(this, lastFlushNanos + FLUSH_INTERVAL_NANOS - System.nanoTime())
+            } else {
+                LockSupport.park(this)
+            }
+        }
+        waiting.set(false)
+    }
+
     private fun checkAndLogLostMessages() {
         val lastMissedLogsCount = missedLogsCount.getAndSet(0)
         if (lastMissedLogsCount > 0) {
-            handler.open()
-            val warning = LogEntry(
-                timestamp = Date(),
-                level = Level.WARNING,
-                tag = "Logger",
-                message = "Logger queue overflow. Approx $lastMissedLogsCount entries lost. You write too much."
-            ).toString()
-            handler.write(warning)
-            handler.close()
+            line.setLength(0)
+            LogEntry.format(
+                line,
+                dateFormat,
+                date,
+                clock.currentTime,
+                Level.WARNING,
+                "Logger",
+                "Logger queue overflow. Approx $lastMissedLogsCount entries lost. You write too much."
+            )
+            line.append('\n')
+            writeLine(Level.WARNING)
         }
     }
 }
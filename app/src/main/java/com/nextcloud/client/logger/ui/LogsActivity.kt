@@ -17,6 +17,7 @@ import androidx.lifecycle.ViewModelProvider
 import androidx.recyclerview.widget.LinearLayoutManager
 import androidx.recyclerview.widget.RecyclerView
 import com.nextcloud.client.di.ViewModelFactory
+import com.nextcloud.client.preferences.AppPreferences
 import com.owncloud.android.R
 import com.owncloud.android.databinding.LogsActivityBinding
 import com.owncloud.android.ui.activity.ToolbarActivity
@@ -27,6 +28,9 @@ class LogsActivity : ToolbarActivity() {
     @Inject
     lateinit var viewModelFactory: ViewModelFactory
 
+    @Inject
+    lateinit var appPreferences: AppPreferences
+
     private lateinit var vm: LogsViewModel
     private lateinit var binding: LogsActivityBinding
     private lateinit var logsAdapter: LogsAdapter
@@ -76,6 +80,7 @@ class LogsActivity : ToolbarActivity() {
             setOnQueryTextListener(searchBoxListener)
             viewThemeUtils.androidx.themeToolbarSearchView(this)
         }
+        menu.findItem(R.id.action_debug_logging).isChecked = appPreferences.isDebugLoggingEnabled
         return super.onCreateOptionsMenu(menu)
     }
 
@@ -86,6 +91,10 @@ class LogsActivity : ToolbarActivity() {
             R.id.action_delete_logs -> vm.deleteAll()
             R.id.action_send_logs -> vm.send()
             R.id.action_refresh_logs -> vm.load()
+            R.id.action_debug_logging -> {
+                item.isChecked = !item.isChecked
+                appPreferences.isDebugLoggingEnabled = item.isChecked
+            }
             else -> retval = super.onOptionsItemSelected(item)
         }
         return retval
@@ -34,6 +34,10 @@ public interface AppPreferences {
         default void onDarkThemeModeChanged(DarkMode mode) {
             /* default empty implementation */
         };
+
+        default void onDebugLoggingChanged(boolean enabled) {
+            /* default empty implementation */
+        }
     }
 
     /**
@@ -63,6 +67,19 @@ public interface AppPreferences {
 
     boolean isShowHiddenFilesEnabled();
     void setShowHiddenFilesEnabled(boolean enabled);
+
+    /**
+     * @return true if debug and verbose log entries are written to the log file, the default
+     */
+    boolean isDebugLoggingEnabled();
+    void setDebugLoggingEnabled(boolean enabled);
+
+    /**
+     * @return number of uploads of a batch running at the same time as stored, the upload workers limit it to a sane
+     * range
+     */
+    int getParallelUploads();
+    void setParallelUploads(int parallelUploads);
     
     boolean isSortFoldersBeforeFiles();
     void setSortFoldersBeforeFiles(boolean enabled);
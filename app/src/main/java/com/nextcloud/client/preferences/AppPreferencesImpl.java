@@ -22,6 +22,7 @@ import com.nextcloud.client.account.User;
 import com.nextcloud.client.account.UserAccountManager;
 import com.nextcloud.client.account.UserAccountManagerImpl;
 import com.nextcloud.client.jobs.LogEntry;
+import com.nextcloud.client.jobs.upload.FileUploadWorker;
 import com.owncloud.android.datamodel.ArbitraryDataProvider;
 import com.owncloud.android.datamodel.ArbitraryDataProviderImpl;
 import com.owncloud.android.datamodel.FileDataStorageManager;
@@ -31,6 +32,7 @@ import com.owncloud.android.ui.activity.SettingsActivity;
 import com.owncloud.android.utils.FileSortOrder;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -70,6 +72,8 @@ public final class AppPreferencesImpl implements AppPreferences {
     private static final String PREF__INSTANT_UPLOADING = "instant_uploading";
     private static final String PREF__INSTANT_VIDEO_UPLOADING = "instant_video_uploading";
     private static final String PREF__SHOW_HIDDEN_FILES = "show_hidden_files_pref";
+    private static final String PREF__DEBUG_LOGGING = "debug_logging";
+    private static final String PREF__PARALLEL_UPLOADS = "parallel_uploads";
     private static final String PREF__SORT_FOLDERS_BEFORE_FILES = "sort_folders_before_files";
     private static final String PREF__SORT_FAVORITES_FIRST = "sort_favorites_first";
     private static final String PREF__SHOW_ECOSYSTEM_APPS = "show_ecosystem_apps";
@@ -116,6 +120,8 @@ public final class AppPreferencesImpl implements AppPreferences {
 
     private static final String LOG_ENTRY = "log_entry";
 
+    private static final FolderPreferenceCache folderPreferenceCache = new FolderPreferenceCache();
+
     private final Context context;
     private final SharedPreferences preferences;
     private final UserAccountManager userAccountManager;
@@ -156,6 +162,11 @@ public final class AppPreferencesImpl implements AppPreferences {
                 for (Listener l : listeners) {
                     l.onDarkThemeModeChanged(mode);
                 }
+            } else if (PREF__DEBUG_LOGGING.equals(key)) {
+                boolean enabled = preferences.isDebugLoggingEnabled();
+                for (Listener l : listeners) {
+                    l.onDebugLoggingChanged(enabled);
+                }
             }
         }
     }
@@ -234,6 +245,26 @@ public final class AppPreferencesImpl implements AppPreferences {
         preferences.edit().putBoolean(PREF__SHOW_HIDDEN_FILES, enabled).apply();
     }
 
+    @Override
+    public boolean isDebugLoggingEnabled() {
+        return preferences.getBoolean(PREF__DEBUG_LOGGING, true);
+    }
+
+    @Override
+    public void setDebugLoggingEnabled(boolean enabled) {
+        preferences.edit().putBoolean(PREF__DEBUG_LOGGING, enabled).apply();
+    }
+
+    @Override
+    public int getParallelUploads() {
+        return preferences.getInt(PREF__PARALLEL_UPLOADS, FileUploadWorker.DEFAULT_PARALLEL_UPLOADS);
+    }
+
+    @Override
+    public void setParallelUploads(int parallelUploads) {
+        preferences.edit().putInt(PREF__PARALLEL_UPLOADS, parallelUploads).apply();
+    }
+
     @Override
     public boolean isSortFoldersBeforeFiles() {
         return preferences.getBoolean(PREF__SORT_FOLDERS_BEFORE_FILES, true);
@@ -667,6 +698,9 @@ public final class AppPreferencesImpl implements AppPreferences {
      * until a value is found. If no value is found in any ancestor, the provided {@code defaultValue} is returned.
      * <p>
      * Anonymous users or {@code null} folders will always return the {@code defaultValue}.
+     * <p>
+     * Resolved values are kept in {@link FolderPreferenceCache} for the folder and the ancestors visited, so only the
+     * first lookup in a folder tree queries the database.
      *
      * @param context        The Android context.
      * @param user           The user for whom the preference is queried.
@@ -684,15 +718,43 @@ public final class AppPreferencesImpl implements AppPreferences {
             return defaultValue;
         }
 
+        String accountName = user.getAccountName();
+        String value = folderPreferenceCache.get(accountName, preferenceName, folder);
+        if (value != null) {
+            return value.isEmpty() ? defaultValue : value;
+        }
+
+        long generation = folderPreferenceCache.getGeneration();
         ArbitraryDataProvider dataProvider = new ArbitraryDataProviderImpl(context);
-        FileDataStorageManager storageManager = new FileDataStorageManager(user, context.getContentResolver());
+        FileDataStorageManager storageManager = null;
+        List<OCFile> visitedFolders = new ArrayList<>();
 
-        String value = dataProvider.getValue(user.getAccountName(), getKeyFromFolder(preferenceName, folder));
         OCFile prefFolder = folder;
-        while (prefFolder != null && value.isEmpty()) {
+        while (prefFolder != null) {
+            if (prefFolder != folder) {
+                value = folderPreferenceCache.get(accountName, preferenceName, prefFolder);
+                if (value != null) {
+                    break;
+                }
+            }
+
+            visitedFolders.add(prefFolder);
+            value = dataProvider.getValue(accountName, getKeyFromFolder(preferenceName, prefFolder));
+            if (!value.isEmpty()) {
+                break;
+            }
+
+            if (storageManager == null) {
+                storageManager = new FileDataStorageManager(user, context.getContentResolver());
+            }
             prefFolder = storageManager.getFileById(prefFolder.getParentId());
-            value = dataProvider.getValue(user.getAccountName(), getKeyFromFolder(preferenceName, prefFolder));
         }
+
+        if (prefFolder == null) {
+            value = dataProvider.getValue(accountName, getKeyFromFolder(preferenceName, null));
+        }
+
+        folderPreferenceCache.put(accountName, preferenceName, visitedFolders, value, generation);
         return value.isEmpty() ? defaultValue : value;
     }
 
@@ -711,6 +773,7 @@ public final class AppPreferencesImpl implements AppPreferences {
                                             final String value) {
         ArbitraryDataProvider dataProvider = new ArbitraryDataProviderImpl(context);
         dataProvider.storeOrUpdateKeyValue(user.getAccountName(), getKeyFromFolder(preferenceName, folder), value);
+        folderPreferenceCache.invalidate(user.getAccountName(), preferenceName, folder);
     }
 
     private static String getKeyFromFolder(String preferenceName, @Nullable OCFile folder) {
@@ -0,0 +1,117 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.preferences;
+
+import com.owncloud.android.datamodel.OCFile;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Resolved values of folder preferences, i.e. the value set on a folder or inherited from the closest ancestor, per
+ * account and preference.
+ * <p>
+ * Values are kept by remote path, so setting a value on a folder drops the values of all folders below it. Each value
+ * remembers the id of its folder and is only used for a folder with the same id, so a path that now belongs to
+ * another folder, e.g. after moving, is resolved again.
+ */
+final class FolderPreferenceCache {
+    private static final int MAX_ENTRIES = 5000;
+
+    private final Map<String, Map<String, Entry>> values = new HashMap<>();
+    private long generation;
+
+    private static final class Entry {
+        private final long fileId;
+        private final String value;
+
+        private Entry(long fileId, String value) {
+            this.fileId = fileId;
+            this.value = value;
+        }
+    }
+
+    /**
+     * @return the resolved value of the folder, an empty string if no value is set on it or its ancestors, or null
+     * if it is not known
+     */
+    @Nullable
+    synchronized String get(String accountName, String preferenceName, OCFile folder) {
+        Map<String, Entry> folderValues = values.get(getKey(accountName, preferenceName));
+        if (folderValues == null) {
+            return null;
+        }
+
+        Entry entry = folderValues.get(folder.getRemotePath());
+        return entry != null && entry.fileId == folder.getFileId() ? entry.value : null;
+    }
+
+    /**
+     * @return a token to be passed to {@link #put}, so values resolved while another value was set are not kept
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Stores the value resolved for the given folders, e.g. a folder and the ancestors that inherit the same value.
+     */
+    synchronized void put(String accountName,
+                          String preferenceName,
+                          List<OCFile> folders,
+                          String value,
+                          long resolvedGeneration) {
+        if (resolvedGeneration != generation) {
+            return;
+        }
+
+        Map<String, Entry> folderValues = values.get(getKey(accountName, preferenceName));
+        if (folderValues == null) {
+            folderValues = new HashMap<>();
+            values.put(getKey(accountName, preferenceName), folderValues);
+        } else if (folderValues.size() + folders.size() > MAX_ENTRIES) {
+            folderValues.clear();
+        }
+
+        for (OCFile folder : folders) {
+            folderValues.put(folder.getRemotePath(), new Entry(folder.getFileId(), value));
+        }
+    }
+
+    /**
+     * Drops the values of the given folder and of all folders below it, of all folders if it is null.
+     */
+    synchronized void invalidate(String accountName, String preferenceName, @Nullable OCFile folder) {
+        generation++;
+
+        Map<String, Entry> folderValues = values.get(getKey(accountName, preferenceName));
+        if (folderValues == null) {
+            return;
+        }
+
+        if (folder == null) {
+            folderValues.clear();
+            return;
+        }
+
+        String path = folder.getRemotePath();
+        Iterator<Map.Entry<String, Entry>> iterator = folderValues.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey().startsWith(path)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String getKey(String accountName, String preferenceName) {
+        return accountName + "\n" + preferenceName;
+    }
+}
@@ -8,6 +8,7 @@
 package com.nextcloud.utils.extensions
 
 import com.owncloud.android.datamodel.FileDataStorageManager
+import com.owncloud.android.datamodel.FileNameIndex
 import com.owncloud.android.datamodel.OCFile
 import com.owncloud.android.lib.resources.shares.OCShare
 import kotlinx.coroutines.Dispatchers
@@ -24,7 +25,7 @@ suspend fun FileDataStorageManager.saveShares(shares: List<OCShare>, accountName
 }
 
 fun FileDataStorageManager.searchFilesByName(file: OCFile, accountName: String, query: String): List<OCFile> =
-    fileDao.searchFilesInFolder(file.fileId, accountName, query).map {
+    FileNameIndex.search(fileDao, accountName, query, file.fileId, false, 0, Int.MAX_VALUE).map {
         createFileInstance(it)
     }
 
@@ -15,6 +15,11 @@ fun UploadsStorageManager.updateStatus(entity: UploadEntity?, status: UploadsSto
     uploadDao.insertOrReplace(entity.withStatus(status))
 }
 
+fun UploadsStorageManager.updateStatus(entities: List<UploadEntity>, status: UploadsStorageManager.UploadStatus) {
+    if (entities.isEmpty()) return
+    uploadDao.insertOrReplaceAll(entities.map { it.withStatus(status) })
+}
+
 fun UploadsStorageManager.updateStatus(entity: UploadEntity?, success: Boolean) {
     entity ?: return
     val newStatus = if (success) {
@@ -72,6 +72,7 @@ import com.owncloud.android.datamodel.ReceiverFlag;
 import com.owncloud.android.datamodel.SyncedFolder;
 import com.owncloud.android.datamodel.SyncedFolderProvider;
 import com.owncloud.android.datamodel.ThumbnailsCacheManager;
+import com.owncloud.android.datamodel.ThumbnailsMemoryCache;
 import com.owncloud.android.datamodel.UploadsStorageManager;
 import com.owncloud.android.datastorage.DataStorageProvider;
 import com.owncloud.android.datastorage.StoragePoint;
@@ -1028,6 +1029,12 @@ public class MainApp extends Application implements HasAndroidInjector, NetworkC
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThumbnailsMemoryCache.trimMemory(level);
+    }
+
     @Override
     public void onTerminate() {
         super.onTerminate();
@@ -0,0 +1,157 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel;
+
+import com.nextcloud.client.database.dao.ArbitraryDataDao;
+import com.nextcloud.client.database.entity.ArbitraryDataEntity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Write-through cache of the arbitrary data table, per account.
+ * <p>
+ * {@link ArbitraryDataProviderImpl} is created for single calls all over the app, so there is one cache per DAO, i.e.
+ * per database. Cached values are read without locking. Loading a missing value and writing a value hold the lock of
+ * the account, so a value loaded from the database can never replace one written meanwhile. Missing and empty values
+ * are both kept as empty string, as the provider returns them.
+ */
+final class ArbitraryDataCache {
+    private static final int MAX_ENTRIES_PER_ACCOUNT = 1000;
+
+    private static final Map<ArbitraryDataDao, ArbitraryDataCache> caches =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ArbitraryDataDao dao;
+    private final Map<String, Map<String, String>> accounts = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    private ArbitraryDataCache(ArbitraryDataDao dao) {
+        this.dao = dao;
+    }
+
+    static ArbitraryDataCache forDao(@NonNull ArbitraryDataDao dao) {
+        synchronized (caches) {
+            ArbitraryDataCache cache = caches.get(dao);
+            if (cache == null) {
+                cache = new ArbitraryDataCache(dao);
+                caches.put(dao, cache);
+            }
+            return cache;
+        }
+    }
+
+    @NonNull
+    String get(@NonNull String accountName, @NonNull String key) {
+        Map<String, String> values = getValues(accountName);
+        String value = values.get(key);
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+
+        synchronized (values) {
+            value = values.get(key);
+            if (value == null) {
+                misses.incrementAndGet();
+                ArbitraryDataEntity entity = dao.getByAccountAndKey(accountName, key);
+                value = entity == null || entity.getValue() == null ? "" : entity.getValue();
+                put(values, key, value);
+            } else {
+                hits.incrementAndGet();
+            }
+            return value;
+        }
+    }
+
+    void store(@NonNull String accountName, @NonNull String key, @Nullable String value) {
+        Map<String, String> values = getValues(accountName);
+        synchronized (values) {
+            dao.upsertValue(accountName, key, value);
+            put(values, key, value == null ? "" : value);
+            writes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stores all values in one transaction.
+     */
+    void storeAll(@NonNull String accountName, @NonNull Map<String, String> newValues) {
+        Map<String, String> values = getValues(accountName);
+        synchronized (values) {
+            dao.upsertValues(accountName, newValues);
+            for (Map.Entry<String, String> entry : newValues.entrySet()) {
+                put(values, entry.getKey(), entry.getValue() == null ? "" : entry.getValue());
+            }
+            writes.addAndGet(newValues.size());
+        }
+    }
+
+    void delete(@NonNull String accountName, @NonNull String key) {
+        Map<String, String> values = getValues(accountName);
+        synchronized (values) {
+            dao.deleteValue(accountName, key);
+            put(values, key, "");
+            writes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Runs a read-modify-write of values of the account without other writes in between.
+     */
+    void runLocked(@NonNull String accountName, @NonNull Runnable task) {
+        Map<String, String> values = getValues(accountName);
+        synchronized (values) {
+            task.run();
+        }
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    long getWriteCount() {
+        return writes.get();
+    }
+
+    /**
+     * @return share of reads served from memory, 0 before the first read
+     */
+    double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private Map<String, String> getValues(String accountName) {
+        return accounts.computeIfAbsent(accountName, name -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Called with the lock of the account held. Values written for single folders and files accumulate over time, so
+     * the values of an account are dropped as a whole once there are too many, they are loaded again as needed.
+     */
+    private static void put(Map<String, String> values, String key, String value) {
+        if (values.size() >= MAX_ENTRIES_PER_ACCOUNT && !values.containsKey(key)) {
+            values.clear();
+        }
+        values.put(key, value);
+    }
+}
@@ -20,6 +20,11 @@ interface ArbitraryDataProvider {
     fun storeOrUpdateKeyValue(accountName: String, key: String, newValue: String)
     fun storeOrUpdateKeyValue(user: User, key: String, newValue: String)
 
+    /**
+     * Stores or updates all values of the account in one transaction.
+     */
+    fun storeOrUpdateKeyValues(accountName: String, values: Map<String, String>)
+
     fun getLongValue(accountName: String, key: String): Long
     fun getLongValue(user: User, key: String): Long
     fun getBooleanValue(accountName: String, key: String): Boolean
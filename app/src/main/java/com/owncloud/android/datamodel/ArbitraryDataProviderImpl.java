@@ -14,7 +14,8 @@ import android.content.Context;
 import com.nextcloud.client.account.User;
 import com.nextcloud.client.database.NextcloudDatabase;
 import com.nextcloud.client.database.dao.ArbitraryDataDao;
-import com.nextcloud.client.database.entity.ArbitraryDataEntity;
+
+import java.util.Map;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -22,13 +23,15 @@ import androidx.annotation.Nullable;
 /**
  * Database provider for handling the persistence aspects of arbitrary data table.
  * <p>
+ * Values are read and written through an {@link ArbitraryDataCache} shared by all instances using the same DAO.
+ * <p>
  * Don't instantiate this class, inject the interface instead.
  */
 public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
 
     private static final String TRUE = "true";
 
-    private final ArbitraryDataDao arbitraryDataDao;
+    private final ArbitraryDataCache cache;
 
     /**
      * @deprecated inject interface instead
@@ -39,12 +42,12 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
     }
 
     public ArbitraryDataProviderImpl(@NonNull final ArbitraryDataDao dao) {
-        this.arbitraryDataDao = dao;
+        this.cache = ArbitraryDataCache.forDao(dao);
     }
 
     @Override
     public void deleteKeyForAccount(@NonNull String account, @NonNull String key) {
-        arbitraryDataDao.deleteValue(account, key);
+        cache.delete(account, key);
     }
 
     @Override
@@ -54,13 +57,15 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
 
     @Override
     public void incrementValue(@NonNull String accountName, @NonNull String key) {
-        int oldValue = getIntegerValue(accountName, key);
-
-        int value = 1;
-        if (oldValue > 0) {
-            value = oldValue + 1;
-        }
-        storeOrUpdateKeyValue(accountName, key, value);
+        cache.runLocked(accountName, () -> {
+            int oldValue = getIntegerValue(accountName, key);
+
+            int value = 1;
+            if (oldValue > 0) {
+                value = oldValue + 1;
+            }
+            storeOrUpdateKeyValue(accountName, key, value);
+        });
     }
 
     @Override
@@ -72,12 +77,12 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
     public void storeOrUpdateKeyValue(@NonNull String accountName,
                                       @NonNull String key,
                                       @Nullable String newValue) {
-        final ArbitraryDataEntity currentValue = arbitraryDataDao.getByAccountAndKey(accountName, key);
-        if (currentValue != null) {
-            arbitraryDataDao.updateValue(accountName, key, newValue);
-        } else {
-            arbitraryDataDao.insertValue(accountName, key, newValue);
-        }
+        cache.store(accountName, key, newValue);
+    }
+
+    @Override
+    public void storeOrUpdateKeyValues(@NonNull String accountName, @NonNull Map<String, String> values) {
+        cache.storeAll(accountName, values);
     }
 
     @Override
@@ -146,10 +151,25 @@ public class ArbitraryDataProviderImpl implements ArbitraryDataProvider {
     @Override
     @NonNull
     public String getValue(@NonNull String accountName, @NonNull String key) {
-        final ArbitraryDataEntity entity = arbitraryDataDao.getByAccountAndKey(accountName, key);
-        if (entity == null || entity.getValue() == null) {
-            return "";
-        }
-        return entity.getValue();
+        return cache.get(accountName, key);
+    }
+
+    public long getCacheHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getCacheMissCount() {
+        return cache.getMissCount();
+    }
+
+    public long getCacheWriteCount() {
+        return cache.getWriteCount();
+    }
+
+    /**
+     * @return share of reads of all instances using the same DAO that were served from memory
+     */
+    public double getCacheHitRate() {
+        return cache.getHitRate();
     }
 }
@@ -0,0 +1,198 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.lib.resources.files.model.GeoLocation;
+import com.owncloud.android.lib.resources.files.model.ImageDimension;
+import com.owncloud.android.lib.resources.shares.ShareeUser;
+import com.owncloud.android.lib.resources.tags.Tag;
+import com.owncloud.android.utils.FileStorageUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Values of a file database row that are expensive to materialize: the JSON columns and the local folder that may
+ * belong to a folder without storage path.
+ * <p>
+ * Listing a folder creates an {@link OCFile} for every child, most of which are filtered out or never shown in detail,
+ * so these values are only decoded, respectively probed, when the corresponding getter of the file is called. Each
+ * value is resolved at most once and then dropped from here.
+ * <p>
+ * A value has to be checked, taken and stored in the file while holding the lock of this object, so that threads
+ * sharing the file resolve it once and see the stored result. Clearing a value takes the lock on its own.
+ */
+final class DeferredFileColumns {
+    private static final String TAG = DeferredFileColumns.class.getSimpleName();
+    private static final String JSON_NULL_STRING = "null";
+    private static final String JSON_EMPTY_ARRAY = "[]";
+
+    private static final Gson gson = new Gson();
+
+    @Nullable private String sharees;
+    @Nullable private String tags;
+    @Nullable private String metadataSize;
+    @Nullable private String metadataGPS;
+    @Nullable private String storageAccountName;
+
+    private DeferredFileColumns() {
+        // created by create() only
+    }
+
+    /**
+     * @param storageAccountName account whose local folder is looked for if the row is a folder without storage
+     *                           path, null otherwise
+     * @return the deferred values, or null if all of them are trivial and nothing needs to be resolved later
+     */
+    @Nullable
+    static DeferredFileColumns create(@Nullable String sharees,
+                                      @Nullable String tags,
+                                      @Nullable String metadataSize,
+                                      @Nullable String metadataGPS,
+                                      @Nullable String storageAccountName) {
+        boolean hasSharees = !isTrivialArray(sharees);
+        boolean hasTags = !isTrivialArray(tags);
+        boolean hasMetadataSize = !isTrivialObject(metadataSize);
+        boolean hasMetadataGPS = !isTrivialObject(metadataGPS);
+
+        if (!hasSharees && !hasTags && !hasMetadataSize && !hasMetadataGPS && storageAccountName == null) {
+            return null;
+        }
+
+        DeferredFileColumns columns = new DeferredFileColumns();
+        columns.sharees = hasSharees ? sharees : null;
+        columns.tags = hasTags ? tags : null;
+        columns.metadataSize = hasMetadataSize ? metadataSize : null;
+        columns.metadataGPS = hasMetadataGPS ? metadataGPS : null;
+        columns.storageAccountName = storageAccountName;
+        return columns;
+    }
+
+    boolean hasSharees() {
+        return sharees != null;
+    }
+
+    List<ShareeUser> takeSharees() {
+        String json = sharees;
+        sharees = null;
+        return decodeArray(json, ShareeUser[].class);
+    }
+
+    synchronized void clearSharees() {
+        sharees = null;
+    }
+
+    boolean hasTags() {
+        return tags != null;
+    }
+
+    List<Tag> takeTags() {
+        String json = tags;
+        tags = null;
+        return decodeArray(json, Tag[].class);
+    }
+
+    synchronized void clearTags() {
+        tags = null;
+    }
+
+    boolean hasImageDimension() {
+        return metadataSize != null;
+    }
+
+    @Nullable
+    ImageDimension takeImageDimension() {
+        String json = metadataSize;
+        metadataSize = null;
+        return decodeObject(json, ImageDimension.class);
+    }
+
+    synchronized void clearImageDimension() {
+        metadataSize = null;
+    }
+
+    boolean hasGeoLocation() {
+        return metadataGPS != null;
+    }
+
+    @Nullable
+    GeoLocation takeGeoLocation() {
+        String json = metadataGPS;
+        metadataGPS = null;
+        return decodeObject(json, GeoLocation.class);
+    }
+
+    synchronized void clearGeoLocation() {
+        metadataGPS = null;
+    }
+
+    boolean hasDefaultStoragePath() {
+        return storageAccountName != null;
+    }
+
+    /**
+     * @return default local folder of the given folder if it exists, null otherwise
+     */
+    @Nullable
+    File takeDefaultStorageFolder(OCFile folder) {
+        String accountName = storageAccountName;
+        storageAccountName = null;
+        if (accountName == null) {
+            return null;
+        }
+
+        File localFolder = new File(FileStorageUtils.getDefaultSavePathFor(accountName, folder));
+        return localFolder.exists() ? localFolder : null;
+    }
+
+    synchronized void clearDefaultStoragePath() {
+        storageAccountName = null;
+    }
+
+    private static boolean isTrivialArray(@Nullable String json) {
+        return json == null || json.isEmpty() || JSON_NULL_STRING.equals(json) || JSON_EMPTY_ARRAY.equals(json);
+    }
+
+    private static boolean isTrivialObject(@Nullable String json) {
+        return json == null || json.isEmpty() || JSON_NULL_STRING.equalsIgnoreCase(json);
+    }
+
+    private static <T> List<T> decodeArray(@Nullable String json, Class<T[]> type) {
+        if (json == null) {
+            return new ArrayList<>();
+        }
+
+        try {
+            T[] values = gson.fromJson(json, type);
+            return values == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(values));
+        } catch (JsonSyntaxException e) {
+            // ignore saved value due to api change
+            return new ArrayList<>();
+        }
+    }
+
+    @Nullable
+    private static <T> T decodeObject(@Nullable String json, Class<T> type) {
+        if (json == null) {
+            return null;
+        }
+
+        try {
+            return gson.fromJson(json, type);
+        } catch (JsonSyntaxException e) {
+            Log_OC.w(TAG, "Ignoring invalid " + type.getSimpleName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
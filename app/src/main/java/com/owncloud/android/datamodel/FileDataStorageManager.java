@@ -16,7 +16,6 @@ package com.owncloud.android.datamodel;
 import android.annotation.SuppressLint;
 import android.content.ContentProviderClient;
 import android.content.ContentProviderOperation;
-import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
@@ -31,7 +30,6 @@ import android.provider.MediaStore;
 import android.text.TextUtils;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
 import com.nextcloud.android.lib.resources.files.FileDownloadLimit;
 import com.nextcloud.client.account.User;
 import com.nextcloud.client.database.NextcloudDatabase;
@@ -54,17 +52,13 @@ import com.owncloud.android.lib.common.network.WebdavEntry;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.files.ReadFileRemoteOperation;
 import com.owncloud.android.lib.resources.files.model.FileLockType;
-import com.owncloud.android.lib.resources.files.model.GeoLocation;
-import com.owncloud.android.lib.resources.files.model.ImageDimension;
 import com.owncloud.android.lib.resources.files.model.RemoteFile;
 import com.owncloud.android.lib.resources.files.model.ServerFileInterface;
 import com.owncloud.android.lib.resources.shares.OCShare;
 import com.owncloud.android.lib.resources.shares.ShareType;
-import com.owncloud.android.lib.resources.shares.ShareeUser;
 import com.owncloud.android.lib.resources.status.CapabilityBooleanType;
 import com.owncloud.android.lib.resources.status.E2EVersion;
 import com.owncloud.android.lib.resources.status.OCCapability;
-import com.owncloud.android.lib.resources.tags.Tag;
 import com.owncloud.android.operations.RemoteOperationFailedException;
 import com.owncloud.android.utils.FileStorageUtils;
 import com.owncloud.android.utils.MimeType;
@@ -83,6 +77,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import androidx.annotation.NonNull;
@@ -100,8 +95,6 @@ public class FileDataStorageManager {
     private static final String EXCEPTION_MSG = "Exception in batch of operations ";
 
     public static final int ROOT_PARENT_ID = 0;
-    private static final String JSON_NULL_STRING = "null";
-    private static final String JSON_EMPTY_ARRAY = "[]";
 
     private final ContentResolver contentResolver;
     private final ContentProviderClient contentProviderClient;
@@ -546,6 +539,7 @@ public class FileDataStorageManager {
             }
         }
 
+        FileNameIndex.onFolderChanged(user.getAccountName(), ocFile.getParentId());
         return overridden;
     }
 
@@ -662,6 +656,10 @@ public class FileDataStorageManager {
     /**
      * Inserts or updates the list of files contained in a given folder.
      * <p>
+     * Existing children are resolved with a single query keyed by remote path, so the decision between insert and
+     * update does not cost a database round trip per child. All writes are applied in one batch, and the ids of
+     * newly inserted rows are assigned back to the given {@link OCFile} instances.
+     * <p>
      * CALLER IS RESPONSIBLE FOR GRANTING RIGHT UPDATE OF INFORMATION, NOT THIS METHOD. HERE ONLY DATA CONSISTENCY
      * SHOULD BE GRANTED
      *
@@ -670,23 +668,45 @@ public class FileDataStorageManager {
      * @param filesToRemove
      */
     public void saveFolder(OCFile folder, List<OCFile> updatedFiles, Collection<OCFile> filesToRemove) {
+        saveFolder(folder, updatedFiles, filesToRemove, true);
+    }
+
+    /**
+     * Inserts or updates a subset of the children of a given folder, without touching the folder itself.
+     * <p>
+     * Meant for synchronizing huge folders window by window: each call is applied in its own transaction and only
+     * looks up the rows of the given files. The folder metadata (e.g. its eTag) has to be saved with
+     * {@link #saveFolder(OCFile, List, Collection)} once all windows are stored, so that an interrupted synchronization
+     * is repeated.
+     *
+     * @param folder       parent folder of the given files
+     * @param updatedFiles children to insert or update
+     */
+    public void saveFolderContent(OCFile folder, List<OCFile> updatedFiles) {
+        saveFolder(folder, updatedFiles, Collections.emptyList(), false);
+    }
+
+    private void saveFolder(OCFile folder,
+                            List<OCFile> updatedFiles,
+                            Collection<OCFile> filesToRemove,
+                            boolean updateFolderMetadata) {
         Log_OC.d(TAG, "Saving folder " + folder.getRemotePath() + " with " + updatedFiles.size()
             + " children and " + filesToRemove.size() + " files to remove");
 
         ArrayList<ContentProviderOperation> operations = new ArrayList<>(updatedFiles.size());
 
+        final Map<String, Long> existingIdsByPath =
+            getFolderContentIdsByPath(folder, updatedFiles, updateFolderMetadata);
+        final Set<Long> existingIds = new HashSet<>(existingIdsByPath.values());
+        final List<OCFile> insertedFiles = new ArrayList<>();
+
         // prepare operations to insert or update files to save in the given folder
         for (OCFile ocFile : updatedFiles) {
             ContentValues contentValues = createContentValuesForFile(ocFile);
             contentValues.put(ProviderTableMeta.FILE_PARENT, folder.getFileId());
 
-            if (fileExists(ocFile.getFileId()) || fileExists(ocFile.getRemotePath())) {
-                long fileId;
-                if (ocFile.getFileId() != -1) {
-                    fileId = ocFile.getFileId();
-                } else {
-                    fileId = getFileByPath(ocFile.getRemotePath()).getFileId();
-                }
+            long fileId = resolveExistingFileId(ocFile, existingIds, existingIdsByPath);
+            if (fileId != -1) {
                 // updating an existing file
                 operations.add(ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI)
                                    .withValues(contentValues)
@@ -697,6 +717,7 @@ public class FileDataStorageManager {
                 operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI)
                                    .withValues(contentValues)
                                    .build());
+                insertedFiles.add(ocFile);
             }
         }
 
@@ -732,50 +753,112 @@ public class FileDataStorageManager {
         }
 
         // update metadata of folder
-        ContentValues contentValues = createContentValuesForFolder(folder);
+        if (updateFolderMetadata) {
+            ContentValues contentValues = createContentValuesForFolder(folder);
 
-        operations.add(ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI)
-                           .withValues(contentValues)
-                           .withSelection(ProviderTableMeta._ID + " = ?", new String[]{String.valueOf(folder.getFileId())})
-                           .build());
+            operations.add(ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI)
+                               .withValues(contentValues)
+                               .withSelection(ProviderTableMeta._ID + " = ?",
+                                              new String[]{String.valueOf(folder.getFileId())})
+                               .build());
+        }
+
+        if (operations.isEmpty()) {
+            return;
+        }
 
         // apply operations in batch
-        ContentProviderResult[] results = null;
         Log_OC.d(TAG, String.format(Locale.ENGLISH, SENDING_TO_FILECONTENTPROVIDER_MSG, operations.size()));
 
         try {
             if (getContentResolver() != null) {
-                results = getContentResolver().applyBatch(MainApp.getAuthority(), operations);
-
+                getContentResolver().applyBatch(MainApp.getAuthority(), operations);
             } else {
-                results = getContentProviderClient().applyBatch(operations);
+                getContentProviderClient().applyBatch(operations);
             }
-
         } catch (OperationApplicationException | RemoteException e) {
             Log_OC.e(TAG, EXCEPTION_MSG + e.getMessage(), e);
+            return;
         }
 
+        FileNameIndex.onFolderChanged(user.getAccountName(), folder.getFileId());
+
         // update new id in file objects for insertions
-        if (results != null) {
-            long newId;
-            Iterator<OCFile> fileIterator = updatedFiles.iterator();
-            OCFile ocFile;
-            for (ContentProviderResult result : results) {
-                if (fileIterator.hasNext()) {
-                    ocFile = fileIterator.next();
-                } else {
-                    ocFile = null;
-                }
-                if (result.uri != null) {
-                    newId = Long.parseLong(result.uri.getPathSegments().get(1));
-                    if (ocFile != null) {
-                        ocFile.setFileId(newId);
-                    }
+        if (!insertedFiles.isEmpty()) {
+            final Map<String, Long> savedIdsByPath =
+                getFolderContentIdsByPath(folder, insertedFiles, updateFolderMetadata);
+            for (OCFile ocFile : insertedFiles) {
+                Long newId = savedIdsByPath.get(ocFile.getRemotePath());
+                if (newId != null) {
+                    ocFile.setFileId(newId);
                 }
             }
         }
     }
 
+    /**
+     * Searches the files of the account by name, ignoring case, with the best matches first.
+     *
+     * @param query     text the names have to contain
+     * @param folder    only search the direct children of this folder, null to search all files
+     * @param filesOnly leave out folders
+     * @param offset    number of results to skip
+     * @param limit     maximum number of results to return
+     * @see FileNameIndex#search
+     */
+    public List<OCFile> searchFilesByName(String query, @Nullable OCFile folder, boolean filesOnly, int offset,
+                                          int limit) {
+        Long parentId = folder == null ? null : folder.getFileId();
+        List<FileEntity> entities = FileNameIndex.search(fileDao, user.getAccountName(), query, parentId, filesOnly,
+                                                         offset, limit);
+
+        List<OCFile> files = new ArrayList<>(entities.size());
+        for (FileEntity entity : entities) {
+            files.add(createFileInstance(entity));
+        }
+        return files;
+    }
+
+    /**
+     * Returns the row ids of children of a folder keyed by their remote path.
+     *
+     * @param files       children to look up
+     * @param wholeFolder look up all children with one query instead of only the given ones, which have to stay below
+     *                    the SQLite bound parameter limit then
+     */
+    private Map<String, Long> getFolderContentIdsByPath(OCFile folder, List<OCFile> files, boolean wholeFolder) {
+        if (folder.getFileId() == -1 || files.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        if (wholeFolder) {
+            return fileDao.getFolderContentIdsByPath(folder.getFileId(), user.getAccountName());
+        }
+
+        List<String> remotePaths = new ArrayList<>(files.size());
+        for (OCFile file : files) {
+            remotePaths.add(file.getRemotePath());
+        }
+        return fileDao.getFolderContentIdsByPaths(folder.getFileId(), user.getAccountName(), remotePaths);
+    }
+
+    /**
+     * Returns the id of the row that an updated child of a folder has to be written to, or -1 if it is new.
+     * <p>
+     * Children that are already known in the folder are resolved from the given in-memory index; only files whose
+     * id is unknown to the folder (e.g. moved in from elsewhere) fall back to a database lookup.
+     */
+    private long resolveExistingFileId(OCFile ocFile, Set<Long> existingIds, Map<String, Long> existingIdsByPath) {
+        final long fileId = ocFile.getFileId();
+        if (fileId != -1 && (existingIds.contains(fileId) || fileExists(fileId))) {
+            return fileId;
+        }
+
+        // rows with the same path outside of this folder are reconciled by the provider's upsert on insert
+        final Long idByPath = existingIdsByPath.get(ocFile.getRemotePath());
+        return idByPath != null ? idByPath : -1;
+    }
+
     /**
      * Returns a {@link ContentValues} filled with values that are common to both files and folders
      *
@@ -1082,6 +1165,7 @@ public class FileDataStorageManager {
             } catch (Exception e) {
                 Log_OC.e(TAG, "Fail to update " + ocFile.getFileId() + " and descendants in database", e);
             }
+            FileNameIndex.onFolderChanged(user.getAccountName(), targetParent.getFileId());
 
             /// 4. move in local file system
             String originalLocalPath = FileStorageUtils.getDefaultSavePathFor(user.getAccountName(), ocFile);
@@ -1192,6 +1276,48 @@ public class FileDataStorageManager {
         }
     }
 
+    /**
+     * Returns the children of a folder whose remote paths are among the given ones.
+     *
+     * @param folder      parent folder
+     * @param remotePaths (encrypted) remote paths to look up; should stay below the SQLite bound parameter limit
+     */
+    public List<OCFile> getFolderContentByPaths(OCFile folder, List<String> remotePaths) {
+        List<OCFile> folderContent = new ArrayList<>(remotePaths.size());
+        if (folder == null || remotePaths.isEmpty()) {
+            return folderContent;
+        }
+
+        List<FileEntity> files = fileDao.getFolderContentByPaths(folder.getFileId(), user.getAccountName(), remotePaths);
+        for (FileEntity fileEntity : files) {
+            folderContent.add(createFileInstance(fileEntity));
+        }
+
+        return folderContent;
+    }
+
+    /**
+     * Returns the children of a folder whose remote paths are NOT among the given ones, e.g. files removed on the
+     * server after a folder listing has been stored window by window.
+     *
+     * @param folder      parent folder
+     * @param remotePaths (encrypted) remote paths that still exist
+     */
+    public List<OCFile> getFolderContentNotIn(OCFile folder, Set<String> remotePaths) {
+        List<OCFile> missingFiles = new ArrayList<>();
+        if (folder == null || folder.getFileId() == -1) {
+            return missingFiles;
+        }
+
+        for (FileEntity fileEntity : fileDao.getFolderContent(folder.getFileId())) {
+            if (!remotePaths.contains(fileEntity.getPath())) {
+                missingFiles.add(createFileInstance(fileEntity));
+            }
+        }
+
+        return missingFiles;
+    }
+
     private List<OCFile> getFolderContent(long parentId, boolean onlyOnDevice) {
         Log_OC.d(TAG, "getFolderContent - start");
         List<OCFile> folderContent = new ArrayList<>();
@@ -1243,19 +1369,6 @@ public class FileDataStorageManager {
         ocFile.setParentId(nullToZero(fileEntity.getParent()));
         ocFile.setMimeType(fileEntity.getContentType());
         ocFile.setStoragePath(fileEntity.getStoragePath());
-        if (ocFile.getStoragePath() == null && ocFile.isFolder()) {
-            // Apparently storagePath is filled only for regular files - even in the current (Jan 2022) implementation.
-            // Check below is still required for directories.
-            //
-            // try to find existing file and bind it with current account;
-            // with the current update of SynchronizeFolderOperation, this won't be
-            // necessary anymore after a full synchronization of the account
-            File file = new File(FileStorageUtils.getDefaultSavePathFor(user.getAccountName(), ocFile));
-            if (file.exists()) {
-                ocFile.setStoragePath(file.getAbsolutePath());
-                ocFile.setLastSyncDateForData(file.lastModified());
-            }
-        }
         ocFile.setFileLength(nullToZero(fileEntity.getContentLength()));
         ocFile.setUploadTimestamp(nullToZero(fileEntity.getUploaded()));
         ocFile.setCreationTimestamp(nullToZero(fileEntity.getCreation()));
@@ -1303,55 +1416,22 @@ public class FileDataStorageManager {
         ocFile.setE2eCounter(fileEntity.getE2eCounter());
         ocFile.setInternalFolderSyncTimestamp(nullToMinusOne(fileEntity.getInternalTwoWaySync()));
 
-        String sharees = fileEntity.getSharees();
-        // Surprisingly JSON deserialization causes significant overhead.
-        // Avoid it in common, trivial cases (null/empty).
-        if (sharees == null || sharees.isEmpty() ||
-            JSON_NULL_STRING.equals(sharees) || JSON_EMPTY_ARRAY.equals(sharees)) {
-            ocFile.setSharees(new ArrayList<>());
-        } else {
-            try {
-                ShareeUser[] shareesArray = gson.fromJson(sharees, ShareeUser[].class);
-                ocFile.setSharees(new ArrayList<>(Arrays.asList(shareesArray)));
-            } catch (JsonSyntaxException e) {
-                // ignore saved value due to api change
-                ocFile.setSharees(new ArrayList<>());
-            }
-        }
-
-        String tags = fileEntity.getTags();
-        if (tags == null || tags.isEmpty() ||
-            JSON_NULL_STRING.equals(tags) || JSON_EMPTY_ARRAY.equals(tags)) {
-            ocFile.setTags(new ArrayList<>());
-        } else {
-            try {
-                Tag[] tagsArray = gson.fromJson(tags, Tag[].class);
-                ocFile.setTags(new ArrayList<>(Arrays.asList(tagsArray)));
-            } catch (JsonSyntaxException e) {
-                // ignore saved value due to api change
-                ocFile.setTags(new ArrayList<>());
-            }
-        }
-
-        String metadataSize = fileEntity.getMetadataSize();
-        // Surprisingly JSON deserialization causes significant overhead.
-        // Avoid it in common, trivial cases (null/empty).
-        if (metadataSize != null && !metadataSize.isEmpty() && !JSON_NULL_STRING.equalsIgnoreCase(metadataSize)) {
-            ImageDimension imageDimension = gson.fromJson(metadataSize, ImageDimension.class);
-            if (imageDimension != null) {
-                ocFile.setImageDimension(imageDimension);
-            }
-        }
-
-        String metadataGPS = fileEntity.getMetadataGPS();
-        // Surprisingly JSON deserialization causes significant overhead.
-        // Avoid it in common, trivial cases (null/empty).
-        if (!(metadataGPS == null || metadataGPS.isEmpty() || JSON_NULL_STRING.equals(metadataGPS))) {
-            GeoLocation geoLocation = gson.fromJson(metadataGPS, GeoLocation.class);
-            if (geoLocation != null) {
-                ocFile.setGeoLocation(geoLocation);
-            }
-        }
+        // Apparently storagePath is filled only for regular files - even in the current (Jan 2022) implementation.
+        // For directories the default local folder is still looked for, bound to the current account; with the
+        // current update of SynchronizeFolderOperation, this won't be necessary anymore after a full synchronization
+        // of the account.
+        //
+        // Surprisingly JSON deserialization causes significant overhead, and listing a folder creates a file for every
+        // child. Both are only resolved if the corresponding getters are used, trivial cases (null/empty) not at all.
+        String storageAccountName = ocFile.getStoragePath() == null && ocFile.isFolder() ? user.getAccountName() : null;
+        DeferredFileColumns deferredColumns = DeferredFileColumns.create(fileEntity.getSharees(),
+                                                                         fileEntity.getTags(),
+                                                                         fileEntity.getMetadataSize(),
+                                                                         fileEntity.getMetadataGPS(),
+                                                                         storageAccountName);
+        ocFile.setSharees(new ArrayList<>());
+        ocFile.setTags(new ArrayList<>());
+        ocFile.setDeferredColumns(deferredColumns);
 
         return ocFile;
     }
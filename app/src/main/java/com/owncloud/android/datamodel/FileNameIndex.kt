@@ -0,0 +1,319 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel
+
+import androidx.annotation.VisibleForTesting
+import com.nextcloud.client.database.dao.FileDao
+import com.nextcloud.client.database.dao.FileNameRow
+import com.nextcloud.client.database.entity.FileEntity
+import com.owncloud.android.utils.MimeType
+import java.util.Locale
+
+/**
+ * Trigram index over the lowercase names of the files of an account, so searching by name does not have to scan and
+ * compare every row of the filelist table.
+ *
+ * Each name is split into its overlapping three character sequences and the index keeps, for each sequence, the
+ * positions of the names containing it. A query of three or more characters is then only compared with the names that
+ * contain all of its sequences; shorter queries are compared with every name, which is still done in memory.
+ *
+ * The index is an immutable snapshot. Use [search], which keeps one per account up to date.
+ */
+class FileNameIndex internal constructor(private val entries: List<Entry>, val createdAt: Long) {
+
+    /**
+     * A file as known to the index, with its name in lowercase.
+     */
+    internal class Entry(val id: Long, val parent: Long, val name: String, val isFolder: Boolean) {
+        constructor(row: FileNameRow) : this(
+            row.id,
+            row.parent ?: -1,
+            normalize(row.name ?: ""),
+            MimeType.DIRECTORY.equals(row.contentType, ignoreCase = true)
+        )
+    }
+
+    private val postings = HashMap<Long, IntArray>()
+
+    init {
+        // count first, so each posting list is allocated once with its final size
+        val counts = HashMap<Long, IntArray>()
+        entries.forEachIndexed { position, entry ->
+            forEachTrigram(entry.name) { key ->
+                // [count, last position], a name containing a sequence twice is listed once
+                val count = counts.getOrPut(key) { intArrayOf(0, -1) }
+                if (count[1] != position) {
+                    count[0]++
+                    count[1] = position
+                }
+            }
+        }
+
+        counts.forEach { (key, count) -> postings[key] = IntArray(count[0]) }
+        counts.values.forEach {
+            it[0] = 0
+            it[1] = -1
+        }
+
+        entries.forEachIndexed { position, entry ->
+            forEachTrigram(entry.name) { key ->
+                val count = counts.getValue(key)
+                if (count[1] != position) {
+                    postings.getValue(key)[count[0]++] = position
+                    count[1] = position
+                }
+            }
+        }
+    }
+
+    val size: Int
+        get() = entries.size
+
+    /**
+     * @param query lowercase query
+     * @return entries whose name contains the query, in index order
+     */
+    internal fun find(query: String): List<Entry> {
+        if (query.length < TRIGRAM_LENGTH) {
+            return entries.filter { it.name.contains(query) }
+        }
+
+        val lists = ArrayList<IntArray>()
+        forEachTrigram(query) { key -> lists.add(postings[key] ?: EMPTY) }
+        lists.sortBy { it.size }
+
+        val result = ArrayList<Entry>()
+        for (position in lists[0]) {
+            if (lists.all { it.binarySearch(position) >= 0 }) {
+                val entry = entries[position]
+                // all sequences being present does not mean they are in the same order
+                if (entry.name.contains(query)) {
+                    result.add(entry)
+                }
+            }
+        }
+        return result
+    }
+
+    /**
+     * Index of an account with the folders changed since it was created.
+     */
+    private class AccountIndex {
+        // guarded by the instance
+        var index: FileNameIndex? = null
+        var overlay: Map<Long, List<Entry>> = emptyMap()
+        var overlayIds: Set<Long> = emptySet()
+
+        // guarded by the companion lock, written by storage writes that must not wait for a search
+        val changedFolders = HashSet<Long>()
+        var invalidated = false
+
+        /**
+         * Entries of the snapshot, except for those in changed folders, whose current children were read again.
+         */
+        fun find(query: String): List<Entry> {
+            val result = ArrayList<Entry>()
+            index?.find(query)?.filterTo(result) { it.parent !in overlay && it.id !in overlayIds }
+            overlay.values.forEach { children -> children.filterTo(result) { it.name.contains(query) } }
+            return result
+        }
+
+        fun refresh(fileDao: FileDao, accountName: String, now: Long) {
+            val changed: List<Long>
+            val wasInvalidated: Boolean
+            synchronized(lock) {
+                changed = changedFolders.toList()
+                wasInvalidated = invalidated
+                changedFolders.clear()
+                invalidated = false
+            }
+
+            try {
+                val current = index
+                if (current == null ||
+                    wasInvalidated ||
+                    now - current.createdAt > MAX_AGE_MILLIS ||
+                    changed.size > MAX_CHANGED_FOLDERS
+                ) {
+                    rebuild(fileDao, accountName, now)
+                } else if (changed.isNotEmpty()) {
+                    readChangedFolders(fileDao, accountName, changed, now)
+                }
+            } catch (e: RuntimeException) {
+                synchronized(lock) { invalidated = true }
+                throw e
+            }
+        }
+
+        private fun rebuild(fileDao: FileDao, accountName: String, now: Long) {
+            index = FileNameIndex(fileDao.getFileNames(accountName).map { Entry(it) }, now)
+            overlay = emptyMap()
+            overlayIds = emptySet()
+        }
+
+        private fun readChangedFolders(fileDao: FileDao, accountName: String, changed: List<Long>, now: Long) {
+            val newOverlay = HashMap(overlay)
+            changed.chunked(MAX_QUERY_IDS).forEach { folderIds ->
+                val children = fileDao.getFileNamesInFolders(folderIds, accountName).map { Entry(it) }
+                val childrenByFolder = children.groupBy { it.parent }
+                folderIds.forEach { newOverlay[it] = childrenByFolder[it].orEmpty() }
+            }
+
+            if (newOverlay.values.sumOf { it.size } > MAX_OVERLAY_ENTRIES) {
+                rebuild(fileDao, accountName, now)
+            } else {
+                overlay = newOverlay
+                overlayIds = newOverlay.values.flatMapTo(HashSet()) { children -> children.map { it.id } }
+            }
+        }
+    }
+
+    companion object {
+        private const val TRIGRAM_LENGTH = 3
+        private const val MAX_AGE_MILLIS = 10 * 60 * 1000L
+        private const val MAX_CHANGED_FOLDERS = 500
+        private const val MAX_OVERLAY_ENTRIES = 20_000
+        private const val MAX_QUERY_IDS = 500
+
+        private const val RANK_EXACT = 0
+        private const val RANK_PREFIX = 1
+        private const val RANK_WORD = 2
+        private const val RANK_SUBSTRING = 3
+
+        private val EMPTY = IntArray(0)
+        private val lock = Any()
+        private val accountIndexes = HashMap<String, AccountIndex>()
+
+        @JvmStatic
+        fun normalize(name: String): String = name.lowercase(Locale.ROOT)
+
+        private inline fun forEachTrigram(name: String, action: (Long) -> Unit) {
+            for (i in 0..name.length - TRIGRAM_LENGTH) {
+                action(name[i].code.toLong() shl 32 or (name[i + 1].code.toLong() shl 16) or name[i + 2].code.toLong())
+            }
+        }
+
+        /**
+         * Lower ranks first: the whole name, then names starting with the query, then names with a word starting
+         * with it, then any other.
+         */
+        @VisibleForTesting
+        fun rank(name: String, query: String): Int {
+            if (name == query) {
+                return RANK_EXACT
+            }
+            if (name.startsWith(query)) {
+                return RANK_PREFIX
+            }
+
+            var index = name.indexOf(query, 1)
+            while (index > 0) {
+                if (!name[index - 1].isLetterOrDigit()) {
+                    return RANK_WORD
+                }
+                index = name.indexOf(query, index + 1)
+            }
+            return RANK_SUBSTRING
+        }
+
+        /**
+         * Has the children of the folder read again on the next search, to be called after they were written.
+         */
+        @JvmStatic
+        fun onFolderChanged(accountName: String, folderId: Long) {
+            synchronized(lock) {
+                // nothing to do if there is no index yet, it reads everything when it is created
+                accountIndexes[accountName]?.changedFolders?.add(folderId)
+            }
+        }
+
+        /**
+         * Has the index of the account created again on the next search.
+         */
+        @JvmStatic
+        fun invalidate(accountName: String) {
+            synchronized(lock) {
+                accountIndexes[accountName]?.invalidated = true
+            }
+        }
+
+        /**
+         * Searches the files of an account by name, ignoring case.
+         *
+         * Results are ranked by [rank], then shorter names first. Found entries are read from the database before
+         * being returned, so files removed or renamed since the index was updated are left out.
+         *
+         * @param query    text the names have to contain
+         * @param parentId only search the direct children of this folder, null to search all files
+         * @param filesOnly leave out folders
+         * @param offset   number of results to skip
+         * @param limit    maximum number of results to return
+         */
+        @JvmStatic
+        @Suppress("LongParameterList")
+        fun search(
+            fileDao: FileDao,
+            accountName: String,
+            query: String,
+            parentId: Long?,
+            filesOnly: Boolean,
+            offset: Int,
+            limit: Int
+        ): List<FileEntity> {
+            val normalizedQuery = normalize(query)
+            val accountIndex = synchronized(lock) { accountIndexes.getOrPut(accountName) { AccountIndex() } }
+
+            val matches = synchronized(accountIndex) {
+                accountIndex.refresh(fileDao, accountName, System.currentTimeMillis())
+                accountIndex.find(normalizedQuery)
+            }
+
+            val ranked = matches
+                .filter { (parentId == null || it.parent == parentId) && !(filesOnly && it.isFolder) }
+                .map { rank(it.name, normalizedQuery) to it }
+                .sortedWith(compareBy({ it.first }, { it.second.name.length }, { it.second.name }))
+                .map { it.second }
+
+            return read(fileDao, accountName, ranked, offset, limit) { entity ->
+                normalize(entity.name ?: "").contains(normalizedQuery) &&
+                    (parentId == null || entity.parent == parentId) &&
+                    !(filesOnly && MimeType.DIRECTORY.equals(entity.contentType, ignoreCase = true))
+            }
+        }
+
+        private fun read(
+            fileDao: FileDao,
+            accountName: String,
+            ranked: List<Entry>,
+            offset: Int,
+            limit: Int,
+            stillMatches: (FileEntity) -> Boolean
+        ): List<FileEntity> {
+            val result = ArrayList<FileEntity>()
+            var skipped = 0
+            for (entries in ranked.chunked(MAX_QUERY_IDS)) {
+                val entities = fileDao.getFilesByIds(entries.map { it.id }, accountName).associateBy { it.id }
+                for (entry in entries) {
+                    val entity = entities[entry.id]
+                    if (entity == null || !stillMatches(entity)) {
+                        continue
+                    }
+
+                    if (skipped < offset) {
+                        skipped++
+                    } else {
+                        result.add(entity)
+                        if (result.size >= limit) {
+                            return result
+                        }
+                    }
+                }
+            }
+            return result
+        }
+    }
+}
@@ -126,6 +126,8 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     @Nullable
     private GeoLocation geolocation;
     private List<Tag> tags = new ArrayList<>();
+    @Nullable
+    private volatile DeferredFileColumns deferredColumns;
     private Long internalFolderSyncTimestamp = -1L;
     private String internalFolderSyncResult = "";
 
@@ -225,7 +227,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
         dest.writeLong(modificationTimestampAtLastSyncForData);
         dest.writeString(remotePath);
         dest.writeString(decryptedRemotePath);
-        dest.writeString(localPath);
+        dest.writeString(getStoragePath());
         dest.writeString(mimeType);
         dest.writeInt(needsUpdatingWhileSaving ? 1 : 0);
         dest.writeLong(lastSyncDateForProperties);
@@ -365,6 +367,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
      * @return true if it is
      */
     public boolean existsOnDevice() {
+        String localPath = getStoragePath();
         if (!TextUtils.isEmpty(localPath)) {
             return new File(localPath).exists();
         }
@@ -377,15 +380,37 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
      * @return The local path to the file
      */
     public String getStoragePath() {
+        resolveDefaultStoragePath();
         return localPath;
     }
 
+    /**
+     * Binds a folder without storage path to its default local folder, if that exists, once it is needed.
+     */
+    private void resolveDefaultStoragePath() {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns == null) {
+            return;
+        }
+
+        synchronized (columns) {
+            if (columns.hasDefaultStoragePath()) {
+                File localFolder = columns.takeDefaultStorageFolder(this);
+                if (localFolder != null) {
+                    setStoragePath(localFolder.getAbsolutePath());
+                    lastSyncDateForData = localFolder.lastModified();
+                }
+            }
+        }
+    }
+
     /**
      * The URI to the file contents, if stored locally
      *
      * @return A URI to the local copy of the file, or NULL if not stored in the device
      */
     public Uri getStorageUri() {
+        String localPath = getStoragePath();
         if (TextUtils.isEmpty(localPath)) {
             return null;
         }
@@ -399,6 +424,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public Uri getExposedFileUri(Context context) {
+        String localPath = getStoragePath();
         if (TextUtils.isEmpty(localPath)) {
             return null;
         }
@@ -423,6 +449,11 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
      * @param storage_path to set
      */
     public void setStoragePath(String storage_path) {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            columns.clearDefaultStoragePath();
+        }
+
         if (storage_path == null) {
             localPath = null;
         } else {
@@ -530,6 +561,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
         lockToken = null;
         livePhoto = null;
         imageDimension = null;
+        deferredColumns = null;
     }
 
     /**
@@ -592,7 +624,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
                              getFileName(),
                              mimeType,
                              isDown(),
-                             localPath,
+                             getStoragePath(),
                              remotePath,
                              parentId,
                              etag,
@@ -608,6 +640,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public long getLocalModificationTimestamp() {
+        String localPath = getStoragePath();
         if (!TextUtils.isEmpty(localPath)) {
             File f = new File(localPath);
             return f.lastModified();
@@ -780,6 +813,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public long getLastSyncDateForData() {
+        resolveDefaultStoragePath();
         return this.lastSyncDateForData;
     }
 
@@ -804,7 +838,7 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public boolean isShared() {
-        return isSharedViaLink() || isSharedWithSharee() || isSharedWithMe() || !sharees.isEmpty();
+        return isSharedViaLink() || isSharedWithSharee() || isSharedWithMe() || !getSharees().isEmpty();
     }
 
     public String getPermissions() {
@@ -872,6 +906,14 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public List<ShareeUser> getSharees() {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            synchronized (columns) {
+                if (columns.hasSharees()) {
+                    this.sharees = columns.takeSharees();
+                }
+            }
+        }
         return this.sharees;
     }
 
@@ -920,6 +962,8 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public void setLastSyncDateForData(long lastSyncDateForData) {
+        // a pending lookup of the local folder must not overwrite the new value later on
+        resolveDefaultStoragePath();
         this.lastSyncDateForData = lastSyncDateForData;
     }
 
@@ -988,6 +1032,10 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public void setSharees(List<ShareeUser> sharees) {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            columns.clearSharees();
+        }
         this.sharees = sharees;
     }
 
@@ -1073,31 +1121,75 @@ public class OCFile implements Parcelable, Comparable<OCFile>, ServerFileInterfa
     }
 
     public void setImageDimension(@Nullable ImageDimension imageDimension) {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            columns.clearImageDimension();
+        }
         this.imageDimension = imageDimension;
     }
 
     @Nullable
     public ImageDimension getImageDimension() {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            synchronized (columns) {
+                if (columns.hasImageDimension()) {
+                    imageDimension = columns.takeImageDimension();
+                }
+            }
+        }
         return imageDimension;
     }
 
     public void setGeoLocation(@Nullable GeoLocation geolocation) {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            columns.clearGeoLocation();
+        }
         this.geolocation = geolocation;
     }
 
     @Nullable
     public GeoLocation getGeoLocation() {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            synchronized (columns) {
+                if (columns.hasGeoLocation()) {
+                    geolocation = columns.takeGeoLocation();
+                }
+            }
+        }
         return geolocation;
     }
 
     public List<Tag> getTags() {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            synchronized (columns) {
+                if (columns.hasTags()) {
+                    tags = columns.takeTags();
+                }
+            }
+        }
         return tags;
     }
 
     public void setTags(List<Tag> tags) {
+        DeferredFileColumns columns = deferredColumns;
+        if (columns != null) {
+            columns.clearTags();
+        }
         this.tags = tags;
     }
 
+    /**
+     * Hands over values of the database row that are only materialized when their getters are called. Getters of a
+     * file shared between threads materialize each value once, under the lock of the deferred columns.
+     */
+    void setDeferredColumns(@Nullable DeferredFileColumns deferredColumns) {
+        this.deferredColumns = deferredColumns;
+    }
+
     public long getE2eCounter() {
         return e2eCounter;
     }
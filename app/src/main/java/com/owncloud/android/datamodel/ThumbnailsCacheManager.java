@@ -224,6 +224,7 @@ public final class ThumbnailsCacheManager {
             }
 
             for (String key: keys) {
+                ThumbnailsMemoryCache.remove(key);
                 mThumbnailCache.removeKey(key);
             }
         }
@@ -243,6 +244,7 @@ public final class ThumbnailsCacheManager {
 
             if (cachedBitmap != null && BitmapExtensionsKt.allocationKilobyte(cachedBitmap) <= THUMBNAIL_SIZE_IN_KB) {
                 Log_OC.d(TAG, "Cached version is already within size limits, no need to scale: " + key);
+                ThumbnailsMemoryCache.put(key, cachedBitmap);
                 return;
             }
 
@@ -260,11 +262,12 @@ public final class ThumbnailsCacheManager {
             }
 
             mThumbnailCache.put(key, bitmap);
+            ThumbnailsMemoryCache.put(key, bitmap);
         }
     }
 
     public static boolean containsBitmap(String key) {
-        return mThumbnailCache.containsKey(key);
+        return ThumbnailsMemoryCache.contains(key) || mThumbnailCache.containsKey(key);
     }
 
     public static Bitmap getScaledBitmapFromDiskCache(String key, int width, int height) {
@@ -284,7 +287,18 @@ public final class ThumbnailsCacheManager {
         return null;
     }
 
+    /**
+     * Returns the cached bitmap for the given key, from memory if it has been decoded recently, else from disk.
+     * <p>
+     * The returned bitmap is owned by {@link ThumbnailsMemoryCache} and shared with other callers, it must not be
+     * recycled.
+     */
     public static Bitmap getBitmapFromDiskCache(String key) {
+        Bitmap memoryBitmap = ThumbnailsMemoryCache.get(key);
+        if (memoryBitmap != null) {
+            return memoryBitmap;
+        }
+
         synchronized (mThumbnailsDiskCacheLock) {
             // Wait while disk cache is started from background thread
             while (mThumbnailCacheStarting) {
@@ -295,7 +309,9 @@ public final class ThumbnailsCacheManager {
                 }
             }
             if (mThumbnailCache != null) {
-                return mThumbnailCache.getBitmap(key);
+                Bitmap bitmap = mThumbnailCache.getBitmap(key);
+                ThumbnailsMemoryCache.put(key, bitmap);
+                return bitmap;
             }
         }
         return null;
@@ -308,6 +324,7 @@ public final class ThumbnailsCacheManager {
             if (mThumbnailCache != null) {
                 Log_OC.d(TAG, "Scaling bitmap before caching: " + imageKey);
                 mThumbnailCache.put(imageKey, result);
+                ThumbnailsMemoryCache.put(imageKey, result);
             }
         }
 
@@ -1243,6 +1260,7 @@ public final class ThumbnailsCacheManager {
 
     @VisibleForTesting
     public static void clearCache() {
+        ThumbnailsMemoryCache.clear();
         synchronized (mThumbnailsDiskCacheLock) {
             if (mThumbnailCache != null) {
                 mThumbnailCache.clearCache();
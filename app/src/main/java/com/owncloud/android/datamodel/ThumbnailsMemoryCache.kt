@@ -0,0 +1,97 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel
+
+import android.content.ComponentCallbacks2
+import android.graphics.Bitmap
+import android.util.LruCache
+import com.owncloud.android.lib.common.utils.Log_OC
+
+/**
+ * In-memory tier in front of the disk cache of [ThumbnailsCacheManager].
+ *
+ * Keeps decoded thumbnails and resized images, keyed by the same [ThumbnailsCacheManager.PREFIX_THUMBNAIL] and
+ * [ThumbnailsCacheManager.PREFIX_RESIZED_IMAGE] keys as the disk cache, so scrolling back in a list or grid does not
+ * read and decode the same JPEG again. The size is bounded by the allocation size of the bitmaps in bytes.
+ *
+ * The cache owns the bitmaps put into it: [get] hands the same instance to every caller, e.g. to several views
+ * showing the same thumbnail at once. Callers may draw them but must never recycle them, nor modify them; a caller
+ * needing a bitmap of its own has to copy it.
+ */
+object ThumbnailsMemoryCache {
+    private const val TAG = "ThumbnailsMemoryCache"
+    private const val MAX_HEAP_FRACTION = 8
+
+    private val cache = object : LruCache<String, Bitmap>(maxSizeInBytes()) {
+        override fun sizeOf(key: String, value: Bitmap): Int = value.allocationByteCount
+    }
+
+    private fun maxSizeInBytes(): Int = (Runtime.getRuntime().maxMemory() / MAX_HEAP_FRACTION).toInt()
+
+    private fun isCacheable(key: String): Boolean = key.startsWith(ThumbnailsCacheManager.PREFIX_THUMBNAIL) ||
+        key.startsWith(ThumbnailsCacheManager.PREFIX_RESIZED_IMAGE)
+
+    @JvmStatic
+    fun get(key: String): Bitmap? {
+        if (!isCacheable(key)) {
+            return null
+        }
+
+        val bitmap = cache[key] ?: return null
+
+        // should a caller recycle a bitmap anyway, it must not be served again
+        if (bitmap.isRecycled) {
+            cache.remove(key)
+            return null
+        }
+
+        return bitmap
+    }
+
+    @JvmStatic
+    fun put(key: String, bitmap: Bitmap?) {
+        if (bitmap == null || bitmap.isRecycled || !isCacheable(key)) {
+            return
+        }
+
+        cache.put(key, bitmap)
+    }
+
+    @JvmStatic
+    fun contains(key: String): Boolean = get(key) != null
+
+    @JvmStatic
+    fun remove(key: String) {
+        cache.remove(key)
+    }
+
+    @JvmStatic
+    fun clear() {
+        cache.evictAll()
+    }
+
+    /**
+     * Releases memory according to [ComponentCallbacks2.onTrimMemory] levels: the cache is halved while the app is
+     * running or its UI gets hidden, and emptied once the app is in the background or memory is critically low.
+     */
+    @JvmStatic
+    fun trimMemory(level: Int) {
+        @Suppress("DEPRECATION")
+        when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> cache.evictAll()
+
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> cache.trimToSize(cache.maxSize() / 2)
+        }
+
+        Log_OC.d(
+            TAG,
+            "trimmed to ${cache.size()} of ${cache.maxSize()} bytes (level $level), " +
+                "hits: ${cache.hitCount()}, misses: ${cache.missCount()}, evictions: ${cache.evictionCount()}"
+        )
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel.e2e
+
+import android.content.Context
+import android.security.keystore.KeyGenParameterSpec
+import android.security.keystore.KeyProperties
+import com.google.gson.reflect.TypeToken
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFolderMetadataFile
+import com.owncloud.android.lib.common.utils.Log_OC
+import com.owncloud.android.utils.EncryptionUtils
+import java.io.File
+import java.io.IOException
+import java.security.GeneralSecurityException
+import java.security.KeyStore
+import java.security.MessageDigest
+import java.util.concurrent.atomic.AtomicLong
+import javax.crypto.Cipher
+import javax.crypto.KeyGenerator
+import javax.crypto.SecretKey
+import javax.crypto.spec.GCMParameterSpec
+
+/**
+ * Decrypted metadata of end-to-end encrypted folders, so listing a folder or uploading into it does not verify the
+ * signature and decrypt the metadata key again as long as the metadata on the server did not change.
+ *
+ * Entries are keyed by account and folder localId and validated by a digest of the encrypted metadata and its
+ * signature, which changes with every update of the metadata like an eTag, and by the E2E counter, which must not be
+ * older than the one last seen for the folder. They are kept in memory and on disk, encrypted at rest with [key].
+ *
+ * Every hit returns a fresh copy, callers may modify it before uploading it again.
+ */
+class E2EMetadataCache(private val directory: File, keyProvider: () -> SecretKey) {
+
+    private class Entry(val digest: String, val counter: Long, val json: String)
+
+    private val key: SecretKey by lazy(keyProvider)
+
+    private val entries = object : LinkedHashMap<String, Entry>(MAX_ENTRIES, LOAD_FACTOR, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>?): Boolean = size > MAX_ENTRIES
+    }
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+
+    val hitCount: Long
+        get() = hits.get()
+
+    val missCount: Long
+        get() = misses.get()
+
+    /**
+     * @param minCounter E2E counter last seen for the folder, an entry with an older counter is not used
+     * @return decrypted metadata stored for exactly this encrypted metadata and signature, null otherwise
+     */
+    fun get(
+        accountName: String,
+        localId: String,
+        encryptedMetadata: String,
+        signature: String,
+        minCounter: Long
+    ): DecryptedFolderMetadataFile? {
+        val entry = load(accountName, localId)
+        if (entry == null || entry.digest != digest(encryptedMetadata, signature) || entry.counter < minCounter) {
+            misses.incrementAndGet()
+            return null
+        }
+
+        hits.incrementAndGet()
+        return EncryptionUtils.deserializeJSON(entry.json, object : TypeToken<DecryptedFolderMetadataFile>() {})
+    }
+
+    /**
+     * Stores decrypted metadata, best effort: a failure is logged and only costs decrypting it again next time.
+     */
+    @Suppress("TooGenericExceptionCaught")
+    fun put(
+        accountName: String,
+        localId: String,
+        encryptedMetadata: String,
+        signature: String,
+        metadata: DecryptedFolderMetadataFile
+    ) {
+        val entry = try {
+            Entry(
+                digest(encryptedMetadata, signature),
+                metadata.metadata.counter,
+                EncryptionUtils.serializeJSON(metadata)
+            )
+        } catch (e: RuntimeException) {
+            Log_OC.e(TAG, "Cannot serialize metadata cache entry", e)
+            return
+        }
+
+        synchronized(entries) {
+            entries[entryKey(accountName, localId)] = entry
+        }
+        store(accountName, localId, entry)
+    }
+
+    fun invalidate(accountName: String, localId: String) {
+        synchronized(entries) {
+            entries.remove(entryKey(accountName, localId))
+        }
+        entryFile(accountName, localId).delete()
+    }
+
+    /**
+     * Removes all entries of an account, e.g. once its account or its E2E keys are removed.
+     */
+    fun clear(accountName: String) {
+        val prefix = entryKey(accountName, "")
+        synchronized(entries) {
+            entries.keys.removeAll { it.startsWith(prefix) }
+        }
+        accountDirectory(accountName).deleteRecursively()
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    private fun load(accountName: String, localId: String): Entry? {
+        val entryKey = entryKey(accountName, localId)
+        synchronized(entries) {
+            entries[entryKey]
+        }?.let { return it }
+
+        val file = entryFile(accountName, localId)
+        if (!file.exists()) {
+            return null
+        }
+
+        return try {
+            val content = file.readBytes()
+            val cipher = Cipher.getInstance(AES_CIPHER)
+            cipher.init(Cipher.DECRYPT_MODE, key, GCMParameterSpec(TAG_LENGTH_BITS, content, 0, IV_LENGTH))
+            cipher.updateAAD(entryKey.toByteArray())
+            val plain = String(cipher.doFinal(content, IV_LENGTH, content.size - IV_LENGTH))
+
+            val parts = plain.split(SEPARATOR, limit = ENTRY_PARTS)
+            val entry = Entry(parts[0], parts[1].toLong(), parts[2])
+            synchronized(entries) {
+                entries.putIfAbsent(entryKey, entry)
+            }
+            entry
+        } catch (e: GeneralSecurityException) {
+            // a lost keystore key or a tampered file, the entry is rebuilt from the server
+            Log_OC.w(TAG, "Dropping unreadable metadata cache entry: ${e.message}")
+            file.delete()
+            null
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Cannot read metadata cache entry", e)
+            null
+        } catch (e: RuntimeException) {
+            Log_OC.w(TAG, "Dropping malformed metadata cache entry: ${e.message}")
+            file.delete()
+            null
+        }
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    private fun store(accountName: String, localId: String, entry: Entry) {
+        val file = entryFile(accountName, localId)
+        try {
+            val cipher = Cipher.getInstance(AES_CIPHER)
+            cipher.init(Cipher.ENCRYPT_MODE, key)
+            cipher.updateAAD(entryKey(accountName, localId).toByteArray())
+            val plain = entry.digest + SEPARATOR + entry.counter + SEPARATOR + entry.json
+            val encrypted = cipher.doFinal(plain.toByteArray())
+
+            file.parentFile?.mkdirs()
+            // write aside and rename, a reader never sees a partial entry
+            val tmp = File(file.path + ".tmp")
+            tmp.writeBytes(cipher.iv + encrypted)
+            if (!tmp.renameTo(file)) {
+                tmp.delete()
+            }
+        } catch (e: GeneralSecurityException) {
+            Log_OC.e(TAG, "Cannot encrypt metadata cache entry", e)
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Cannot write metadata cache entry", e)
+        } catch (e: RuntimeException) {
+            // e.g. a keystore failing to provide the key
+            Log_OC.e(TAG, "Cannot store metadata cache entry", e)
+        }
+    }
+
+    private fun accountDirectory(accountName: String) = File(directory, hash(accountName))
+
+    private fun entryFile(accountName: String, localId: String) = File(accountDirectory(accountName), hash(localId))
+
+    private fun entryKey(accountName: String, localId: String) = accountName + SEPARATOR + localId
+
+    private fun digest(encryptedMetadata: String, signature: String) = hash(encryptedMetadata + SEPARATOR + signature)
+
+    companion object {
+        private const val TAG = "E2EMetadataCache"
+        private const val CACHE_DIR = "e2e_metadata"
+        private const val KEY_ALIAS = "e2e_metadata_cache"
+        private const val ANDROID_KEY_STORE = "AndroidKeyStore"
+        private const val AES_CIPHER = "AES/GCM/NoPadding"
+        private const val KEY_SIZE = 256
+        private const val IV_LENGTH = 12
+        private const val TAG_LENGTH_BITS = 128
+        private const val SEPARATOR = "\n"
+        private const val ENTRY_PARTS = 3
+        private const val MAX_ENTRIES = 64
+        private const val LOAD_FACTOR = 0.75f
+
+        @Volatile
+        private var instance: E2EMetadataCache? = null
+
+        @JvmStatic
+        fun getInstance(context: Context): E2EMetadataCache = instance ?: synchronized(this) {
+            instance ?: E2EMetadataCache(File(context.filesDir, CACHE_DIR), ::keyStoreKey).also { instance = it }
+        }
+
+        /**
+         * Key of the cache, generated in the Android keystore so it never leaves it.
+         */
+        private fun keyStoreKey(): SecretKey {
+            val keyStore = KeyStore.getInstance(ANDROID_KEY_STORE).apply { load(null) }
+            (keyStore.getKey(KEY_ALIAS, null) as? SecretKey)?.let { return it }
+
+            val spec = KeyGenParameterSpec.Builder(
+                KEY_ALIAS,
+                KeyProperties.PURPOSE_ENCRYPT or KeyProperties.PURPOSE_DECRYPT
+            )
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(KEY_SIZE)
+                .build()
+            return KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, ANDROID_KEY_STORE).run {
+                init(spec)
+                generateKey()
+            }
+        }
+
+        private fun hash(value: String): String = MessageDigest.getInstance("SHA-256")
+            .digest(value.toByteArray())
+            .joinToString("") { "%02x".format(it) }
+    }
+}
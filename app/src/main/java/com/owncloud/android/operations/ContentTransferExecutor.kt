@@ -0,0 +1,230 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.operations
+
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Runs the content transfers of a folder synchronization, up to [parallelism] at once.
+ *
+ * Transfers are started smallest first, so that a folder of small documents is not held up behind a big file. Files
+ * of at least [LARGE_FILE_SIZE] get a single lane and are streamed one after another next to the small ones. All
+ * executors share a budget of connections per host, which bounds the transfers to one server however many folders
+ * are synchronized at once.
+ *
+ * Results are passed to the [ResultHandler] on the calling thread, in the order the transfers finish.
+ */
+class ContentTransferExecutor @JvmOverloads constructor(
+    private val host: String,
+    private val isCancelled: () -> Boolean,
+    private val parallelism: Int = DEFAULT_PARALLELISM
+) {
+
+    interface Transfer<R> {
+        /** Expected number of bytes to transfer, used for scheduling and progress */
+        val size: Long
+
+        fun run(progressListener: OnDatatransferProgressListener): R
+
+        fun cancel()
+    }
+
+    fun interface ResultHandler<R> {
+        /**
+         * @param result result of the transfer, null if it failed with an exception or an error
+         */
+        fun onResult(transfer: Transfer<R>, result: R?)
+    }
+
+    /**
+     * Called on any thread, at most every [PROGRESS_INTERVAL_MILLIS] while bytes are transferred and whenever a
+     * transfer finishes.
+     */
+    fun interface ProgressListener {
+        fun onProgress(transferredBytes: Long, totalBytes: Long, finishedCount: Int, totalCount: Int)
+    }
+
+    var progressListener: ProgressListener? = null
+
+    /**
+     * Runs the transfers and waits for them to finish. Once cancellation is requested, no more transfers are started
+     * and the running ones are cancelled.
+     *
+     * @return false if transfers were left out because of cancellation
+     */
+    @Suppress("LongMethod", "NestedBlockDepth")
+    fun <R> execute(transfers: Collection<Transfer<R>>, handler: ResultHandler<R>): Boolean {
+        if (transfers.isEmpty()) {
+            return true
+        }
+
+        val small = ArrayDeque(transfers.filter { it.size < LARGE_FILE_SIZE }.sortedBy { it.size })
+        val large = ArrayDeque(transfers.filter { it.size >= LARGE_FILE_SIZE }.sortedBy { it.size })
+        val progress = Progress(transfers.sumOf { it.size.coerceAtLeast(0) }, transfers.size)
+        val lanes = parallelism.coerceIn(1, transfers.size)
+        val executor = Executors.newFixedThreadPool(lanes)
+        val completion = ExecutorCompletionService<Outcome<R>>(executor)
+        val running = HashMap<Future<Outcome<R>>, Outcome<R>>()
+        var largeRunning = false
+        var cancelSent = false
+        var complete = true
+
+        try {
+            while (true) {
+                while (!isCancelled() && running.size < lanes) {
+                    val next = when {
+                        // with a single lane, big files wait for the small ones
+                        !largeRunning && large.isNotEmpty() && (lanes > 1 || small.isEmpty()) ->
+                            large.removeFirst().also { largeRunning = true }
+                        small.isNotEmpty() -> small.removeFirst()
+                        else -> null
+                    } ?: break
+                    val transferProgress = TransferProgress(progress)
+                    val future = completion.submit(Callable { transfer(next, transferProgress) })
+                    // reported in place of the outcome if the transfer fails with an error
+                    running[future] = Outcome(next, true, null, transferProgress)
+                }
+                if (running.isEmpty()) {
+                    break
+                }
+
+                val future = completion.poll(CANCEL_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                if (future == null) {
+                    if (isCancelled() && !cancelSent) {
+                        running.values.forEach { it.transfer.cancel() }
+                        cancelSent = true
+                    }
+                    continue
+                }
+
+                val failure = running.remove(future) ?: continue
+                val outcome = try {
+                    future.get()
+                } catch (e: ExecutionException) {
+                    Log_OC.e(TAG, "Transfer failed", e.cause)
+                    failure
+                }
+                if (outcome.transfer.size >= LARGE_FILE_SIZE) {
+                    largeRunning = false
+                }
+                if (outcome.started) {
+                    progress.finished(outcome.transfer, outcome.progress)
+                    handler.onResult(outcome.transfer, outcome.result)
+                } else {
+                    complete = false
+                }
+            }
+        } catch (e: InterruptedException) {
+            Log_OC.w(TAG, "Interrupted while waiting for transfers")
+            running.values.forEach { it.transfer.cancel() }
+            Thread.currentThread().interrupt()
+            complete = false
+        } finally {
+            executor.shutdown()
+        }
+
+        return complete && small.isEmpty() && large.isEmpty()
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    private fun <R> transfer(transfer: Transfer<R>, transferProgress: TransferProgress): Outcome<R> {
+        val budget = hostBudgets.getOrPut(host) { Semaphore(CONNECTIONS_PER_HOST) }
+        while (!budget.tryAcquire(CANCEL_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (isCancelled()) {
+                return Outcome(transfer, false, null, transferProgress)
+            }
+        }
+
+        return try {
+            if (isCancelled()) {
+                Outcome(transfer, false, null, transferProgress)
+            } else {
+                Outcome(transfer, true, transfer.run(transferProgress), transferProgress)
+            }
+        } catch (e: Exception) {
+            // checked exceptions can slip through run undeclared, they fail only this transfer as well
+            Log_OC.e(TAG, "Transfer failed", e)
+            Outcome(transfer, true, null, transferProgress)
+        } finally {
+            budget.release()
+        }
+    }
+
+    private class Outcome<R>(
+        val transfer: Transfer<R>,
+        val started: Boolean,
+        val result: R?,
+        val progress: TransferProgress
+    )
+
+    private class TransferProgress(private val progress: Progress) : OnDatatransferProgressListener {
+        @Volatile
+        var reportedBytes = 0L
+
+        override fun onTransferProgress(
+            progressRate: Long,
+            totalTransferredSoFar: Long,
+            totalToTransfer: Long,
+            fileAbsoluteName: String?
+        ) {
+            progress.add(totalTransferredSoFar - reportedBytes)
+            reportedBytes = totalTransferredSoFar
+        }
+    }
+
+    private inner class Progress(private val totalBytes: Long, private val totalCount: Int) {
+        private val transferredBytes = AtomicLong()
+        private val lastReport = AtomicLong()
+
+        @Volatile
+        private var finishedCount = 0
+
+        fun add(bytes: Long) {
+            transferredBytes.addAndGet(bytes)
+            val now = System.currentTimeMillis()
+            val last = lastReport.get()
+            if (now - last >= PROGRESS_INTERVAL_MILLIS && lastReport.compareAndSet(last, now)) {
+                report()
+            }
+        }
+
+        /**
+         * Counts the bytes of a finished transfer that its listener did not report, called on the calling thread.
+         */
+        fun finished(transfer: Transfer<*>, transferProgress: TransferProgress) {
+            transferredBytes.addAndGet((transfer.size - transferProgress.reportedBytes).coerceAtLeast(0))
+            finishedCount++
+            report()
+        }
+
+        private fun report() {
+            progressListener?.onProgress(transferredBytes.get(), totalBytes, finishedCount, totalCount)
+        }
+    }
+
+    companion object {
+        private const val TAG = "ContentTransferExecutor"
+
+        const val DEFAULT_PARALLELISM = 4
+        const val CONNECTIONS_PER_HOST = 4
+        const val LARGE_FILE_SIZE = 8L * 1024 * 1024
+        private const val CANCEL_CHECK_INTERVAL_MILLIS = 250L
+        private const val PROGRESS_INTERVAL_MILLIS = 500L
+
+        private val hostBudgets = ConcurrentHashMap<String, Semaphore>()
+    }
+}
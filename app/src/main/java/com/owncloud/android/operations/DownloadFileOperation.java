@@ -32,7 +32,6 @@ import com.owncloud.android.lib.common.operations.OperationCancelledException;
 import com.owncloud.android.lib.common.operations.RemoteOperation;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.utils.Log_OC;
-import com.owncloud.android.lib.resources.files.DownloadFileRemoteOperation;
 import com.owncloud.android.utils.EncryptionUtils;
 import com.owncloud.android.utils.FileExportUtils;
 import com.owncloud.android.utils.FileStorageUtils;
@@ -46,7 +45,7 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import javax.crypto.Cipher;
+import javax.crypto.AEADBadTagException;
 
 import static com.owncloud.android.utils.EncryptionUtils.decodeStringToBase64Bytes;
 
@@ -70,7 +69,7 @@ public class DownloadFileOperation extends RemoteOperation {
     private Set<OnDatatransferProgressListener> dataTransferListeners = new HashSet<>();
 
     private long modificationTimestamp;
-    private DownloadFileRemoteOperation downloadOperation;
+    private StreamingDownloadRemoteOperation streamingDownloadOperation;
     private final AtomicBoolean cancellationRequested = new AtomicBoolean(false);
     private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
@@ -175,6 +174,7 @@ public class DownloadFileOperation extends RemoteOperation {
         /// perform the download
         synchronized(cancellationRequested) {
             if (cancellationRequested.get()) {
+                StreamingDownloadRemoteOperation.deletePartialContent(new File(getTmpPath()));
                 return new RemoteOperationResult<>(new OperationCancelledException());
             }
         }
@@ -197,88 +197,26 @@ public class DownloadFileOperation extends RemoteOperation {
         /// download will be performed to a temporal file, then moved to the final location
         File tmpFile = new File(getTmpPath());
 
-        String tmpFolder = getTmpFolder();
-
-        downloadOperation = new DownloadFileRemoteOperation(file.getRemotePath(), tmpFolder);
-
-        if (downloadType == DownloadType.DOWNLOAD) {
-            dataTransferListeners.forEach(downloadOperation::addDatatransferProgressListener);
+        if (file.isEncrypted()) {
+            // content is decrypted while it is received, the temporal file only ever holds plain data
+            result = downloadEncryptedFile(client, operationContext, tmpFile);
+        } else {
+            result = downloadFile(client, tmpFile);
         }
 
-        result = downloadOperation.execute(client);
-
-
+        if (!result.isSuccess() && cancellationRequested.get()) {
+            // a download cancelled by the user is not continued later
+            StreamingDownloadRemoteOperation.deletePartialContent(tmpFile);
+        }
 
         if (result.isSuccess()) {
-            modificationTimestamp = downloadOperation.getModificationTimestamp();
-            etag = downloadOperation.getEtag();
-
             if (downloadType == DownloadType.DOWNLOAD) {
                 newFile = new File(getSavePath());
 
                 if (!newFile.getParentFile().exists() && !newFile.getParentFile().mkdirs()) {
                     Log_OC.e(TAG, "Unable to create parent folder " + newFile.getParentFile().getAbsolutePath());
                 }
-            }
-
-            // decrypt file
-            if (file.isEncrypted()) {
-                FileDataStorageManager fileDataStorageManager = new FileDataStorageManager(user, operationContext.getContentResolver());
 
-                OCFile parent = fileDataStorageManager.getFileByEncryptedRemotePath(file.getParentRemotePath());
-
-                Object object = EncryptionUtils.downloadFolderMetadata(parent,
-                                                                       client,
-                                                                       operationContext,
-                                                                       user);
-
-                if (object == null) {
-                    return new RemoteOperationResult(RemoteOperationResult.ResultCode.METADATA_NOT_FOUND);
-                }
-
-                String keyString;
-                String nonceString;
-                String authenticationTagString;
-                if (object instanceof DecryptedFolderMetadataFile) {
-                    DecryptedFile decryptedFile = ((DecryptedFolderMetadataFile) object)
-                        .getMetadata()
-                        .getFiles()
-                        .get(file.getEncryptedFileName());
-
-                    if (decryptedFile == null) {
-                        return new RemoteOperationResult(RemoteOperationResult.ResultCode.METADATA_NOT_FOUND);
-                    }
-
-                    keyString = decryptedFile.getKey();
-                    nonceString = decryptedFile.getNonce();
-                    authenticationTagString = decryptedFile.getAuthenticationTag();
-                } else {
-                    com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFile decryptedFile =
-                        ((DecryptedFolderMetadataFileV1) object)
-                            .getFiles()
-                            .get(file.getEncryptedFileName());
-
-                    if (decryptedFile == null) {
-                        return new RemoteOperationResult(RemoteOperationResult.ResultCode.METADATA_NOT_FOUND);
-                    }
-
-                    keyString = decryptedFile.getEncrypted().getKey();
-                    nonceString = decryptedFile.getInitializationVector();
-                    authenticationTagString = decryptedFile.getAuthenticationTag();
-                }
-
-                byte[] key = decodeStringToBase64Bytes(keyString);
-                byte[] iv = decodeStringToBase64Bytes(nonceString);
-
-                try {
-                    Cipher cipher = EncryptionUtils.getCipher(Cipher.DECRYPT_MODE, key, iv);
-                    EncryptionUtils.decryptFile(cipher, tmpFile, newFile, authenticationTagString, new ArbitraryDataProviderImpl(operationContext), user);
-                } catch (Exception e) {
-                    return new RemoteOperationResult(e);
-                }
-            }
-
-            if (downloadType == DownloadType.DOWNLOAD && !file.isEncrypted()) {
                 moved = tmpFile.renameTo(newFile);
                 boolean isLastModifiedSet = newFile.setLastModified(file.getModificationTimestamp());
                 Log_OC.d(TAG, "Last modified set: " + isLastModifiedSet);
@@ -303,10 +241,131 @@ public class DownloadFileOperation extends RemoteOperation {
         return result;
     }
 
+    /**
+     * Downloads plain content into the temporal file. A partial temporal file left by an interrupted download of the
+     * same file is continued if its content did not change on the server.
+     */
+    private RemoteOperationResult downloadFile(OwnCloudClient client, File tmpFile) {
+        streamingDownloadOperation = new StreamingDownloadRemoteOperation(file.getRemotePath(), tmpFile);
+        streamingDownloadOperation.setResumable(true);
+
+        if (downloadType == DownloadType.DOWNLOAD) {
+            dataTransferListeners.forEach(streamingDownloadOperation::addDatatransferProgressListener);
+        }
+
+        if (cancellationRequested.get()) {
+            return new RemoteOperationResult<>(new OperationCancelledException());
+        }
+
+        RemoteOperationResult result = streamingDownloadOperation.execute(client);
+
+        if (result.isSuccess()) {
+            modificationTimestamp = streamingDownloadOperation.getModificationTimestamp();
+            etag = streamingDownloadOperation.getEtag();
+        }
+
+        return result;
+    }
+
+    private RemoteOperationResult downloadEncryptedFile(OwnCloudClient client, Context operationContext, File tmpFile) {
+        FileDataStorageManager fileDataStorageManager = new FileDataStorageManager(user, operationContext.getContentResolver());
+
+        OCFile parent = fileDataStorageManager.getFileByEncryptedRemotePath(file.getParentRemotePath());
+
+        Object object = EncryptionUtils.downloadFolderMetadata(parent,
+                                                               client,
+                                                               operationContext,
+                                                               user);
+
+        if (object == null) {
+            return new RemoteOperationResult(RemoteOperationResult.ResultCode.METADATA_NOT_FOUND);
+        }
+
+        String keyString;
+        String nonceString;
+        String authenticationTagString;
+        if (object instanceof DecryptedFolderMetadataFile) {
+            DecryptedFile decryptedFile = ((DecryptedFolderMetadataFile) object)
+                .getMetadata()
+                .getFiles()
+                .get(file.getEncryptedFileName());
+
+            if (decryptedFile == null) {
+                return new RemoteOperationResult(RemoteOperationResult.ResultCode.METADATA_NOT_FOUND);
+            }
+
+            keyString = decryptedFile.getKey();
+            nonceString = decryptedFile.getNonce();
+            authenticationTagString = decryptedFile.getAuthenticationTag();
+        } else {
+            com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFile decryptedFile =
+                ((DecryptedFolderMetadataFileV1) object)
+                    .getFiles()
+                    .get(file.getEncryptedFileName());
+
+            if (decryptedFile == null) {
+                return new RemoteOperationResult(RemoteOperationResult.ResultCode.METADATA_NOT_FOUND);
+            }
+
+            keyString = decryptedFile.getEncrypted().getKey();
+            nonceString = decryptedFile.getInitializationVector();
+            authenticationTagString = decryptedFile.getAuthenticationTag();
+        }
+
+        byte[] key = decodeStringToBase64Bytes(keyString);
+        byte[] iv = decodeStringToBase64Bytes(nonceString);
+
+        streamingDownloadOperation = new StreamingDownloadRemoteOperation(file.getRemotePath(), tmpFile);
+        streamingDownloadOperation.setDecryption(key, iv);
+
+        if (downloadType == DownloadType.DOWNLOAD) {
+            dataTransferListeners.forEach(streamingDownloadOperation::addDatatransferProgressListener);
+        }
+
+        if (cancellationRequested.get()) {
+            return new RemoteOperationResult<>(new OperationCancelledException());
+        }
+
+        RemoteOperationResult result = streamingDownloadOperation.execute(client);
+
+        if (result.isSuccess()) {
+            modificationTimestamp = streamingDownloadOperation.getModificationTimestamp();
+            etag = streamingDownloadOperation.getEtag();
+            byte[] contentTag = streamingDownloadOperation.getAuthenticationTag();
+            if (!isAuthenticationTagValid(authenticationTagString, iv, contentTag)) {
+                Log_OC.e(TAG, "Authentication tag in metadata does not match content of " + file.getRemotePath());
+                EncryptionUtils.reportE2eError(new ArbitraryDataProviderImpl(operationContext), user);
+                if (tmpFile.exists() && !tmpFile.delete()) {
+                    Log_OC.e(TAG, "Deletion of " + tmpFile.getAbsolutePath() + " failed!");
+                }
+                return new RemoteOperationResult<>(new SecurityException("Authentication tag does not match"));
+            }
+        } else if (result.getException() instanceof IOException &&
+            result.getException().getCause() instanceof AEADBadTagException) {
+            EncryptionUtils.reportE2eError(new ArbitraryDataProviderImpl(operationContext), user);
+        }
+
+        return result;
+    }
+
+    /**
+     * The content itself is authenticated by its GCM tag while decrypting. Metadata written by this app stores the
+     * nonce as authentication tag, other clients store the tag, anything else does not belong to this content.
+     */
+    private boolean isAuthenticationTagValid(String metadataTag, byte[] iv, byte[] contentTag) {
+        if (metadataTag == null || contentTag == null) {
+            return true;
+        }
+
+        String contentTagString = EncryptionUtils.encodeBytesToBase64String(contentTag);
+        String ivString = EncryptionUtils.encodeBytesToBase64String(iv);
+        return metadataTag.equals(contentTagString) || metadataTag.equals(ivString);
+    }
+
     public void cancel() {
         cancellationRequested.set(true);   // atomic set; there is no need of synchronizing it
-        if (downloadOperation != null) {
-            downloadOperation.cancel();
+        if (streamingDownloadOperation != null) {
+            streamingDownloadOperation.cancel();
         }
     }
 
@@ -12,6 +12,7 @@ import android.content.Context;
 import android.content.Intent;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.nextcloud.android.lib.resources.directediting.DirectEditingObtainRemoteOperation;
 import com.nextcloud.client.account.User;
@@ -49,9 +50,11 @@ import com.owncloud.android.utils.MimeTypeUtil;
 import com.owncloud.android.utils.theme.CapabilityUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import androidx.annotation.NonNull;
@@ -76,6 +79,12 @@ public class RefreshFolderOperation extends RemoteOperation {
     public static final String EVENT_SINGLE_FOLDER_SHARES_SYNCED =
         RefreshFolderOperation.class.getName() + ".EVENT_SINGLE_FOLDER_SHARES_SYNCED";
 
+    /**
+     * Folders with more children than this are synchronized window by window, see
+     * {@link #synchronizeDataInWindows(OCFile, List)}
+     */
+    private static final int SYNC_WINDOW_SIZE = 500;
+
     private boolean isMetadataSyncWorkerRunning = false;
 
     /**
@@ -243,6 +252,10 @@ public class RefreshFolderOperation extends RemoteOperation {
      * @return List of files and folders contained in the synchronized folder.
      */
     public List<OCFile> getChildren() {
+        if (mChildren == null && mLocalFolder != null && mRemoteFolderChanged) {
+            // huge folders are synchronized in windows without keeping all children in memory
+            mChildren = fileDataStorageManager.getFolderContent(mLocalFolder, false);
+        }
         return mChildren;
     }
 
@@ -511,7 +524,6 @@ public class RefreshFolderOperation extends RemoteOperation {
 
         Log_OC.d(TAG, "Remote folder path: " + mLocalFolder.getRemotePath() + " changed - starting update of local data ");
 
-        List<OCFile> updatedFiles = new ArrayList<>(folderAndFiles.size() - 1);
         mFilesToSyncContents.clear();
 
         // if local folder is encrypted, download fresh metadata
@@ -547,6 +559,11 @@ public class RefreshFolderOperation extends RemoteOperation {
             }
         }
 
+        if (object == null && folderAndFiles.size() - 1 > SYNC_WINDOW_SIZE) {
+            synchronizeDataInWindows(remoteFolder, folderAndFiles);
+            return;
+        }
+
         // get current data about local contents of the folder to synchronize
         Map<String, OCFile> localFilesMap;
         E2EVersion e2EVersion;
@@ -564,64 +581,21 @@ public class RefreshFolderOperation extends RemoteOperation {
         }
 
         // loop to update every child
-        OCFile remoteFile;
-        OCFile localFile;
-        OCFile updatedFile;
-        RemoteFile remote;
-
+        List<OCFile> updatedFiles = new ArrayList<>(folderAndFiles.size() - 1);
         for (int i = 1; i < folderAndFiles.size(); i++) {
-            /// new OCFile instance with the data from the server
-            remote = (RemoteFile) folderAndFiles.get(i);
-            remoteFile = FileStorageUtils.fillOCFile(remote);
-
-            // new OCFile instance to merge fresh data from server with local state
-            updatedFile = FileStorageUtils.fillOCFile(remote);
-            updatedFile.setParentId(mLocalFolder.getFileId());
+            RemoteFile remote = (RemoteFile) folderAndFiles.get(i);
 
             // retrieve local data for the read file
-            localFile = localFilesMap.remove(remoteFile.getRemotePath());
+            OCFile localFile = localFilesMap.remove(remote.getRemotePath());
 
             // TODO better implementation is needed
             if (localFile == null) {
-                localFile = fileDataStorageManager.getFileByPath(updatedFile.getRemotePath());
+                localFile = fileDataStorageManager.getFileByPath(remote.getRemotePath());
             }
 
-            // add to updatedFile data about LOCAL STATE (not existing in server)
-            updatedFile.setLastSyncDateForProperties(mCurrentSyncTime);
-
-            // keep thumbnail info
-            if (!updatedFile.isUpdateThumbnailNeeded() && localFile != null && localFile.getImageDimension() != null) {
-                updatedFile.setImageDimension(localFile.getImageDimension());
-            }
-
-            // add to updatedFile data from local and remote file
-            setLocalFileDataOnUpdatedFile(remoteFile, localFile, updatedFile, mRemoteFolderChanged);
-
-            // check and fix, if needed, local storage path
-            FileStorageUtils.searchForLocalFileInDefaultPath(updatedFile, user.getAccountName());
-
-            // update file name for encrypted files
-            if (e2EVersion == E2EVersionHelper.INSTANCE.latestVersion(false)) {
-                updateFileNameForEncryptedFileV1(fileDataStorageManager,
-                                                 (DecryptedFolderMetadataFileV1) object,
-                                                 updatedFile);
-            } else if (object != null) {
-                updateFileNameForEncryptedFile(fileDataStorageManager,
-                                               (DecryptedFolderMetadataFile) object,
-                                               updatedFile);
-                if (localFile != null) {
-                    updatedFile.setE2eCounter(localFile.getE2eCounter());
-                }
-            }
-
-            // we parse content, so either the folder itself or its direct parent (which we check) must be encrypted
-            boolean encrypted = updatedFile.isEncrypted() || mLocalFolder.isEncrypted();
-            updatedFile.setEncrypted(encrypted);
-
-            updatedFiles.add(updatedFile);
+            updatedFiles.add(mergeRemoteFile(remote, localFile, object, e2EVersion));
         }
 
-
         // save updated contents in local database
         // update file name for encrypted files
         if (e2EVersion == E2EVersionHelper.INSTANCE.latestVersion(false)) {
@@ -638,6 +612,103 @@ public class RefreshFolderOperation extends RemoteOperation {
         mChildren = updatedFiles;
     }
 
+    /**
+     * Synchronizes the children of a huge, not encrypted folder in windows of {@link #SYNC_WINDOW_SIZE} entries.
+     * <p>
+     * Only the local rows matching the current window are loaded, and every window is stored in its own transaction,
+     * so the number of {@link OCFile} instances alive at the same time does not grow with the size of the folder.
+     * The folder itself (and with it the new eTag) is saved last, together with the removal of the children that do
+     * not exist on the server anymore; an interrupted synchronization is therefore repeated on the next refresh.
+     *
+     * @param remoteFolder   remote folder, with the local ids already set
+     * @param folderAndFiles remote folder and children files in folder
+     */
+    private void synchronizeDataInWindows(OCFile remoteFolder, List<Object> folderAndFiles) {
+        final int childrenCount = folderAndFiles.size() - 1;
+        Log_OC.d(TAG, "Synchronizing " + childrenCount + " children of " + mLocalFolder.getRemotePath() +
+            " in windows of " + SYNC_WINDOW_SIZE);
+
+        final Set<String> remotePaths = Sets.newHashSetWithExpectedSize(childrenCount);
+        final E2EVersion e2EVersion = E2EVersionHelper.INSTANCE.latestVersion(true);
+
+        for (int start = 1; start < folderAndFiles.size(); start += SYNC_WINDOW_SIZE) {
+            final int end = Math.min(start + SYNC_WINDOW_SIZE, folderAndFiles.size());
+
+            final List<String> windowPaths = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                windowPaths.add(((RemoteFile) folderAndFiles.get(i)).getRemotePath());
+            }
+            remotePaths.addAll(windowPaths);
+
+            final Map<String, OCFile> localFilesMap =
+                prefillLocalFilesMap(null, fileDataStorageManager.getFolderContentByPaths(mLocalFolder, windowPaths));
+
+            final List<OCFile> updatedFiles = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                RemoteFile remote = (RemoteFile) folderAndFiles.get(i);
+                updatedFiles.add(mergeRemoteFile(remote, localFilesMap.get(remote.getRemotePath()), null, e2EVersion));
+            }
+
+            fileDataStorageManager.saveFolderContent(remoteFolder, updatedFiles);
+        }
+
+        final List<OCFile> filesToRemove = fileDataStorageManager.getFolderContentNotIn(mLocalFolder, remotePaths);
+        fileDataStorageManager.saveFolder(remoteFolder, Collections.emptyList(), filesToRemove);
+
+        // children are read back from the database only if somebody asks for them
+        mChildren = null;
+    }
+
+    /**
+     * Creates the {@link OCFile} to store for a child of the synchronized folder, merging fresh data from the server
+     * with the local state of the file.
+     *
+     * @param remote     child as read from the server
+     * @param localFile  local data of the child, if known
+     * @param metadata   decrypted metadata of the folder, if encrypted
+     * @param e2EVersion version of the metadata
+     */
+    private OCFile mergeRemoteFile(RemoteFile remote, @Nullable OCFile localFile, @Nullable Object metadata,
+                                   E2EVersion e2EVersion) {
+        // new OCFile instance to merge fresh data from server with local state
+        OCFile updatedFile = FileStorageUtils.fillOCFile(remote);
+        updatedFile.setParentId(mLocalFolder.getFileId());
+
+        // add to updatedFile data about LOCAL STATE (not existing in server)
+        updatedFile.setLastSyncDateForProperties(mCurrentSyncTime);
+
+        // keep thumbnail info
+        if (!updatedFile.isUpdateThumbnailNeeded() && localFile != null && localFile.getImageDimension() != null) {
+            updatedFile.setImageDimension(localFile.getImageDimension());
+        }
+
+        // add to updatedFile data from local and remote file
+        setLocalFileDataOnUpdatedFile(remote.getEtag(), localFile, updatedFile, mRemoteFolderChanged);
+
+        // check and fix, if needed, local storage path
+        FileStorageUtils.searchForLocalFileInDefaultPath(updatedFile, user.getAccountName());
+
+        // update file name for encrypted files
+        if (e2EVersion == E2EVersionHelper.INSTANCE.latestVersion(false)) {
+            updateFileNameForEncryptedFileV1(fileDataStorageManager,
+                                             (DecryptedFolderMetadataFileV1) metadata,
+                                             updatedFile);
+        } else if (metadata != null) {
+            updateFileNameForEncryptedFile(fileDataStorageManager,
+                                           (DecryptedFolderMetadataFile) metadata,
+                                           updatedFile);
+            if (localFile != null) {
+                updatedFile.setE2eCounter(localFile.getE2eCounter());
+            }
+        }
+
+        // we parse content, so either the folder itself or its direct parent (which we check) must be encrypted
+        boolean encrypted = updatedFile.isEncrypted() || mLocalFolder.isEncrypted();
+        updatedFile.setEncrypted(encrypted);
+
+        return updatedFile;
+    }
+
     @Nullable
     public static Object getDecryptedFolderMetadata(boolean encryptedAncestor,
                                                     OCFile localFolder,
@@ -739,7 +810,11 @@ public class RefreshFolderOperation extends RemoteOperation {
         }
     }
 
-    private void setLocalFileDataOnUpdatedFile(OCFile remoteFile, OCFile localFile, OCFile updatedFile, boolean remoteFolderChanged) {
+    /**
+     * Copies the local state of a file into the instance that will be stored. Apart from the eTag, the remote values
+     * are taken from updatedFile itself, which has been filled from the server and not modified yet.
+     */
+    private void setLocalFileDataOnUpdatedFile(String remoteEtag, OCFile localFile, OCFile updatedFile, boolean remoteFolderChanged) {
         if (localFile != null) {
             updatedFile.setFileId(localFile.getFileId());
             updatedFile.setLastSyncDateForData(localFile.getLastSyncDateForData());
@@ -768,14 +843,11 @@ public class RefreshFolderOperation extends RemoteOperation {
 
             updatedFile.setEtag(localFile.getEtag());
 
-            if (updatedFile.isFolder()) {
-                updatedFile.setFileLength(remoteFile.getFileLength());
-                updatedFile.setMountType(remoteFile.getMountType());
-            } else if (remoteFolderChanged && MimeTypeUtil.isImage(remoteFile) &&
-                remoteFile.getModificationTimestamp() !=
+            if (!updatedFile.isFolder() && remoteFolderChanged && MimeTypeUtil.isImage(updatedFile) &&
+                updatedFile.getModificationTimestamp() !=
                     localFile.getModificationTimestamp()) {
                 updatedFile.setUpdateThumbnailNeeded(true);
-                Log_OC.d(TAG, "Image " + remoteFile.getFileName() + " updated on the server");
+                Log_OC.d(TAG, "Image " + updatedFile.getFileName() + " updated on the server");
             }
 
             updatedFile.setSharedViaLink(localFile.isSharedViaLink());
@@ -786,7 +858,7 @@ public class RefreshFolderOperation extends RemoteOperation {
         }
 
         // eTag on Server is used for thumbnail validation
-        updatedFile.setEtagOnServer(remoteFile.getEtag());
+        updatedFile.setEtagOnServer(remoteEtag);
     }
 
     @NonNull
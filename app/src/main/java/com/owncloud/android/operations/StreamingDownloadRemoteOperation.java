@@ -0,0 +1,384 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.operations;
+
+import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener;
+import com.owncloud.android.lib.common.network.WebdavUtils;
+import com.owncloud.android.lib.common.operations.OperationCancelledException;
+import com.owncloud.android.lib.common.operations.RemoteOperation;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult;
+import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.utils.GcmDecryptingOutputStream;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.GetMethod;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Downloads a file into a local file with large buffers, optionally decrypting end-to-end encrypted content while it
+ * is received, so the ciphertext is never stored.
+ * <p>
+ * The target file is a staging file: it is deleted if the download fails or the authentication tag of encrypted
+ * content does not match. Resumable downloads of plain content keep it instead, together with the ETag of the
+ * content, and the next download of the same target asks only for the missing bytes. Partial content is kept through
+ * any number of failed attempts, e.g. on a flaky connection, and only deleted when the download is cancelled or the
+ * content changed or is gone on the server.
+ */
+public class StreamingDownloadRemoteOperation extends RemoteOperation<Void> {
+    private static final String TAG = StreamingDownloadRemoteOperation.class.getSimpleName();
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String ETAG_FILE_SUFFIX = ".etag";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final String remotePath;
+    private final File targetFile;
+    private final File etagFile;
+    private final Set<OnDatatransferProgressListener> dataTransferListeners = new HashSet<>();
+    private final AtomicBoolean cancellationRequested = new AtomicBoolean(false);
+
+    private byte[] key;
+    private byte[] iv;
+    private byte[] authenticationTag;
+    private boolean resumable;
+    private long modificationTimestamp;
+    private String etag = "";
+    private GetMethod getMethod;
+
+    public StreamingDownloadRemoteOperation(String remotePath, File targetFile) {
+        this.remotePath = remotePath;
+        this.targetFile = targetFile;
+        this.etagFile = new File(targetFile.getPath() + ETAG_FILE_SUFFIX);
+    }
+
+    /**
+     * Decrypts the received AES/GCM content with the given file key and nonce.
+     */
+    public void setDecryption(byte[] key, byte[] iv) {
+        this.key = key;
+        this.iv = iv;
+    }
+
+    /**
+     * Keeps the received part of the content when the download breaks off, to be continued with a range
+     * request by the next download of the same target. Ignored for encrypted content, which is only authenticated
+     * once decrypted as a whole.
+     */
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+    private boolean isResumable() {
+        return resumable && key == null;
+    }
+
+    @Override
+    protected RemoteOperationResult<Void> run(OwnCloudClient client) {
+        RemoteOperationResult<Void> result;
+        long startTime = System.currentTimeMillis();
+        long transferred = 0;
+        long offset = 0;
+        // true while the target holds partial content matching the stored ETag
+        boolean keepPartial = false;
+
+        try {
+            String storedEtag = readStoredEtag();
+            if (storedEtag != null) {
+                offset = targetFile.length();
+                keepPartial = true;
+            }
+
+            int status = executeGet(client, offset, storedEtag);
+            if (offset > 0 && !canResume(status, offset, storedEtag) && !isTemporaryFailure(status)) {
+                // changed or gone on the server, the partial content is of no use anymore
+                Log_OC.d(TAG, "Cannot resume " + remotePath + " at " + offset + ", status " + status);
+                keepPartial = false;
+                offset = 0;
+                // a complete response already holds the whole current content
+                if (status != HttpStatus.SC_OK) {
+                    getMethod.abort();
+                    getMethod.releaseConnection();
+                    status = executeGet(client, 0, null);
+                }
+            } else if (offset > 0) {
+                Log_OC.d(TAG, "Resuming " + remotePath + " at " + offset);
+            }
+
+            if (status == HttpStatus.SC_OK || status == HttpStatus.SC_PARTIAL_CONTENT && offset > 0) {
+                readResponseHeaders(getMethod);
+                if (isResumable()) {
+                    storeEtag(getMethod);
+                }
+                // from here on the target holds the content of this response
+                keepPartial = isResumable();
+                transferred = receive(getMethod, status, offset);
+                result = new RemoteOperationResult<>(true, getMethod);
+            } else {
+                client.exhaustResponse(getMethod.getResponseBodyAsStream());
+                result = new RemoteOperationResult<>(false, getMethod);
+            }
+        } catch (Exception e) {
+            result = new RemoteOperationResult<>(e);
+        } finally {
+            if (getMethod != null) {
+                getMethod.releaseConnection();
+            }
+        }
+
+        if (result.isSuccess()) {
+            deleteEtagFile();
+        } else if (keepPartial && !cancellationRequested.get() && targetFile.length() > 0 && etagFile.exists()) {
+            Log_OC.d(TAG, "Keeping " + targetFile.length() + " bytes of " + remotePath + " to resume");
+        } else {
+            deleteTargetFile();
+            deleteEtagFile();
+        }
+
+        long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+        Log_OC.d(TAG, "Download of " + remotePath + (key != null ? " (decrypted)" : "") + ": " + transferred +
+            " bytes in " + elapsed + " ms, " + (transferred / elapsed) + " kB/s, " + result.getLogMessage());
+
+        return result;
+    }
+
+    /**
+     * @param offset     number of bytes already received, 0 to request the whole content
+     * @param storedEtag ETag of the received bytes, sent as If-Range so the server sends everything if it changed
+     */
+    private int executeGet(OwnCloudClient client, long offset, String storedEtag) throws IOException {
+        getMethod = new GetMethod(client.getFilesDavUri(remotePath));
+        if (offset > 0) {
+            getMethod.setRequestHeader("Range", "bytes=" + offset + "-");
+            // weak validators are not allowed in If-Range, the ETag of the response is compared instead
+            if (!storedEtag.startsWith(WEAK_ETAG_PREFIX)) {
+                getMethod.setRequestHeader("If-Range", storedEtag);
+            }
+        }
+        return client.executeMethod(getMethod);
+    }
+
+    /**
+     * @return true if the request may succeed when repeated later, e.g. on a server error, so the partial content is
+     * kept for the next attempt
+     */
+    private static boolean isTemporaryFailure(int status) {
+        return status >= HttpStatus.SC_INTERNAL_SERVER_ERROR ||
+            status == HttpStatus.SC_REQUEST_TIMEOUT ||
+            status == SC_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * @return true if the response holds the rest of the same content, starting at the given offset
+     */
+    private boolean canResume(int status, long offset, String storedEtag) {
+        if (status != HttpStatus.SC_PARTIAL_CONTENT) {
+            return false;
+        }
+
+        Header etagHeader = getMethod.getResponseHeader("ETag");
+        if (etagHeader == null || !normalizeEtag(etagHeader.getValue()).equals(normalizeEtag(storedEtag))) {
+            return false;
+        }
+
+        // Content-Range: bytes <first>-<last>/<length>
+        Header contentRange = getMethod.getResponseHeader("Content-Range");
+        if (contentRange == null) {
+            return false;
+        }
+        String value = contentRange.getValue().trim();
+        int start = value.indexOf(' ') + 1;
+        int end = value.indexOf('-', start);
+        if (start <= 0 || end < 0) {
+            return false;
+        }
+        try {
+            return Long.parseLong(value.substring(start, end).trim()) == offset;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String normalizeEtag(String value) {
+        String normalized = value.trim();
+        if (normalized.startsWith(WEAK_ETAG_PREFIX)) {
+            normalized = normalized.substring(WEAK_ETAG_PREFIX.length());
+        }
+        return normalized.replace("\"", "");
+    }
+
+    /**
+     * @return ETag of the partial content kept by an earlier download, null if there is nothing to resume
+     */
+    private String readStoredEtag() {
+        if (!isResumable() || !etagFile.exists() || targetFile.length() == 0) {
+            return null;
+        }
+
+        try {
+            String storedEtag = new String(Files.readAllBytes(etagFile.toPath()), StandardCharsets.UTF_8).trim();
+            return storedEtag.isEmpty() ? null : storedEtag;
+        } catch (IOException e) {
+            Log_OC.e(TAG, "Could not read " + etagFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the ETag of the content before it is received, so a broken download can be continued.
+     */
+    private void storeEtag(GetMethod method) throws IOException {
+        Header etagHeader = method.getResponseHeader("ETag");
+        if (etagHeader == null || etagHeader.getValue().isEmpty()) {
+            // without a validator, resuming could mix different versions of the file
+            deleteEtagFile();
+            return;
+        }
+
+        File parent = etagFile.getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        Files.write(etagFile.toPath(), etagHeader.getValue().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long receive(GetMethod method, int status, long offset) throws IOException, OperationCancelledException {
+        long contentLength = getContentLength(method);
+        long totalToTransfer = contentLength > 0 ? offset + contentLength : -1;
+        long transferred = 0;
+
+        File parent = targetFile.getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+
+        try (InputStream inputStream = method.getResponseBodyAsStream();
+             OutputStream outputStream = createOutputStream(offset > 0)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (cancellationRequested.get()) {
+                    method.abort();
+                    throw new OperationCancelledException();
+                }
+
+                outputStream.write(buffer, 0, read);
+                transferred += read;
+
+                synchronized (dataTransferListeners) {
+                    for (OnDatatransferProgressListener listener : dataTransferListeners) {
+                        listener.onTransferProgress(read, offset + transferred, totalToTransfer,
+                                                    targetFile.getName());
+                    }
+                }
+            }
+
+            if (contentLength > 0 && transferred != contentLength) {
+                throw new IOException("Received " + transferred + " of " + contentLength + " bytes, status " +
+                                          status);
+            }
+
+            // closing verifies the authentication tag of encrypted content
+            outputStream.close();
+            if (outputStream instanceof GcmDecryptingOutputStream decryptingOutputStream) {
+                authenticationTag = decryptingOutputStream.getAuthenticationTag();
+            }
+        }
+
+        return transferred;
+    }
+
+    private OutputStream createOutputStream(boolean append) throws IOException {
+        OutputStream outputStream = new FileOutputStream(targetFile, append);
+        return key == null ? outputStream : new GcmDecryptingOutputStream(outputStream, key, iv);
+    }
+
+    private long getContentLength(GetMethod method) {
+        Header contentLength = method.getResponseHeader("Content-Length");
+        if (contentLength == null || contentLength.getValue().isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(contentLength.getValue());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void readResponseHeaders(GetMethod method) {
+        Header lastModified = method.getResponseHeader("Last-Modified");
+        if (lastModified != null) {
+            Date date = WebdavUtils.parseResponseDate(lastModified.getValue());
+            modificationTimestamp = date != null ? date.getTime() : 0;
+        }
+
+        String responseEtag = WebdavUtils.getEtagFromResponse(method);
+        etag = responseEtag != null ? responseEtag : "";
+    }
+
+    private void deleteTargetFile() {
+        deleteFile(targetFile);
+    }
+
+    private void deleteEtagFile() {
+        deleteFile(etagFile);
+    }
+
+    /**
+     * Deletes the partial content kept by an earlier broken off download of the target file, e.g. once the user
+     * cancelled the download of the file.
+     */
+    public static void deletePartialContent(File targetFile) {
+        deleteFile(targetFile);
+        deleteFile(new File(targetFile.getPath() + ETAG_FILE_SUFFIX));
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            Log_OC.e(TAG, "Could not delete " + file.getAbsolutePath());
+        }
+    }
+
+    public void cancel() {
+        cancellationRequested.set(true);
+    }
+
+    public void addDatatransferProgressListener(OnDatatransferProgressListener listener) {
+        synchronized (dataTransferListeners) {
+            dataTransferListeners.add(listener);
+        }
+    }
+
+    /**
+     * @return the authentication tag found at the end of encrypted content, null for plain downloads
+     */
+    public byte[] getAuthenticationTag() {
+        return authenticationTag;
+    }
+
+    public long getModificationTimestamp() {
+        return modificationTimestamp;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -343,6 +343,16 @@ public class SynchronizeFileOperation extends SyncOperation {
         return mTransferWasRequested;
     }
 
+    /**
+     * @return size of the file as known before the synchronization, from the server if already read
+     */
+    public long getFileLength() {
+        if (mServerFile != null) {
+            return mServerFile.getFileLength();
+        }
+        return mLocalFile != null ? mLocalFile.getFileLength() : 0;
+    }
+
     public OCFile getLocalFile() {
         return mLocalFile;
     }
@@ -21,6 +21,7 @@ import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFolderMetadataFileV1;
 import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFolderMetadataFile;
 import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener;
 import com.owncloud.android.lib.common.operations.OperationCancelledException;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode;
@@ -41,6 +42,7 @@ import java.util.Optional;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import androidx.annotation.NonNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -88,6 +90,12 @@ public class SynchronizeFolderOperation extends SyncOperation {
 
     private final boolean syncInBackgroundWorker;
 
+    /** 'True' to request a new operation for every child folder, see {@link #setSynchronizeSubfolders(boolean)} */
+    private boolean mSynchronizeSubfolders = true;
+
+    /** 'True' if the caller already knows the folder changed on the server, see {@link #setKnownAsChanged()} */
+    private boolean mKnownAsChanged;
+
     /**
      * Creates a new instance of {@link SynchronizeFolderOperation}.
      *
@@ -132,7 +140,12 @@ public class SynchronizeFolderOperation extends SyncOperation {
                 return new RemoteOperationResult<>(ResultCode.FILE_NOT_FOUND);
             }
 
-            result = checkForChanges(client);
+            if (mKnownAsChanged) {
+                mRemoteFolderChanged = true;
+                result = new RemoteOperationResult<>(ResultCode.OK);
+            } else {
+                result = checkForChanges(client);
+            }
 
             if (result.isSuccess()) {
                 if (mRemoteFolderChanged) {
@@ -251,6 +264,7 @@ public class SynchronizeFolderOperation extends SyncOperation {
         OCFile remoteFolder = FileStorageUtils.fillOCFile((RemoteFile) folderAndFiles.get(0));
         remoteFolder.setParentId(mLocalFolder.getParentId());
         remoteFolder.setFileId(mLocalFolder.getFileId());
+        remoteFolder.setEtagOnServer(remoteFolder.getEtag());
 
         Log_OC.d(TAG, "Remote folder " + mLocalFolder.getRemotePath() + " changed - starting update of local data ");
 
@@ -347,6 +361,8 @@ public class SynchronizeFolderOperation extends SyncOperation {
 
     private void updateLocalStateData(OCFile remoteFile, OCFile localFile, OCFile updatedFile) {
         updatedFile.setLastSyncDateForProperties(System.currentTimeMillis());
+        // differs from the eTag of child folders until they are synchronized themselves
+        updatedFile.setEtagOnServer(remoteFile.getEtag());
         if (localFile != null) {
             updatedFile.setFileId(localFile.getFileId());
             updatedFile.setLastSyncDateForData(localFile.getLastSyncDateForData());
@@ -382,7 +398,9 @@ public class SynchronizeFolderOperation extends SyncOperation {
                 if (mCancellationRequested.get()) {
                     throw new OperationCancelledException();
                 }
-                startSyncFolderOperation(remoteFile.getRemotePath());
+                if (mSynchronizeSubfolders) {
+                    startSyncFolderOperation(remoteFile.getRemotePath());
+                }
             }
 
         } else {
@@ -437,7 +455,7 @@ public class SynchronizeFolderOperation extends SyncOperation {
      * @param client the OwnCloudClient instance used to execute remote operations.
      */
     private void updateETag(OwnCloudClient client) {
-        ReadFolderRemoteOperation operation = new ReadFolderRemoteOperation(mRemotePath);
+        ReadFileRemoteOperation operation = new ReadFileRemoteOperation(mRemotePath);
         final var result = operation.execute(client);
         if (!result.isSuccess()) {
             Log_OC.w(TAG, "Cannot update eTag, read folder operation is failed");
@@ -457,33 +475,24 @@ public class SynchronizeFolderOperation extends SyncOperation {
         final var fileDownloadHelper = FileDownloadHelper.Companion.instance();
         
         if (syncInBackgroundWorker) {
-            try {
-                for (OCFile file: mFilesForDirectDownload) {
-                    synchronized (mCancellationRequested) {
-                        if (mCancellationRequested.get()) {
-                            break;
-                        }
-                    }
-
-                    if (file == null) {
-                        continue;
-                    }
-
-                    final var operation = new DownloadFileOperation(user, file, mContext);
-                    var result = operation.execute(getClient());
-
-                    String filename = file.getFileName();
-                    if (filename == null) {
-                        continue;
-                    }
+            final List<ContentTransferExecutor.Transfer<RemoteOperationResult>> downloads = new ArrayList<>();
+            for (OCFile file : mFilesForDirectDownload) {
+                if (file != null && file.getFileName() != null) {
+                    downloads.add(new DirectDownload(new DownloadFileOperation(user, file, mContext), getClient()));
+                }
+            }
 
-                    if (result.isSuccess()) {
+            try {
+                newTransferExecutor().execute(downloads, (transfer, result) -> {
+                    final DownloadFileOperation operation = ((DirectDownload) transfer).operation;
+                    final OCFile file = operation.getFile();
+                    if (result != null && result.isSuccess()) {
                         fileDownloadHelper.saveFile(file, operation, getStorageManager());
                         Log_OC.d(TAG, "startDirectDownloads completed for: " + file.getFileName());
                     } else {
                         Log_OC.d(TAG, "startDirectDownloads failed for: " + file.getFileName());
                     }
-                }
+                });
             } catch (Exception e) {
                 Log_OC.d(TAG, "Exception caught at startDirectDownloads" + e);
             }
@@ -504,13 +513,15 @@ public class SynchronizeFolderOperation extends SyncOperation {
             throws OperationCancelledException {
 
         Log_OC.v(TAG, "Starting content synchronization... ");
-        RemoteOperationResult contentsResult;
-        for (SyncOperation op: filesToSyncContents) {
-            if (mCancellationRequested.get()) {
-                throw new OperationCancelledException();
-            }
-            contentsResult = op.execute(mContext);
-            if (!contentsResult.isSuccess()) {
+        final List<ContentTransferExecutor.Transfer<RemoteOperationResult>> synchronizations = new ArrayList<>();
+        for (SyncOperation op : filesToSyncContents) {
+            synchronizations.add(new ContentSynchronization(op, mContext));
+        }
+
+        boolean complete = newTransferExecutor().execute(synchronizations, (transfer, contentsResult) -> {
+            if (contentsResult == null) {
+                mFailsInFileSyncsFound++;
+            } else if (!contentsResult.isSuccess()) {
                 if (contentsResult.getCode() == ResultCode.SYNC_CONFLICT) {
                     mConflictsFound++;
                 } else {
@@ -525,7 +536,24 @@ public class SynchronizeFolderOperation extends SyncOperation {
                 }
                 // TODO - use the errors count in notifications
             }   // won't let these fails break the synchronization process
+        });
+
+        if (!complete) {
+            throw new OperationCancelledException();
+        }
+    }
+
+    /**
+     * Creates the executor running the content transfers of this folder, with the transfers of other folders of the
+     * same server counted against the same connection budget.
+     */
+    private ContentTransferExecutor newTransferExecutor() {
+        String host = user.getServer().getUri().getHost();
+        if (host == null) {
+            host = user.getAccountName();
         }
+
+        return new ContentTransferExecutor(host, mCancellationRequested::get);
     }
 
     /**
@@ -546,6 +574,22 @@ public class SynchronizeFolderOperation extends SyncOperation {
     }
 
 
+    /**
+     * Sets whether a new operation is requested for every child folder, which is the default. Callers walking the
+     * folder tree themselves disable it.
+     */
+    public void setSynchronizeSubfolders(boolean synchronizeSubfolders) {
+        mSynchronizeSubfolders = synchronizeSubfolders;
+    }
+
+    /**
+     * Skips the request checking the folder for changes, for callers that already know from the listing of the
+     * parent folder that its eTag changed on the server.
+     */
+    public void setKnownAsChanged() {
+        mKnownAsChanged = true;
+    }
+
     /**
      * Cancel operation
      */
@@ -580,4 +624,64 @@ public class SynchronizeFolderOperation extends SyncOperation {
     public String getRemotePath() {
         return mRemotePath;
     }
+
+    /**
+     * Download of a file missing locally, executed with the client of the folder synchronization.
+     */
+    private static class DirectDownload implements ContentTransferExecutor.Transfer<RemoteOperationResult> {
+        private final DownloadFileOperation operation;
+        private final OwnCloudClient client;
+
+        DirectDownload(DownloadFileOperation operation, OwnCloudClient client) {
+            this.operation = operation;
+            this.client = client;
+        }
+
+        @Override
+        public long getSize() {
+            return operation.getSize();
+        }
+
+        @Override
+        public RemoteOperationResult run(@NonNull OnDatatransferProgressListener progressListener) {
+            operation.addDownloadDataTransferProgressListener(progressListener);
+            return operation.execute(client);
+        }
+
+        @Override
+        public void cancel() {
+            operation.cancel();
+        }
+    }
+
+    /**
+     * Synchronization of the contents of a single file, which may download or upload it.
+     */
+    private static class ContentSynchronization implements ContentTransferExecutor.Transfer<RemoteOperationResult> {
+        private final SyncOperation operation;
+        private final Context context;
+
+        ContentSynchronization(SyncOperation operation, Context context) {
+            this.operation = operation;
+            this.context = context;
+        }
+
+        @Override
+        public long getSize() {
+            if (operation instanceof SynchronizeFileOperation synchronizeFileOperation) {
+                return synchronizeFileOperation.getFileLength();
+            }
+            return 0;
+        }
+
+        @Override
+        public RemoteOperationResult run(@NonNull OnDatatransferProgressListener progressListener) {
+            return operation.execute(context);
+        }
+
+        @Override
+        public void cancel() {
+            // file synchronizations cannot be interrupted, the executor only stops starting new ones
+        }
+    }
 }
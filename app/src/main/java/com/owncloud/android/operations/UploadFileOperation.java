@@ -535,10 +535,12 @@ public class UploadFileOperation extends SyncOperation {
             String expectedPath = FileStorageUtils.getDefaultSavePathFor(user.getAccountName(), mFile);
             e2eFiles.setExpectedFile(new File(expectedPath));
 
-            result = copyFile(e2eFiles.getOriginalFile(), expectedPath);
-            if (!result.isSuccess()) {
-                return result;
+            // no plain copy before encrypting, the encrypted temp file already is the snapshot being uploaded and
+            // the local copy is made after a successful upload, see handleLocalBehaviour
+            if (mCancellationRequested.get()) {
+                throw new OperationCancelledException();
             }
+            result = new RemoteOperationResult<>(ResultCode.OK);
 
             long lastModifiedTimestamp = e2eFiles.getOriginalFile().lastModified() / 1000;
             Long creationTimestamp = FileUtil.getCreationTimestamp(e2eFiles.getOriginalFile());
@@ -1095,8 +1097,7 @@ public class UploadFileOperation extends SyncOperation {
                 }
 
                 /**
-                 * Adds the onTransferProgress in FileUploadWorker
-                 * {@link FileUploadWorker#onTransferProgress(long, long, long, String)()}
+                 * Adds the progress listener registered by FileUploadWorker
                  */
                 for (OnDatatransferProgressListener mDataTransferListener : mDataTransferListeners) {
                     mUploadOperation.addDataTransferProgressListener(mDataTransferListener);
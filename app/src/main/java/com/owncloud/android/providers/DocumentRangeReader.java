@@ -0,0 +1,209 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.providers;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.ParcelFileDescriptor;
+import android.os.ProxyFileDescriptorCallback;
+import android.os.storage.StorageManager;
+import android.system.ErrnoException;
+import android.system.OsConstants;
+import android.text.TextUtils;
+
+import com.nextcloud.client.account.User;
+import com.nextcloud.client.utils.HashUtil;
+import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.utils.Log_OC;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.GetMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serves reads of a read-only document opened through {@link DocumentsStorageProvider} by requesting the needed byte
+ * ranges from the server, so apps can start reading, e.g. playing a video, without waiting for the whole file.
+ * <p>
+ * Received blocks are kept in a {@link SparseBlockFile} in the cache directory, keyed by account, path and ETag, so
+ * seeking back and opening the same version again do not request them again. Ranges are requested with
+ * {@code If-Range}, a file changed on the server meanwhile fails the read instead of mixing versions. Sequential reads
+ * request up to {@link #MAX_READ_AHEAD_BLOCKS} further blocks at once.
+ */
+final class DocumentRangeReader extends ProxyFileDescriptorCallback {
+    private static final String TAG = DocumentRangeReader.class.getSimpleName();
+    private static final String CACHE_DIRECTORY = "document_blocks";
+    private static final int BLOCK_SIZE = 256 * 1024;
+    private static final int MAX_READ_AHEAD_BLOCKS = 16;
+    private static final long MIN_STREAMING_SIZE = 4L * 1024 * 1024;
+    private static final long MAX_CACHE_SIZE = 1024L * 1024 * 1024;
+
+    private final OwnCloudClient client;
+    private final String remotePath;
+    private final String etag;
+    private final long length;
+    private final SparseBlockFile blocks;
+    private final HandlerThread thread;
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+
+    private int nextSequentialBlock;
+    private long requestCount;
+    private long receivedBytes;
+    private long readBytes;
+
+    private DocumentRangeReader(OwnCloudClient client, OCFile file, SparseBlockFile blocks, HandlerThread thread) {
+        this.client = client;
+        this.remotePath = file.getRemotePath();
+        this.etag = file.getEtag();
+        this.length = file.getFileLength();
+        this.blocks = blocks;
+        this.thread = thread;
+    }
+
+    /**
+     * @return true if the file can be read by ranges: it is not end-to-end encrypted, whose content can only be
+     * decrypted as a whole, large enough to be worth it and its version is known
+     */
+    static boolean canStream(OCFile file) {
+        return !file.isEncrypted() && file.getFileLength() >= MIN_STREAMING_SIZE && !TextUtils.isEmpty(file.getEtag());
+    }
+
+    /**
+     * @return a read-only descriptor whose reads are served by a new reader on a thread of its own
+     */
+    static ParcelFileDescriptor open(Context context, OwnCloudClient client, User user, OCFile file)
+        throws IOException {
+        File directory = new File(context.getCacheDir(), CACHE_DIRECTORY);
+        SparseBlockFile.trim(directory, MAX_CACHE_SIZE);
+
+        String name = HashUtil.md5Hash(user.getAccountName() + ":" + file.getRemotePath() + ":" + file.getEtag());
+        SparseBlockFile blocks = new SparseBlockFile(directory, name, file.getFileLength(), BLOCK_SIZE);
+        HandlerThread thread = new HandlerThread(TAG);
+        thread.start();
+
+        try {
+            StorageManager storageManager = context.getSystemService(StorageManager.class);
+            return storageManager.openProxyFileDescriptor(ParcelFileDescriptor.MODE_READ_ONLY,
+                                                          new DocumentRangeReader(client, file, blocks, thread),
+                                                          new Handler(thread.getLooper()));
+        } catch (IOException | RuntimeException e) {
+            blocks.close();
+            thread.quitSafely();
+            throw e;
+        }
+    }
+
+    @Override
+    public long onGetSize() {
+        return length;
+    }
+
+    @Override
+    public int onRead(long offset, int size, byte[] data) throws ErrnoException {
+        if (offset >= length) {
+            return 0;
+        }
+
+        int count = (int) Math.min(size, length - offset);
+        try {
+            int lastBlock = blocks.getBlockIndex(offset + count - 1);
+            for (int index = blocks.getBlockIndex(offset); index <= lastBlock; index++) {
+                if (!blocks.hasBlock(index)) {
+                    index = receiveBlocks(index, lastBlock);
+                }
+            }
+
+            readBytes += count;
+            return blocks.read(offset, data, count);
+        } catch (IOException e) {
+            Log_OC.e(TAG, "Could not read " + count + " bytes at " + offset + " of " + remotePath, e);
+            throw new ErrnoException("onRead", OsConstants.EIO);
+        }
+    }
+
+    @Override
+    public void onRelease() {
+        blocks.close();
+        thread.quitSafely();
+        Log_OC.d(TAG, "Read " + readBytes + " bytes of " + remotePath + ", received " + receivedBytes +
+            " bytes with " + requestCount + " range requests");
+    }
+
+    /**
+     * Requests the missing blocks starting at the given one, up to the next block that is already present or the last
+     * block needed, plus read-ahead if the reads are sequential.
+     *
+     * @return index of the last block received
+     */
+    private int receiveBlocks(int firstBlock, int lastNeededBlock) throws IOException {
+        int limit = lastNeededBlock;
+        if (firstBlock == nextSequentialBlock) {
+            limit = Math.min(lastNeededBlock + MAX_READ_AHEAD_BLOCKS, blocks.getBlockCount() - 1);
+        }
+
+        int lastBlock = firstBlock;
+        while (lastBlock < limit && !blocks.hasBlock(lastBlock + 1)) {
+            lastBlock++;
+        }
+
+        long start = blocks.getBlockOffset(firstBlock);
+        long end = Math.min(blocks.getBlockOffset(lastBlock + 1), length) - 1;
+        receiveRange(start, end);
+
+        nextSequentialBlock = lastBlock + 1;
+        return lastBlock;
+    }
+
+    private void receiveRange(long start, long end) throws IOException {
+        GetMethod method = new GetMethod(client.getFilesDavUri(remotePath));
+        method.addRequestHeader("Range", "bytes=" + start + "-" + end);
+        method.addRequestHeader("If-Range", "\"" + etag + "\"");
+        requestCount++;
+
+        try {
+            int status = client.executeMethod(method);
+            Header contentRange = method.getResponseHeader("Content-Range");
+
+            if (status != HttpStatus.SC_PARTIAL_CONTENT || contentRange == null ||
+                !contentRange.getValue().startsWith("bytes " + start + "-")) {
+                // a complete response means the file was changed or ranges are not supported
+                client.exhaustResponse(method.getResponseBodyAsStream());
+                throw new IOException("Range " + start + "-" + end + " was answered with status " + status);
+            }
+
+            long offset = start;
+            long expected = end - start + 1;
+            try (InputStream inputStream = method.getResponseBodyAsStream()) {
+                int filled = 0;
+                int read;
+                while (offset + filled <= end &&
+                    (read = inputStream.read(buffer, filled, (int) Math.min(BLOCK_SIZE - filled, expected))) != -1) {
+                    filled += read;
+                    expected -= read;
+
+                    if (filled == BLOCK_SIZE || expected == 0) {
+                        blocks.write(offset, buffer, filled);
+                        receivedBytes += filled;
+                        offset += filled;
+                        filled = 0;
+                    }
+                }
+            }
+
+            if (offset <= end) {
+                throw new IOException("Received " + (offset - start) + " bytes of range " + start + "-" + end);
+            }
+        } finally {
+            method.releaseConnection();
+        }
+    }
+}
@@ -69,9 +69,7 @@ import org.nextcloud.providers.cursors.RootCursor;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executor;
@@ -95,6 +93,7 @@ public class DocumentsStorageProvider extends DocumentsProvider {
     private static final String TAG = DocumentsStorageProvider.class.getSimpleName();
 
     private static final long CACHE_EXPIRATION = TimeUnit.MILLISECONDS.convert(1, TimeUnit.MINUTES);
+    private static final int MAX_SEARCH_RESULTS = 500;
 
     @Inject UserAccountManager accountManager;
 
@@ -212,6 +211,21 @@ public class DocumentsStorageProvider extends DocumentsProvider {
         User user = document.getUser();
 
         int accessMode = ParcelFileDescriptor.parseMode(mode);
+
+        // large files that are only read are served by ranges instead of being downloaded first, as long as the
+        // version known here is the current one
+        if (accessMode == MODE_READ_ONLY && !ocFile.existsOnDevice() && DocumentRangeReader.canStream(ocFile) &&
+            !hasServerChange(document)) {
+            try {
+                OwnCloudClient client = document.getClient();
+                if (client != null) {
+                    return DocumentRangeReader.open(context, client, user, ocFile);
+                }
+            } catch (IOException e) {
+                Log_OC.e(TAG, "Could not open " + ocFile.getFileName() + " for streaming, downloading it", e);
+            }
+        }
+
         boolean writeOnly = (accessMode & MODE_WRITE_ONLY) != 0;
         boolean needsDownload = !ocFile.existsOnDevice() || (!writeOnly && hasServerChange(document));
         if (needsDownload) {
@@ -498,8 +512,8 @@ public class DocumentsStorageProvider extends DocumentsProvider {
             return result;
         }
 
-        for (Document d : findFiles(new Document(storageManager, ROOT_PATH), query)) {
-            result.addFile(d);
+        for (OCFile file : storageManager.searchFilesByName(query, null, true, 0, MAX_SEARCH_RESULTS)) {
+            result.addFile(new Document(storageManager, file));
         }
 
         return result;
@@ -766,19 +780,6 @@ public class DocumentsStorageProvider extends DocumentsProvider {
         }
     }
 
-    private List<Document> findFiles(Document root, String query) {
-        FileDataStorageManager storageManager = root.getStorageManager();
-        List<Document> result = new ArrayList<>();
-        for (OCFile f : storageManager.getFolderContent(root.getFile(), false)) {
-            if (f.isFolder()) {
-                result.addAll(findFiles(new Document(storageManager, f), query));
-            } else if (f.getFileName().contains(query)) {
-                result.add(new Document(storageManager, f));
-            }
-        }
-        return result;
-    }
-
     private Uri toNotifyUri(Document document) {
         return DocumentsContract.buildDocumentUri(
             getContext().getString(R.string.document_provider_authority),
@@ -0,0 +1,182 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.providers;
+
+import com.owncloud.android.lib.common.utils.Log_OC;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local copy of a remote file of which only some blocks were received, e.g. the parts of a video a player read.
+ * <p>
+ * Blocks are written at their offset into a sparse file of the full length, a map of the complete blocks is kept next
+ * to it. The map is only written on {@link #close()}, so blocks written by an instance that did not close properly are
+ * just received again later.
+ */
+final class SparseBlockFile {
+    private static final String TAG = SparseBlockFile.class.getSimpleName();
+    private static final String DATA_SUFFIX = ".data";
+    private static final String MAP_SUFFIX = ".blocks";
+
+    // names of open files with the number of instances using them
+    private static final Map<String, Integer> openNames = new HashMap<>();
+
+    private final String name;
+    private final File dataFile;
+    private final File mapFile;
+    private final long length;
+    private final int blockSize;
+    private final BitSet blocks;
+    private final RandomAccessFile file;
+
+    SparseBlockFile(File directory, String name, long length, int blockSize) throws IOException {
+        this.name = name;
+        this.dataFile = new File(directory, name + DATA_SUFFIX);
+        this.mapFile = new File(directory, name + MAP_SUFFIX);
+        this.length = length;
+        this.blockSize = blockSize;
+
+        Files.createDirectories(directory.toPath());
+        synchronized (openNames) {
+            openNames.merge(name, 1, Integer::sum);
+        }
+
+        try {
+            BitSet savedBlocks = new BitSet();
+            if (dataFile.length() == length && mapFile.exists()) {
+                savedBlocks = BitSet.valueOf(Files.readAllBytes(mapFile.toPath()));
+            }
+            blocks = savedBlocks;
+
+            file = new RandomAccessFile(dataFile, "rw");
+            if (file.length() != length) {
+                file.setLength(length);
+            }
+        } catch (IOException e) {
+            release(name);
+            throw e;
+        }
+
+        // the least recently opened files are deleted first by trim()
+        if (!dataFile.setLastModified(System.currentTimeMillis())) {
+            Log_OC.w(TAG, "Could not touch " + dataFile.getName());
+        }
+    }
+
+    int getBlockCount() {
+        return (int) ((length + blockSize - 1) / blockSize);
+    }
+
+    int getBlockIndex(long offset) {
+        return (int) (offset / blockSize);
+    }
+
+    long getBlockOffset(int index) {
+        return (long) index * blockSize;
+    }
+
+    boolean hasBlock(int index) {
+        return blocks.get(index);
+    }
+
+    /**
+     * Writes received data starting at the given offset, which has to be the start of a block. Blocks are marked as
+     * complete once all their bytes, or all up to the end of the file, were written.
+     */
+    void write(long offset, byte[] data, int count) throws IOException {
+        if (offset % blockSize != 0) {
+            throw new IllegalArgumentException("Offset " + offset + " is not at a block start");
+        }
+
+        file.seek(offset);
+        file.write(data, 0, count);
+
+        long end = offset + count;
+        int completeBlocks = (int) ((end == length ? end + blockSize - 1 : end) / blockSize);
+        blocks.set(getBlockIndex(offset), completeBlocks);
+    }
+
+    int read(long offset, byte[] data, int count) throws IOException {
+        file.seek(offset);
+        int total = 0;
+        while (total < count) {
+            int read = file.read(data, total, count - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    void close() {
+        try {
+            file.close();
+            Files.write(mapFile.toPath(), blocks.toByteArray());
+        } catch (IOException e) {
+            Log_OC.e(TAG, "Could not save blocks of " + dataFile.getName(), e);
+            if (!mapFile.delete()) {
+                Log_OC.w(TAG, "Could not delete " + mapFile.getName());
+            }
+        } finally {
+            release(name);
+        }
+    }
+
+    private static void release(String name) {
+        synchronized (openNames) {
+            openNames.computeIfPresent(name, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Deletes the least recently used files of the directory until their total length is at most the given size.
+     * Files that are open are kept. Sparse files take up less space than their length, so this is an upper bound.
+     */
+    static void trim(File directory, long maxSize) {
+        File[] dataFiles = directory.listFiles((dir, fileName) -> fileName.endsWith(DATA_SUFFIX));
+        if (dataFiles == null) {
+            return;
+        }
+
+        long totalSize = 0;
+        for (File dataFile : dataFiles) {
+            totalSize += dataFile.length();
+        }
+
+        Arrays.sort(dataFiles, Comparator.comparingLong(File::lastModified));
+        for (File dataFile : dataFiles) {
+            if (totalSize <= maxSize) {
+                return;
+            }
+
+            String name = dataFile.getName().substring(0, dataFile.getName().length() - DATA_SUFFIX.length());
+            synchronized (openNames) {
+                if (openNames.containsKey(name)) {
+                    continue;
+                }
+
+                long size = dataFile.length();
+                File mapFile = new File(directory, name + MAP_SUFFIX);
+                if (mapFile.exists() && !mapFile.delete()) {
+                    continue;
+                }
+                if (dataFile.delete()) {
+                    totalSize -= size;
+                }
+            }
+        }
+    }
+}
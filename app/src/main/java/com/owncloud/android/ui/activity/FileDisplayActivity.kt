@@ -1904,7 +1904,7 @@ class FileDisplayActivity :
                 }
 
                 is WorkerState.FolderDownloadCompleted -> {
-                    ocFileListFragment?.adapter?.notifyItemChanged(state.folder)
+                    ocFileListFragment?.adapter?.notifySyncStateChanged(state.folder)
                 }
 
                 else -> Unit
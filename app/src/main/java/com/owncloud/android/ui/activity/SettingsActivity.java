@@ -61,6 +61,7 @@ import com.owncloud.android.authentication.AuthenticatorActivity;
 import com.owncloud.android.datamodel.ArbitraryDataProvider;
 import com.owncloud.android.datamodel.ArbitraryDataProviderImpl;
 import com.owncloud.android.datamodel.ExternalLinksProvider;
+import com.owncloud.android.datamodel.e2e.E2EMetadataCache;
 import com.owncloud.android.lib.common.ExternalLink;
 import com.owncloud.android.lib.common.ExternalLinkType;
 import com.owncloud.android.lib.common.utils.Log_OC;
@@ -546,6 +547,7 @@ public class SettingsActivity extends PreferenceActivity
             .setNegativeButton(R.string.common_cancel, ((dialog, i) -> dialog.dismiss()))
             .setPositiveButton(R.string.confirm_removal, (dialog, which) -> {
                 EncryptionUtils.removeE2E(arbitraryDataProvider, user);
+                E2EMetadataCache.getInstance(this).clear(user.getAccountName());
                 preferenceCategoryMore.removePreference(preference);
 
                 Preference pMnemonic = findPreference("mnemonic");
@@ -28,7 +28,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk cache for bitmaps.
+ * <p>
+ * Counts hits, misses, writes and removals for diagnostics. {@link DiskLruCache} does not report entries it evicts to
+ * stay below its maximum size, only removals requested by {@link #removeKey(String)} are counted.
+ */
 public class DiskLruImageCache {
 
     private DiskLruCache mDiskCache;
@@ -39,6 +47,12 @@ public class DiskLruImageCache {
     private static final int IO_BUFFER_SIZE = 8 * 1024;
     private static final String CACHE_TEST_DISK = "cache_test_DISK_";
 
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong removals = new AtomicLong();
+
     private static final String TAG = DiskLruImageCache.class.getSimpleName();
 
     public DiskLruImageCache(File diskCacheDir, int diskCacheSize, CompressFormat compressFormat, int quality)
@@ -65,18 +79,20 @@ public class DiskLruImageCache {
             }
 
             if (writeBitmapToFile(data, editor)) {
-                mDiskCache.flush();
                 editor.commit();
+                writes.incrementAndGet();
                 if (BuildConfig.DEBUG) {
                     Log_OC.d(CACHE_TEST_DISK, "image put on disk cache " + validKey);
                 }
             } else {
                 editor.abort();
+                failedWrites.incrementAndGet();
                 if (BuildConfig.DEBUG) {
                     Log_OC.d(CACHE_TEST_DISK, "ERROR on: image put on disk cache " + validKey);
                 }
             }
         } catch (IOException e) {
+            failedWrites.incrementAndGet();
             if (BuildConfig.DEBUG) {
                 Log_OC.d(CACHE_TEST_DISK, "ERROR on: image put on disk cache " + validKey);
             }
@@ -90,14 +106,46 @@ public class DiskLruImageCache {
         }
     }
 
+    /**
+     * @return counters of this cache, for logging and diagnostics
+     */
+    public String getStatistics() {
+        return String.format(Locale.US,
+                             "hits: %d, misses: %d, writes: %d, failed writes: %d, removals: %d, size: %d of %d bytes",
+                             hits.get(), misses.get(), writes.get(), failedWrites.get(), removals.get(),
+                             mDiskCache.size(), mDiskCache.getMaxSize());
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    public long getFailedWriteCount() {
+        return failedWrites.get();
+    }
+
+    public long getRemovalCount() {
+        return removals.get();
+    }
+
     public Bitmap getScaledBitmap(String key, int width, int height) {
         Bitmap bitmap = null;
         String validKey = convertToValidKey(key);
 
         try (DiskLruCache.Snapshot snapshot = mDiskCache.get(validKey)) {
             if (snapshot == null) {
+                misses.incrementAndGet();
                 return null;
             }
+            hits.incrementAndGet();
 
             InputStream inputStream = snapshot.getInputStream(0);
             if (inputStream != null) {
@@ -147,8 +195,10 @@ public class DiskLruImageCache {
         try {
             snapshot = mDiskCache.get(validKey);
             if (snapshot == null) {
+                misses.incrementAndGet();
                 return null;
             }
+            hits.incrementAndGet();
             in = snapshot.getInputStream(0);
             if (in != null) {
                 buffIn = new BufferedInputStream(in, IO_BUFFER_SIZE);
@@ -230,7 +280,9 @@ public class DiskLruImageCache {
     public void removeKey(String key) {
         String validKey = convertToValidKey(key);
         try {
-            mDiskCache.remove(validKey);
+            if (mDiskCache.remove(validKey)) {
+                removals.incrementAndGet();
+            }
             Log_OC.d(TAG, "removeKey from cache: " + validKey);
         } catch (IOException e) {
             Log_OC.d(TAG, e.getMessage(), e);
@@ -59,6 +59,8 @@ import com.owncloud.android.ui.activity.DrawerActivity;
 import com.owncloud.android.ui.activity.FileDisplayActivity;
 import com.owncloud.android.ui.adapter.helper.OCFileListAdapterDataProvider;
 import com.owncloud.android.ui.adapter.helper.OCFileListAdapterHelper;
+import com.owncloud.android.ui.adapter.helper.OCFileListDiffCallback;
+import com.owncloud.android.ui.adapter.helper.OCFileListItemState;
 import com.owncloud.android.ui.fragment.OCFileListFragment;
 import com.owncloud.android.ui.fragment.SearchType;
 import com.owncloud.android.ui.interfaces.OCFileListFragmentInterface;
@@ -73,8 +75,10 @@ import com.owncloud.android.utils.theme.ViewThemeUtils;
 import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -84,6 +88,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 import kotlin.Pair;
 import kotlin.Unit;
@@ -135,6 +140,32 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private RecommendedFilesAdapter recommendedFilesAdapter;
     private final OCFileListAdapterHelper helper = new OCFileListAdapterHelper();
 
+    // mFiles is replaced once the diff of submitted files is available, unless it was changed or others were submitted
+    private int filesVersion;
+    private int filesSubmission;
+
+    private final ListUpdateCallback listUpdateCallback = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position + getHeaderOffset(), count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position + getHeaderOffset(), count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition + getHeaderOffset(), toPosition + getHeaderOffset());
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            notifyItemRangeChanged(position + getHeaderOffset(), count, payload);
+        }
+    };
+
     public OCFileListAdapter(
         Activity activity,
         @NonNull User user,
@@ -223,74 +254,81 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         return position;
     }
 
-    @SuppressLint("NotifyDataSetChanged")
     public void setFavoriteAttributeForItemID(String remotePath, boolean favorite, boolean removeFromList) {
-        List<OCFile> filesToDelete = new ArrayList<>();
-        for (OCFile file : mFiles) {
-            if (file.getRemotePath().equals(remotePath)) {
-                file.setFavorite(favorite);
+        new Handler(Looper.getMainLooper()).post(() -> {
+            // taken before the files are changed in place, so the toggle is part of the diff
+            List<OCFileListItemState> oldStates = OCFileListItemState.of(mFiles);
+            List<OCFile> newFiles = new ArrayList<>(mFiles);
+            List<OCFile> filesToDelete = new ArrayList<>();
 
-                if (removeFromList) {
-                    filesToDelete.add(file);
-                }
+            for (OCFile file : newFiles) {
+                if (file.getRemotePath().equals(remotePath)) {
+                    file.setFavorite(favorite);
 
-                break;
+                    if (removeFromList) {
+                        filesToDelete.add(file);
+                    }
+
+                    break;
+                }
             }
-        }
 
-        for (OCFile file : mFilesAll) {
-            if (file.getRemotePath().equals(remotePath)) {
-                file.setFavorite(favorite);
+            for (OCFile file : mFilesAll) {
+                if (file.getRemotePath().equals(remotePath)) {
+                    file.setFavorite(favorite);
 
-                mStorageManager.saveFile(file);
+                    helper.runInBackground(() -> mStorageManager.saveFile(file));
 
-                if (removeFromList) {
-                    filesToDelete.add(file);
-                }
+                    if (removeFromList) {
+                        filesToDelete.add(file);
+                    }
 
-                break;
+                    break;
+                }
             }
-        }
 
-        FileSortOrder sortOrder = preferences.getSortOrderByFolder(currentDirectory);
-        if (searchType == SearchType.SHARED_FILTER) {
-            mFiles.sort((o1, o2) -> Long.compare(o2.getFirstShareTimestamp(), o1.getFirstShareTimestamp()));
-        } else {
-            boolean foldersBeforeFiles = preferences.isSortFoldersBeforeFiles();
-            boolean favoritesFirst = preferences.isSortFavoritesFirst();
-            mFiles = sortOrder.sortCloudFiles(mFiles, foldersBeforeFiles, favoritesFirst);
-        }
+            FileSortOrder sortOrder = preferences.getSortOrderByFolder(currentDirectory);
+            if (searchType == SearchType.SHARED_FILTER) {
+                newFiles.sort((o1, o2) -> Long.compare(o2.getFirstShareTimestamp(), o1.getFirstShareTimestamp()));
+            } else {
+                boolean foldersBeforeFiles = preferences.isSortFoldersBeforeFiles();
+                boolean favoritesFirst = preferences.isSortFavoritesFirst();
+                newFiles = sortOrder.sortCloudFiles(newFiles, foldersBeforeFiles, favoritesFirst);
+            }
 
-        new Handler(Looper.getMainLooper()).post(() -> {
-            mFiles.removeAll(filesToDelete);
-            notifyDataSetChanged();
+            newFiles.removeAll(filesToDelete);
+            submitFiles(oldStates, newFiles, false);
         });
     }
 
     public void refreshCommentsCount(String fileId) {
-        for (OCFile file : mFiles) {
-            if (file.getRemoteId().equals(fileId)) {
-                file.setUnreadCommentsCount(0);
-                break;
+        new Handler(Looper.getMainLooper()).post(() -> {
+            for (OCFile file : mFilesAll) {
+                if (fileId.equals(file.getRemoteId())) {
+                    file.setUnreadCommentsCount(0);
+                    break;
+                }
             }
-        }
 
-        for (OCFile file : mFilesAll) {
-            if (file.getRemoteId().equals(fileId)) {
-                file.setUnreadCommentsCount(0);
-                break;
+            for (int i = 0; i < mFiles.size(); i++) {
+                OCFile file = mFiles.get(i);
+                if (fileId.equals(file.getRemoteId())) {
+                    file.setUnreadCommentsCount(0);
+                    notifyItemChanged(i + getHeaderOffset(), OCFileListDiffCallback.PAYLOAD_UNREAD_COMMENTS);
+                    break;
+                }
             }
-        }
-
-        new Handler(Looper.getMainLooper()).post(this::notifyDataSetChanged);
+        });
     }
 
     public void setEncryptionAttributeForItemID(String fileId, boolean encrypted) {
+        OCFile changedFile = null;
         for (OCFile file : mFiles) {
             if (file.getRemoteId().equals(fileId)) {
                 file.setEncrypted(encrypted);
                 file.setE2eCounter(0L);
                 mStorageManager.saveFile(file);
+                changedFile = file;
 
                 break;
             }
@@ -303,7 +341,24 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             }
         }
 
-        new Handler(Looper.getMainLooper()).post(this::notifyDataSetChanged);
+        if (changedFile != null) {
+            final OCFile file = changedFile;
+            new Handler(Looper.getMainLooper()).post(() -> notifyItemChanged(file));
+        }
+    }
+
+    /**
+     * Rebinds only the download and synchronization state of a file, e.g. once a transfer finished.
+     */
+    public void notifySyncStateChanged(@NonNull OCFile file) {
+        int position = mFiles.indexOf(file);
+        if (position != -1) {
+            notifyItemChanged(position + getHeaderOffset(), OCFileListDiffCallback.PAYLOAD_SYNC_STATE);
+        }
+    }
+
+    private int getHeaderOffset() {
+        return shouldShowHeader() ? 1 : 0;
     }
 
     @Override
@@ -471,6 +526,47 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         }
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder,
+                                 int position,
+                                 @NonNull List<Object> payloads) {
+        OCFile file = holder instanceof ListViewHolder ? getItem(position) : null;
+
+        if (payloads.isEmpty() || file == null || !bindPayloads((ListViewHolder) holder, file, payloads)) {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    /**
+     * Rebinds only the parts of a row named by the payloads, leaving e.g. its thumbnail alone.
+     *
+     * @return false if a payload is unknown and the row has to be bound completely
+     */
+    private boolean bindPayloads(ListViewHolder holder, OCFile file, List<Object> payloads) {
+        List<Object> names = new ArrayList<>();
+        for (Object payload : payloads) {
+            if (payload instanceof Collection<?> collection) {
+                names.addAll(collection);
+            } else {
+                names.add(payload);
+            }
+        }
+
+        for (Object name : names) {
+            if (OCFileListDiffCallback.PAYLOAD_FAVORITE.equals(name)) {
+                ocFileListDelegate.bindFavorite(file, holder);
+            } else if (OCFileListDiffCallback.PAYLOAD_UNREAD_COMMENTS.equals(name)) {
+                ocFileListDelegate.bindUnreadComments(file, holder);
+            } else if (OCFileListDiffCallback.PAYLOAD_SYNC_STATE.equals(name)) {
+                ocFileListDelegate.bindSyncState(file, holder);
+            } else {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public void bindRecommendedFilesHolder(OCFileListRecommendedItemViewHolder holder, @NonNull OCFile file) {
         bindHolder(holder, holder, file);
     }
@@ -857,6 +953,7 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         });
     }
 
+    @SuppressLint("NotifyDataSetChanged")
     public void updateAdapter(List<OCFile> newFiles, OCFile directory) {
         boolean hasSameContent = OCFileExtensionsKt.hasSameContentAs(mFiles, newFiles);
 
@@ -867,9 +964,14 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
         Log_OC.d(TAG, "updating the adapter");
 
-        mFiles = new ArrayList<>(newFiles);
+        // other folders and search results replace the list as a whole
+        boolean sameList = searchType == null && directory != null && currentDirectory != null &&
+            directory.getFileId() == currentDirectory.getFileId();
+
+        List<OCFileListItemState> oldStates = sameList ? OCFileListItemState.of(mFiles) : null;
+
         mFilesAll.clear();
-        mFilesAll.addAll(mFiles);
+        mFilesAll.addAll(newFiles);
 
         if (directory != null) {
             currentDirectory = directory;
@@ -877,7 +979,80 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
         searchType = null;
 
-        activity.runOnUiThread(this::notifyDataSetChanged);
+        if (sameList) {
+            submitFiles(oldStates, new ArrayList<>(newFiles), false);
+        } else {
+            filesSubmission++;
+            replaceFiles(new ArrayList<>(newFiles));
+            activity.runOnUiThread(this::notifyDataSetChanged);
+        }
+    }
+
+    /**
+     * Replaces the shown files and dispatches only the changes between both lists, so unchanged rows keep their views
+     * and thumbnails. The diff is calculated in the background; the files are replaced once it is available, unless
+     * newer files were submitted meanwhile. If the list was changed otherwise in the meantime, all rows are rebound.
+     *
+     * @param oldStates snapshot of the shown files, taken before any of them was changed in place
+     * @param reordered whether all rows may have moved, such diffs are skipped for long lists
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    private void submitFiles(List<OCFileListItemState> oldStates, List<OCFile> newFiles, boolean reordered) {
+        List<OCFileListItemState> newStates = OCFileListItemState.of(newFiles);
+        int submission = ++filesSubmission;
+        int version = filesVersion;
+        boolean showsHeader = shouldShowHeader();
+
+        if (estimateChanges(oldStates, newStates, reordered) > OCFileListDiffCallback.MAX_DIFF_CHANGES) {
+            replaceFiles(newFiles);
+            notifyDataSetChanged();
+            return;
+        }
+
+        helper.calculateDiff(oldStates, newStates, true, diffResult -> {
+            if (submission != filesSubmission) {
+                return Unit.INSTANCE;
+            }
+
+            boolean unchanged = version == filesVersion && showsHeader == shouldShowHeader();
+            replaceFiles(newFiles);
+
+            if (unchanged) {
+                diffResult.dispatchUpdatesTo(listUpdateCallback);
+                // file and folder counts
+                notifyItemChanged(getItemCount() - 1);
+            } else {
+                notifyDataSetChanged();
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    private int estimateChanges(List<OCFileListItemState> oldStates,
+                                List<OCFileListItemState> newStates,
+                                boolean reordered) {
+        if (reordered) {
+            return Math.max(oldStates.size(), newStates.size());
+        }
+
+        HashSet<Long> oldIds = new HashSet<>();
+        for (OCFileListItemState state : oldStates) {
+            oldIds.add(state.getFileId());
+        }
+
+        int changes = 0;
+        for (OCFileListItemState state : newStates) {
+            if (!oldIds.remove(state.getFileId())) {
+                changes++;
+            }
+        }
+
+        return changes + oldIds.size();
+    }
+
+    private void replaceFiles(List<OCFile> files) {
+        mFiles = files;
+        filesVersion++;
     }
 
     public void prepareForSearchData(FileDataStorageManager storageManager, SearchType searchType) {
@@ -916,7 +1091,6 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         sortOrder = newSortOrder;
     }
 
-    @SuppressLint("NotifyDataSetChanged")
     public void setSortOrder(@Nullable OCFile folder, @NonNull FileSortOrder sortOrder) {
         if (searchType == SearchType.FAVORITE_SEARCH) {
             preferences.setSortOrder(FileSortOrder.Type.favoritesListView, sortOrder);    
@@ -926,8 +1100,11 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
         boolean foldersBeforeFiles = preferences.isSortFoldersBeforeFiles();
         boolean favoritesFirst = preferences.isSortFavoritesFirst();
-        mFiles = sortOrder.sortCloudFiles(mFiles, foldersBeforeFiles, favoritesFirst);
-        notifyDataSetChanged();
+        List<OCFileListItemState> oldStates = OCFileListItemState.of(mFiles);
+        List<OCFile> sortedFiles = sortOrder.sortCloudFiles(new ArrayList<>(mFiles),
+                                                            foldersBeforeFiles,
+                                                            favoritesFirst);
+        submitFiles(oldStates, sortedFiles, true);
 
         this.sortOrder = sortOrder;
     }
@@ -945,7 +1122,7 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     }
 
     public void setFiles(List<OCFile> files) {
-        mFiles = files;
+        replaceFiles(files);
     }
 
     public List<OCFile> getFiles() {
@@ -955,6 +1132,7 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     public void addVirtualFile(@NonNull OCFile file) {
         if (mFiles.isEmpty() || !mFiles.contains(file)) {
             mFiles.add(file);
+            filesVersion++;
         }
     }
 
@@ -1057,7 +1235,9 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     @SuppressLint("NotifyDataSetChanged")
     public void removeAllFiles() {
+        filesSubmission++;
         mFiles.clear();
+        filesVersion++;
         mFilesAll.clear();
         notifyDataSetChanged();
     }
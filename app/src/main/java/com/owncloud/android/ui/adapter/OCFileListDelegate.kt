@@ -244,7 +244,7 @@ class OCFileListDelegate(
         }
     }
 
-    private fun bindUnreadComments(file: OCFile, gridViewHolder: ListViewHolder) {
+    fun bindUnreadComments(file: OCFile, gridViewHolder: ListViewHolder) {
         if (file.unreadCommentsCount > 0) {
             gridViewHolder.unreadComments.visibility = View.VISIBLE
             gridViewHolder.unreadComments.setOnClickListener {
@@ -314,15 +314,25 @@ class OCFileListDelegate(
     }
 
     private fun bindGridMetadataViews(file: OCFile, gridViewHolder: ListViewHolder) {
+        bindSyncState(file, gridViewHolder)
+        bindFavorite(file, gridViewHolder)
+    }
+
+    /**
+     * Binds the download and synchronization state only, e.g. while a transfer is in progress.
+     */
+    fun bindSyncState(file: OCFile, gridViewHolder: ListViewHolder) {
         if (showMetadata) {
             showLocalFileIndicator(file, gridViewHolder)
-            gridViewHolder.favorite.visibility = if (file.isFavorite) View.VISIBLE else View.GONE
         } else {
             gridViewHolder.localFileIndicator.visibility = View.GONE
-            gridViewHolder.favorite.visibility = View.GONE
         }
     }
 
+    fun bindFavorite(file: OCFile, gridViewHolder: ListViewHolder) {
+        gridViewHolder.favorite.visibility = if (showMetadata && file.isFavorite) View.VISIBLE else View.GONE
+    }
+
     private suspend fun isFolderFullyDownloaded(file: OCFile): Boolean = withContext(Dispatchers.IO) {
         file.isFolder &&
             storageManager.getSubfiles(file.fileId, user.accountName)
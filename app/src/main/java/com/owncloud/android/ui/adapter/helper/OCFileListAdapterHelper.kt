@@ -7,6 +7,8 @@
 
 package com.owncloud.android.ui.adapter.helper
 
+import androidx.annotation.VisibleForTesting
+import androidx.recyclerview.widget.DiffUtil
 import com.nextcloud.client.database.entity.FileEntity
 import com.nextcloud.client.preferences.AppPreferences
 import com.nextcloud.utils.extensions.filterFilenames
@@ -25,6 +27,7 @@ import kotlinx.coroutines.withContext
 class OCFileListAdapterHelper {
     private val scope = CoroutineScope(Dispatchers.IO + SupervisorJob())
     private var job: Job? = null
+    private var diffJob: Job? = null
 
     @Suppress("LongParameterList")
     fun prepareFileList(
@@ -66,14 +69,10 @@ class OCFileListAdapterHelper {
         val hasMimeTypeFilter = limitToMimeType.isNotEmpty()
         val isRootAndPersonalOnly = (OCFile.ROOT_PATH == directory.remotePath && MainApp.isOnlyPersonFiles())
 
-        val rawResult = getFolderContent(directory, dataProvider, onlyOnDevice)
+        val rawResult = getFolderContent(directory, dataProvider, onlyOnDevice, showHiddenFiles)
         val filtered = ArrayList<OCFile>(rawResult.size)
 
         for (file in rawResult) {
-            if (!showHiddenFiles && file.isHidden) {
-                continue
-            }
-
             if (hasMimeTypeFilter && !(file.isFolder || file.mimeType.startsWith(limitToMimeType))) {
                 continue
             }
@@ -97,56 +96,68 @@ class OCFileListAdapterHelper {
 
         val afterFilenameFilter = filtered.filterFilenames()
         val merged = mergeOCFilesForLivePhoto(afterFilenameFilter)
-        val finalList = addOfflineOperations(merged, directory.fileId, dataProvider)
+        val finalList = addOfflineOperations(merged, dataProvider.convertToOCFiles(directory.fileId))
         return sortData(directory, finalList, preferences)
     }
 
-    private fun addOfflineOperations(
-        files: List<OCFile>,
-        fileId: Long,
-        dataProvider: OCFileListAdapterDataProvider
-    ): List<OCFile> {
-        val offlineOperations = dataProvider.convertToOCFiles(fileId)
+    /**
+     * Appends the files of pending offline operations that are not listed yet, matched by their decrypted path.
+     */
+    @VisibleForTesting
+    internal fun addOfflineOperations(files: List<OCFile>, offlineOperations: List<OCFile>): List<OCFile> {
         if (offlineOperations.isEmpty()) return files
 
-        val newFiles = offlineOperations.filter { offlineFile ->
-            files.none { it.decryptedRemotePath == offlineFile.decryptedRemotePath }
-        }
+        val listedPaths = files.mapTo(HashSet(files.size)) { it.decryptedRemotePath }
+        val newFiles = offlineOperations.filter { it.decryptedRemotePath !in listedPaths }
 
         return files + newFiles
     }
 
-    @Suppress("NestedBlockDepth")
-    private fun mergeOCFilesForLivePhoto(files: List<OCFile>): List<OCFile> {
+    /**
+     * Attaches the video of a live photo to its image and removes the video from the list. A file is the counterpart
+     * of an earlier file in the list if it links to the local id of that one.
+     */
+    @VisibleForTesting
+    internal fun mergeOCFilesForLivePhoto(files: List<OCFile>): List<OCFile> {
+        // local ids can repeat, files sharing one are chained in list order
+        val firstByLocalId = HashMap<String, Int>(files.size * 2)
+        val nextWithSameLocalId = IntArray(files.size) { -1 }
+        for (i in files.indices.reversed()) {
+            firstByLocalId.put(files[i].localId.toString(), i)?.let { nextWithSameLocalId[i] = it }
+        }
+
         val filesToRemove = mutableSetOf<OCFile>()
 
-        for (i in files.indices) {
-            val file = files[i]
-
-            for (j in i + 1 until files.size) {
-                val nextFile = files[j]
-                val fileLocalId = file.localId.toString()
-                val nextFileLinkedLocalId = nextFile.linkedFileIdForLivePhoto
-
-                if (fileLocalId == nextFileLinkedLocalId) {
-                    when {
-                        MimeTypeUtil.isVideo(file.mimeType) -> {
-                            nextFile.livePhotoVideo = file
-                            filesToRemove.add(file)
-                        }
-
-                        MimeTypeUtil.isVideo(nextFile.mimeType) -> {
-                            file.livePhotoVideo = nextFile
-                            filesToRemove.add(nextFile)
-                        }
-                    }
-                }
+        for (j in files.indices) {
+            val nextFile = files[j]
+            val nextFileLinkedLocalId = nextFile.linkedFileIdForLivePhoto ?: continue
+            var i = firstByLocalId[nextFileLinkedLocalId] ?: continue
+
+            while (i != -1 && i < j) {
+                mergeLivePhoto(files[i], nextFile, filesToRemove)
+                i = nextWithSameLocalId[i]
             }
         }
 
+        if (filesToRemove.isEmpty()) return files
+
         return files.filter { it !in filesToRemove }
     }
 
+    private fun mergeLivePhoto(file: OCFile, nextFile: OCFile, filesToRemove: MutableSet<OCFile>) {
+        when {
+            MimeTypeUtil.isVideo(file.mimeType) -> {
+                nextFile.livePhotoVideo = file
+                filesToRemove.add(file)
+            }
+
+            MimeTypeUtil.isVideo(nextFile.mimeType) -> {
+                file.livePhotoVideo = nextFile
+                filesToRemove.add(nextFile)
+            }
+        }
+    }
+
     private suspend fun sortData(
         directory: OCFile,
         files: List<OCFile>,
@@ -164,7 +175,8 @@ class OCFileListAdapterHelper {
     private suspend fun getFolderContent(
         ocFile: OCFile,
         dataProvider: OCFileListAdapterDataProvider,
-        onlyOnDevice: Boolean
+        onlyOnDevice: Boolean,
+        showHiddenFiles: Boolean
     ): List<OCFile> = withContext(Dispatchers.IO) {
         if (!ocFile.isFolder || !ocFile.fileExists()) {
             return@withContext emptyList()
@@ -174,7 +186,10 @@ class OCFileListAdapterHelper {
 
         return@withContext fileEntities.mapNotNull { fileEntity ->
             val file = dataProvider.createFileInstance(fileEntity)
-            if (!onlyOnDevice || file.existsOnDevice()) {
+            // hidden by a leading dot, checked before anything that touches deferred columns or the disk
+            if (!showHiddenFiles && file.isHidden) {
+                null
+            } else if (!onlyOnDevice || file.existsOnDevice()) {
                 file
             } else {
                 null
@@ -182,8 +197,39 @@ class OCFileListAdapterHelper {
         }
     }
 
+    /**
+     * Calculates the changes between two snapshots of the list in the background and hands them to [onComplete] on
+     * the main thread. A pending calculation is cancelled by the next one, as its result would be outdated.
+     */
+    fun calculateDiff(
+        oldItems: List<OCFileListItemState>,
+        newItems: List<OCFileListItemState>,
+        detectMoves: Boolean,
+        onComplete: (DiffUtil.DiffResult) -> Unit
+    ) {
+        diffJob?.cancel()
+
+        diffJob = scope.launch(Dispatchers.Default) {
+            val diffResult = DiffUtil.calculateDiff(OCFileListDiffCallback(oldItems, newItems), detectMoves)
+            withContext(Dispatchers.Main) {
+                onComplete(diffResult)
+            }
+        }
+    }
+
+    /**
+     * Runs database work of the list, e.g. persisting a toggled attribute, off the main thread.
+     */
+    fun runInBackground(task: Runnable) {
+        scope.launch {
+            task.run()
+        }
+    }
+
     fun cleanup() {
         job?.cancel()
         job = null
+        diffJob?.cancel()
+        diffJob = null
     }
 }
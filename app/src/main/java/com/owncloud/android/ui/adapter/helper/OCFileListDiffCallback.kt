@@ -0,0 +1,107 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.ui.adapter.helper
+
+import androidx.recyclerview.widget.DiffUtil
+import com.owncloud.android.datamodel.OCFile
+import java.util.Objects
+
+/**
+ * What a row of the file list shows for a file, taken when a list is handed to the adapter.
+ *
+ * Files are updated in place by the adapter, e.g. when toggling favorites, so old and new lists are compared on these
+ * snapshots rather than on the files. Values that can be rebound on their own are kept apart from [contentHash], which
+ * covers everything else a row shows.
+ */
+data class OCFileListItemState(
+    val fileId: Long,
+    val favorite: Boolean,
+    val unreadCommentsCount: Int,
+    val contentHash: Int
+) {
+    companion object {
+        @JvmStatic
+        fun of(file: OCFile): OCFileListItemState = OCFileListItemState(
+            file.fileId,
+            file.isFavorite,
+            file.unreadCommentsCount,
+            Objects.hash(
+                file.remotePath,
+                file.fileName,
+                file.mimeType,
+                file.etag,
+                file.etagInConflict,
+                file.modificationTimestamp,
+                file.fileLength,
+                // the local folder of folders is looked up lazily, their download state is bound asynchronously
+                if (file.isFolder) null else file.storagePath,
+                file.isSharedViaLink,
+                file.isSharedWithSharee,
+                file.isSharedWithMe,
+                file.isEncrypted,
+                file.isLocked,
+                file.isHidden,
+                file.isOfflineOperation,
+                file.linkedFileIdForLivePhoto,
+                file.firstShareTimestamp
+            )
+        )
+
+        @JvmStatic
+        fun of(files: List<OCFile>): List<OCFileListItemState> = files.map { of(it) }
+    }
+}
+
+/**
+ * Compares two lists of [OCFileListItemState] by file id. Rows whose [OCFileListItemState.contentHash] is unchanged
+ * are only partially rebound with the payloads of the values that changed.
+ */
+class OCFileListDiffCallback(
+    private val oldItems: List<OCFileListItemState>,
+    private val newItems: List<OCFileListItemState>
+) : DiffUtil.Callback() {
+
+    override fun getOldListSize(): Int = oldItems.size
+
+    override fun getNewListSize(): Int = newItems.size
+
+    override fun areItemsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean =
+        oldItems[oldItemPosition].fileId == newItems[newItemPosition].fileId
+
+    override fun areContentsTheSame(oldItemPosition: Int, newItemPosition: Int): Boolean =
+        oldItems[oldItemPosition] == newItems[newItemPosition]
+
+    override fun getChangePayload(oldItemPosition: Int, newItemPosition: Int): Any? {
+        val oldItem = oldItems[oldItemPosition]
+        val newItem = newItems[newItemPosition]
+
+        if (oldItem.contentHash != newItem.contentHash) {
+            return null
+        }
+
+        val payloads = mutableListOf<String>()
+        if (oldItem.favorite != newItem.favorite) {
+            payloads.add(PAYLOAD_FAVORITE)
+        }
+        if (oldItem.unreadCommentsCount != newItem.unreadCommentsCount) {
+            payloads.add(PAYLOAD_UNREAD_COMMENTS)
+        }
+        return payloads
+    }
+
+    companion object {
+        const val PAYLOAD_FAVORITE = "favorite"
+        const val PAYLOAD_UNREAD_COMMENTS = "unreadComments"
+        const val PAYLOAD_SYNC_STATE = "syncState"
+
+        /**
+         * Diffs with more changes than this are not calculated, e.g. when a long list is sorted differently, since
+         * their time grows with the square of the number of changes. All rows are rebound instead.
+         */
+        const val MAX_DIFF_CHANGES = 2000
+    }
+}
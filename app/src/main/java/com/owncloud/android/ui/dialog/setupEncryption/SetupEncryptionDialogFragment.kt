@@ -436,20 +436,13 @@ class SetupEncryptionDialogFragment :
                 val storePrivateKeyResult = storePrivateKeyOperation.executeNextcloudClient(user, context)
                 if (storePrivateKeyResult.isSuccess) {
                     Log_OC.d(TAG, "private key success")
-                    arbitraryDataProvider?.storeOrUpdateKeyValue(
+                    arbitraryDataProvider?.storeOrUpdateKeyValues(
                         user.accountName,
-                        EncryptionUtils.PRIVATE_KEY,
-                        privateKeyString
-                    )
-                    arbitraryDataProvider?.storeOrUpdateKeyValue(
-                        user.accountName,
-                        EncryptionUtils.PUBLIC_KEY,
-                        publicKeyString
-                    )
-                    arbitraryDataProvider?.storeOrUpdateKeyValue(
-                        user.accountName,
-                        EncryptionUtils.MNEMONIC,
-                        generateMnemonicString(true)
+                        mapOf(
+                            EncryptionUtils.PRIVATE_KEY to privateKeyString,
+                            EncryptionUtils.PUBLIC_KEY to publicKeyString,
+                            EncryptionUtils.MNEMONIC to generateMnemonicString(true)
+                        )
                     )
                     keyResult = KEY_CREATED
 
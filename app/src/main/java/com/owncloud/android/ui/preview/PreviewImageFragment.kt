@@ -58,6 +58,7 @@ import com.owncloud.android.datamodel.OCFile
 import com.owncloud.android.datamodel.ThumbnailsCacheManager
 import com.owncloud.android.datamodel.ThumbnailsCacheManager.AsyncResizedImageDrawable
 import com.owncloud.android.datamodel.ThumbnailsCacheManager.ResizedImageGenerationTask
+import com.owncloud.android.datamodel.ThumbnailsMemoryCache
 import com.owncloud.android.lib.common.utils.Log_OC
 import com.owncloud.android.ui.activity.FileActivity
 import com.owncloud.android.ui.dialog.ConfirmationDialogFragment
@@ -97,6 +98,9 @@ class PreviewImageFragment :
     private var showResizedImage: Boolean? = null
     private var bitmap: Bitmap? = null
 
+    /** False while [bitmap] is a thumbnail shared by [ThumbnailsMemoryCache], which must not be recycled */
+    private var ownsBitmap = false
+
     private var ignoreFirstSavedState = false
     private var loadBitmapTask: LoadBitmapTask? = null
 
@@ -247,6 +251,7 @@ class PreviewImageFragment :
             binding.shimmerThumbnail.setImageBitmap(thumbnail)
             binding.image.visibility = View.GONE
             bitmap = thumbnail
+            ownsBitmap = false
         } else {
             thumbnail = ThumbnailsCacheManager.mDefaultImg
         }
@@ -272,7 +277,9 @@ class PreviewImageFragment :
             binding.emptyListProgress.visibility = View.GONE
             binding.image.setBackgroundColor(resources.getColor(R.color.background_color_inverse))
 
+            // scaled from the disk cache for this fragment only
             bitmap = resizedImage
+            ownsBitmap = true
         } else {
             // generate new resized image
             if (ThumbnailsCacheManager.cancelPotentialThumbnailWork(file, binding.image) &&
@@ -440,7 +447,9 @@ class PreviewImageFragment :
 
     @SuppressFBWarnings("Dm")
     override fun onDestroy() {
-        bitmap?.recycle()
+        if (ownsBitmap) {
+            bitmap?.recycle()
+        }
         super.onDestroy()
     }
 
@@ -604,6 +613,7 @@ class PreviewImageFragment :
                 }
 
                 this@PreviewImageFragment.bitmap = bitmap // needs to be kept for recycling when not useful
+                ownsBitmap = true
             } else {
                 if (drawable != null &&
                     MIME_TYPE_SVG.equals(result.ocFile.mimeType, ignoreCase = true)
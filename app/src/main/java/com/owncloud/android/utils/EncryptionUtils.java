@@ -64,8 +64,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -95,7 +97,6 @@ import java.util.UUID;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.KeyGenerator;
 import javax.crypto.NoSuchPaddingException;
@@ -123,6 +124,7 @@ public final class EncryptionUtils {
 
     private static final char HASH_DELIMITER = '$';
     private static final String AES_CIPHER = "AES/GCM/NoPadding";
+    private static final int CIPHER_BUFFER_SIZE = 256 * 1024;
     private static final String AES = "AES";
     public static final String RSA_CIPHER = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
     public static final String RSA = "RSA";
@@ -507,7 +509,17 @@ public final class EncryptionUtils {
     public static EncryptedFile encryptFile(String accountName, File file, Cipher cipher) throws InvalidParameterSpecException, IOException {
         File tempEncryptedFolder = FileDataStorageManager.createTempEncryptedFolder(accountName);
         File tempEncryptedFile = File.createTempFile(file.getName(), null, tempEncryptedFolder);
-        encryptFileWithGivenCipher(file, tempEncryptedFile, cipher);
+
+        try (FileInputStream inputStream = new FileInputStream(file);
+             FileOutputStream outputStream = new FileOutputStream(tempEncryptedFile)) {
+            encryptStream(inputStream, outputStream, cipher);
+        } catch (IOException | GeneralSecurityException e) {
+            if (!tempEncryptedFile.delete()) {
+                Log_OC.w(TAG, "Could not delete encrypted temp file " + tempEncryptedFile.getAbsolutePath());
+            }
+            throw new IOException("Encryption of " + file.getName() + " failed", e);
+        }
+
         String authenticationTagString = getAuthenticationTag(cipher);
         return new EncryptedFile(tempEncryptedFile, authenticationTagString);
     }
@@ -527,24 +539,37 @@ public final class EncryptionUtils {
 
     public static void encryptFileWithGivenCipher(File inputFile, File encryptedFile, Cipher cipher) {
         try (FileInputStream inputStream = new FileInputStream(inputFile);
-             FileOutputStream fileOutputStream = new FileOutputStream(encryptedFile);
-             CipherOutputStream outputStream = new CipherOutputStream(fileOutputStream, cipher)) {
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
-
-            outputStream.close();
-            inputStream.close();
+             FileOutputStream outputStream = new FileOutputStream(encryptedFile)) {
+            encryptStream(inputStream, outputStream, cipher);
 
             Log_OC.d(TAG, encryptedFile.getName() + "encrypted successfully");
-        } catch (IOException exception) {
+        } catch (IOException | GeneralSecurityException exception) {
             Log_OC.d(TAG, "Error caught at encryptFileWithGivenCipher(): " + exception.getLocalizedMessage());
         }
     }
 
+    /**
+     * Encrypts the input in a single pass, reusing one input and one output buffer of {@link #CIPHER_BUFFER_SIZE}. The
+     * GCM authentication tag is appended to the output by the final block.
+     */
+    private static void encryptStream(InputStream inputStream, OutputStream outputStream, Cipher cipher)
+        throws IOException, GeneralSecurityException {
+        byte[] buffer = new byte[CIPHER_BUFFER_SIZE];
+        byte[] output = new byte[cipher.getOutputSize(CIPHER_BUFFER_SIZE)];
+        int bytesRead;
+
+        while ((bytesRead = inputStream.read(buffer)) != -1) {
+            int outputSize = cipher.getOutputSize(bytesRead);
+            if (outputSize > output.length) {
+                output = new byte[outputSize];
+            }
+            int outputLength = cipher.update(buffer, 0, bytesRead, output);
+            outputStream.write(output, 0, outputLength);
+        }
+
+        outputStream.write(cipher.doFinal());
+    }
+
     public static void decryptFile(Cipher cipher,
                                    File encryptedFile,
                                    File decryptedFile,
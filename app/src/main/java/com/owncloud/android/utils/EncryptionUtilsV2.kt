@@ -21,6 +21,7 @@ import com.owncloud.android.datamodel.ArbitraryDataProvider
 import com.owncloud.android.datamodel.ArbitraryDataProviderImpl
 import com.owncloud.android.datamodel.FileDataStorageManager
 import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.datamodel.e2e.E2EMetadataCache
 import com.owncloud.android.datamodel.e2e.v1.decrypted.DecryptedFolderMetadataFileV1
 import com.owncloud.android.datamodel.e2e.v1.encrypted.EncryptedFolderMetadataFileV1
 import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFile
@@ -340,29 +341,60 @@ class EncryptionUtilsV2 {
         val result = GetMetadataRemoteOperation(topMost.localId).execute(client)
 
         if (result.isSuccess) {
-            val v2 = EncryptionUtils.deserializeJSON(
-                result.resultData.metadata,
-                object : TypeToken<EncryptedFolderMetadataFile>() {}
-            )
+            return decryptFolderMetadataFileCached(result.resultData, topMost, user, context) {
+                val v2 = EncryptionUtils.deserializeJSON(
+                    result.resultData.metadata,
+                    object : TypeToken<EncryptedFolderMetadataFile>() {}
+                )
 
-            return decryptFolderMetadataFile(
-                v2,
-                userId,
-                privateKey,
-                topMost,
-                storageManager,
-                client,
-                topMost.e2eCounter,
-                result.resultData.signature,
-                user,
-                context,
-                arbitraryDataProvider
-            )
+                decryptFolderMetadataFile(
+                    v2,
+                    userId,
+                    privateKey,
+                    topMost,
+                    storageManager,
+                    client,
+                    topMost.e2eCounter,
+                    result.resultData.signature,
+                    user,
+                    context,
+                    arbitraryDataProvider
+                )
+            }
         } else {
             throw IllegalStateException("Cannot retrieve metadata")
         }
     }
 
+    /**
+     * Decrypted metadata of [folder] from the [E2EMetadataCache] if this exact metadata was decrypted and verified
+     * before, otherwise the result of [decrypt], which is then cached.
+     */
+    private fun decryptFolderMetadataFileCached(
+        metadataResponse: MetadataResponse,
+        folder: OCFile,
+        user: User,
+        context: Context,
+        decrypt: () -> DecryptedFolderMetadataFile
+    ): DecryptedFolderMetadataFile {
+        val cache = E2EMetadataCache.getInstance(context)
+        cache.get(
+            user.accountName,
+            folder.localId,
+            metadataResponse.metadata,
+            metadataResponse.signature,
+            folder.e2eCounter
+        )?.let {
+            Log_OC.d(TAG, "Metadata cache hit, ${cache.hitCount} hits / ${cache.missCount} misses")
+            return it
+        }
+
+        Log_OC.d(TAG, "Metadata cache miss, ${cache.hitCount} hits / ${cache.missCount} misses")
+        return decrypt().also {
+            cache.put(user.accountName, folder.localId, metadataResponse.metadata, metadataResponse.signature, it)
+        }
+    }
+
     @Throws(IllegalStateException::class)
     @Suppress("ThrowsCount", "LongParameterList")
     fun retrieveTopMostMetadataKey(
@@ -616,19 +648,21 @@ class EncryptionUtilsV2 {
                 user.toPlatformAccount(),
                 AccountUtils.Constants.KEY_USER_ID
             )
-            decryptFolderMetadataFile(
-                v2,
-                userId,
-                privateKey,
-                folder,
-                storageManager,
-                client,
-                folder.e2eCounter,
-                metadataResponse.signature,
-                user,
-                context,
-                arbitraryDataProvider
-            )
+            decryptFolderMetadataFileCached(metadataResponse, folder, user, context) {
+                decryptFolderMetadataFile(
+                    v2,
+                    userId,
+                    privateKey,
+                    folder,
+                    storageManager,
+                    client,
+                    folder.e2eCounter,
+                    metadataResponse.signature,
+                    user,
+                    context,
+                    arbitraryDataProvider
+                )
+            }
         } else {
             // try to deserialize v1
             val v1 = EncryptionUtils.deserializeJSON(
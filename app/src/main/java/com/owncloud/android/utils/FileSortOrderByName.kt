@@ -44,19 +44,12 @@ class FileSortOrderByName internal constructor(name: String?, ascending: Boolean
     }
 
     private fun <T : ServerFileInterface> sortServerFiles(files: MutableList<T>): MutableList<T> {
-        files.sortWith { o1: ServerFileInterface, o2: ServerFileInterface ->
-            when {
-                o1.isFolder && o2.isFolder -> sortMultiplier * AlphanumComparator.compare(o1, o2)
-                o1.isFolder -> -1
-                o2.isFolder -> 1
-                else -> sortMultiplier * AlphanumComparator.compare(o1, o2)
-            }
-        }
+        sortByKeys(files, { it.isFolder }, { it.fileName })
         return files
     }
 
     private fun sortOnlyByName(files: MutableList<OCFile>): MutableList<OCFile> {
-        files.sortWith { o1: OCFile, o2: OCFile -> sortMultiplier * AlphanumComparator.compare(o1, o2) }
+        sortByKeys(files, { false }, { it.fileName })
         return files
     }
 
@@ -66,21 +59,51 @@ class FileSortOrderByName internal constructor(name: String?, ascending: Boolean
      * @param files files to sort
      */
     override fun sortLocalFiles(files: MutableList<File>): List<File> {
-        files.sortWith { o1: File, o2: File ->
+        val keyFactory = AlphanumComparator.SortKeyFactory()
+        val entries = files.map { file ->
+            val path = file.path.lowercase(Locale.getDefault())
+            val isDirectory = file.isDirectory
+            SortEntry(file, isDirectory, path, if (isDirectory) null else keyFactory.getSortKey(path))
+        }
+
+        // folders are compared by their path, files in natural order
+        entries.sortedWith { o1, o2 ->
             when {
-                o1.isDirectory && o2.isDirectory -> sortMultiplier * o1.path.lowercase(Locale.getDefault())
-                    .compareTo(o2.path.lowercase(Locale.getDefault()))
+                o1.isFolder && o2.isFolder -> sortMultiplier * o1.name.compareTo(o2.name)
+                o1.isFolder -> -1
+                o2.isFolder -> 1
+                else -> sortMultiplier * requireNotNull(o1.key).compareTo(requireNotNull(o2.key))
+            }
+        }.forEachIndexed { index, entry -> files[index] = entry.file }
 
-                o1.isDirectory -> -1
+        return files
+    }
 
-                o2.isDirectory -> 1
+    /**
+     * Splits every name into its natural sort key once and sorts on those keys, instead of splitting both names on
+     * every comparison. The sort is stable and adaptive, so re-sorting a list that is mostly in order already, e.g.
+     * after a refresh changed a few entries, takes close to linear time.
+     */
+    private inline fun <T> sortByKeys(files: MutableList<T>, isFolder: (T) -> Boolean, name: (T) -> String) {
+        val keyFactory = AlphanumComparator.SortKeyFactory()
+        val entries = files.map { file ->
+            val fileName = name(file)
+            SortEntry(file, isFolder(file), fileName, keyFactory.getSortKey(fileName))
+        }
 
-                else -> sortMultiplier * AlphanumComparator.compare(
-                    o1.path.lowercase(Locale.getDefault()),
-                    o2.path.lowercase(Locale.getDefault())
-                )
+        entries.sortedWith { o1, o2 ->
+            when {
+                o1.isFolder == o2.isFolder -> sortMultiplier * requireNotNull(o1.key).compareTo(requireNotNull(o2.key))
+                o1.isFolder -> -1
+                else -> 1
             }
-        }
-        return files
+        }.forEachIndexed { index, entry -> files[index] = entry.file }
     }
+
+    private class SortEntry<T>(
+        val file: T,
+        val isFolder: Boolean,
+        val name: String,
+        val key: AlphanumComparator.SortKey?
+    )
 }
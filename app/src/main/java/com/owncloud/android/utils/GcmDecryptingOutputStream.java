@@ -0,0 +1,107 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.utils;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMModeCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.crypto.AEADBadTagException;
+
+/**
+ * Decrypts AES/GCM ciphertext with an appended 128 bit authentication tag while it is written, e.g. while it is read
+ * from a download.
+ * <p>
+ * The platform cipher buffers the whole ciphertext in memory until the tag is verified, the BouncyCastle GCM cipher
+ * used here passes the plaintext on as it is decrypted. The tag is verified by {@link #close()}, which throws if it
+ * does not match. Callers therefore have to write into a staging file and only use it after a successful close.
+ */
+public class GcmDecryptingOutputStream extends FilterOutputStream {
+    private static final int TAG_SIZE_BITS = 128;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final GCMModeCipher cipher;
+    private byte[] plaintext = new byte[0];
+
+    private byte[] authenticationTag;
+    private boolean closed;
+
+    public GcmDecryptingOutputStream(OutputStream out, byte[] key, byte[] iv) {
+        super(out);
+
+        cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(false, new AEADParameters(new KeyParameter(key), TAG_SIZE_BITS, iv));
+    }
+
+    /**
+     * @return the authentication tag found at the end of the ciphertext, available once the stream is closed
+     */
+    public byte[] getAuthenticationTag() {
+        return authenticationTag == null ? null : authenticationTag.clone();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        while (len > 0) {
+            int count = Math.min(len, BUFFER_SIZE);
+            int length = cipher.processBytes(b, off, count, plaintextBuffer(cipher.getUpdateOutputSize(count)), 0);
+            out.write(plaintext, 0, length);
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (OutputStream output = out) {
+            int length;
+            try {
+                length = cipher.doFinal(plaintextBuffer(cipher.getOutputSize(0)), 0);
+            } catch (InvalidCipherTextException e) {
+                throw new IOException("Authentication tag does not match", new AEADBadTagException(e.getMessage()));
+            }
+            output.write(plaintext, 0, length);
+
+            // the verified tag is the one found at the end of the ciphertext
+            authenticationTag = cipher.getMac();
+            output.flush();
+        }
+    }
+
+    private byte[] plaintextBuffer(int size) {
+        if (plaintext.length < size) {
+            plaintext = new byte[size];
+        }
+        return plaintext;
+    }
+}
@@ -19,8 +19,13 @@ import com.owncloud.android.lib.resources.files.model.ServerFileInterface;
 import java.io.File;
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.text.CollationKey;
 import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /*
  * This is an updated version with enhancements made by Daniel Migowski, Andre Bogus, and David Koelle
@@ -184,4 +189,144 @@ public class AlphanumComparator<T> implements Comparator<T>, Serializable {
 
         return s1Length - s2Length;
     }
+
+    /**
+     * Creates sort keys of strings, to sort many strings without splitting them into chunks on every comparison. Text
+     * chunks repeat a lot in file names, so their collation keys are shared between the keys of one factory.
+     * <p>
+     * Not thread safe, one factory is meant to be used for one sort.
+     */
+    public static final class SortKeyFactory {
+        private final Collator collator = Collator.getInstance();
+        private final Map<String, CollationKey> collationKeys = new HashMap<>();
+
+        public SortKey getSortKey(String string) {
+            return new SortKey(string, this);
+        }
+
+        private CollationKey getCollationKey(String chunk) {
+            CollationKey key = collationKeys.get(chunk);
+            if (key == null) {
+                key = collator.getCollationKey(chunk);
+                collationKeys.put(chunk, key);
+            }
+            return key;
+        }
+    }
+
+    /**
+     * A string split into chunks once, with numbers stripped of leading zeros and collation keys of text created up
+     * front. Comparing two keys gives the same result as {@link #compare(String, String)} with the strings they were
+     * created from.
+     */
+    public static final class SortKey implements Comparable<SortKey> {
+        private static final byte DIGITS = 0;
+        private static final byte SPECIAL = 1;
+        private static final byte TEXT = 2;
+
+        private final int length;
+        private final byte[] types;
+        private final String[] chunks;
+        // digits of numbers without leading zeros
+        private final String[] significantDigits;
+        private final int[] leadingZeros;
+        // created on first use for numbers, which are rarely compared with text
+        private final CollationKey[] collationKeys;
+        private final SortKeyFactory factory;
+
+        private SortKey(String string, SortKeyFactory factory) {
+            this.factory = factory;
+            length = string.length();
+
+            List<String> chunkList = new ArrayList<>();
+            int marker = 0;
+            while (marker < length) {
+                String chunk = getChunk(string, length, marker);
+                chunkList.add(chunk);
+                marker += chunk.length();
+            }
+
+            int count = chunkList.size();
+            chunks = chunkList.toArray(new String[0]);
+            types = new byte[count];
+            significantDigits = new String[count];
+            leadingZeros = new int[count];
+            collationKeys = new CollationKey[count];
+
+            for (int i = 0; i < count; i++) {
+                String chunk = chunks[i];
+                char first = chunk.charAt(0);
+
+                if (isDigit(first)) {
+                    int zeros = 0;
+                    while (zeros < chunk.length() && chunk.charAt(zeros) == '0') {
+                        zeros++;
+                    }
+                    types[i] = DIGITS;
+                    significantDigits[i] = chunk.substring(zeros);
+                    leadingZeros[i] = zeros;
+                } else if (isSpecialChar(first)) {
+                    types[i] = SPECIAL;
+                } else {
+                    types[i] = TEXT;
+                    collationKeys[i] = factory.getCollationKey(chunk);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            int count = Math.min(types.length, other.types.length);
+
+            for (int i = 0; i < count; i++) {
+                byte thisType = types[i];
+                byte thatType = other.types[i];
+                int result;
+
+                if (thisType == DIGITS && thatType == DIGITS) {
+                    // same as comparing the values: more significant digits make a larger number
+                    String thisDigits = significantDigits[i];
+                    String thatDigits = other.significantDigits[i];
+                    result = Integer.compare(thisDigits.length(), thatDigits.length());
+                    if (result == 0) {
+                        result = thisDigits.compareTo(thatDigits);
+                    }
+                    if (result == 0) {
+                        result = Integer.compare(leadingZeros[i], other.leadingZeros[i]);
+                    }
+                } else if (thisType == SPECIAL && thatType == SPECIAL) {
+                    char thisChar = chunks[i].charAt(0);
+                    char thatChar = other.chunks[i].charAt(0);
+                    if (thisChar == '.' && thatChar != '.') {
+                        return -1;
+                    } else if (thatChar == '.' && thisChar != '.') {
+                        return 1;
+                    }
+                    result = thisChar - thatChar;
+                } else if (thisType == SPECIAL) {
+                    return -1;
+                } else if (thatType == SPECIAL) {
+                    return 1;
+                } else if (getCollationKey(i) == other.getCollationKey(i)) {
+                    // same chunk, keys are shared by the factory
+                    result = 0;
+                } else {
+                    result = getCollationKey(i).compareTo(other.getCollationKey(i));
+                }
+
+                if (result != 0) {
+                    return result;
+                }
+            }
+
+            return length - other.length;
+        }
+
+        private CollationKey getCollationKey(int index) {
+            if (collationKeys[index] == null) {
+                collationKeys[index] = factory.getCollationKey(chunks[index]);
+            }
+            return collationKeys[index];
+        }
+    }
 }
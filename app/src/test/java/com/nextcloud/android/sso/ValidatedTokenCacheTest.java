@@ -0,0 +1,65 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.android.sso;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValidatedTokenCacheTest {
+    private static final int UID = 10123;
+    private static final String ACCOUNT = "user@server";
+    private static final String TOKEN = "token";
+    private static final String PACKAGE = "com.example.app";
+    private static final String HASH = "hash$salt";
+    private static final long TTL = 1000;
+
+    private final ValidatedTokenCache sut = new ValidatedTokenCache(TTL);
+
+    @Test
+    public void testValidatedTupleIsValidUntilExpiry() {
+        sut.put(UID, ACCOUNT, TOKEN, PACKAGE, HASH, 0);
+
+        assertTrue(sut.isValid(UID, ACCOUNT, TOKEN, packageName -> HASH, TTL - 1));
+        assertFalse(sut.isValid(UID, ACCOUNT, TOKEN, packageName -> HASH, TTL));
+        assertFalse(sut.isValid(UID, ACCOUNT, TOKEN, packageName -> HASH, 0));
+    }
+
+    @Test
+    public void testOtherTuplesAreNotValid() {
+        sut.put(UID, ACCOUNT, TOKEN, PACKAGE, HASH, 0);
+
+        assertFalse(sut.isValid(UID + 1, ACCOUNT, TOKEN, packageName -> HASH, 0));
+        assertFalse(sut.isValid(UID, "other@server", TOKEN, packageName -> HASH, 0));
+        assertFalse(sut.isValid(UID, ACCOUNT, "other", packageName -> HASH, 0));
+    }
+
+    @Test
+    public void testReplacedHashInvalidatesTuple() {
+        sut.put(UID, ACCOUNT, TOKEN, PACKAGE, HASH, 0);
+
+        assertFalse(sut.isValid(UID, ACCOUNT, TOKEN, packageName -> "other$salt", 0));
+        assertFalse(sut.isValid(UID, ACCOUNT, TOKEN, packageName -> HASH, 0));
+    }
+
+    @Test
+    public void testPackageOfOtherUidInvalidatesTuple() {
+        sut.put(UID, ACCOUNT, TOKEN, PACKAGE, HASH, 0);
+
+        assertFalse(sut.isValid(UID, ACCOUNT, TOKEN, packageName -> "", 0));
+    }
+
+    @Test
+    public void testMissingAccountNameOrTokenIsCompared() {
+        sut.put(UID, null, null, PACKAGE, HASH, 0);
+
+        assertTrue(sut.isValid(UID, null, null, packageName -> HASH, 0));
+        assertFalse(sut.isValid(UID, ACCOUNT, null, packageName -> HASH, 0));
+        assertFalse(sut.isValid(UID, null, TOKEN, packageName -> HASH, 0));
+    }
+}
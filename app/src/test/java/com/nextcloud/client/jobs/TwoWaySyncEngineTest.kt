@@ -0,0 +1,178 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs
+
+import com.owncloud.android.datamodel.ArbitraryDataProvider
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TwoWaySyncEngineTest {
+    private companion object {
+        const val ACCOUNT = "user@server"
+        const val ROOT = "/sync/"
+        const val PARALLELISM = 2
+        const val WAIT_SECONDS = 5L
+    }
+
+    private val values = HashMap<String, String>()
+    private val arbitraryDataProvider: ArbitraryDataProvider = mockk {
+        every { getValue(ACCOUNT, any<String>()) } answers { values[secondArg()] ?: "" }
+        every { storeOrUpdateKeyValue(ACCOUNT, any<String>(), any<String>()) } answers {
+            values[secondArg()] = thirdArg()
+        }
+        every { deleteKeyForAccount(ACCOUNT, any()) } answers { values.remove(secondArg()) }
+    }
+
+    // changed subfolders returned by the synchronization of each folder
+    private val changes = mapOf(
+        ROOT to listOf("/sync/a/", "/sync/b/"),
+        "/sync/a/" to listOf("/sync/a/1/", "/sync/a/2/"),
+        "/sync/b/" to emptyList()
+    )
+    private val visited: MutableList<String> = Collections.synchronizedList(mutableListOf())
+    private val failing = HashSet<String>()
+    private val deleted = HashSet<String>()
+
+    private fun cursor() = TwoWaySyncCursor(arbitraryDataProvider, ACCOUNT, 1)
+
+    private open inner class Task(private val folder: TwoWaySyncEngine.Folder) : TwoWaySyncEngine.FolderTask {
+        override fun run(): TwoWaySyncEngine.FolderResult {
+            visited.add(folder.remotePath)
+            val children = changes[folder.remotePath].orEmpty().map { TwoWaySyncEngine.Folder(it, true) }
+            if (folder.remotePath in deleted) {
+                return TwoWaySyncEngine.FolderResult(false, "FILE_NOT_FOUND", emptyList(), true)
+            }
+            val success = folder.remotePath !in failing
+            return TwoWaySyncEngine.FolderResult(success, if (success) "OK" else "SYNC_CONFLICT", children)
+        }
+
+        override fun cancel() = Unit
+    }
+
+    @Test
+    fun testOnlyChangedFoldersAreVisited() {
+        val summary = TwoWaySyncEngine(cursor(), PARALLELISM) { Task(it) }.run(ROOT, emptyList())
+
+        assertTrue(summary.isSuccess)
+        assertEquals(setOf(ROOT, "/sync/a/", "/sync/b/", "/sync/a/1/", "/sync/a/2/"), visited.toSet())
+        assertEquals(visited.size, visited.toSet().size)
+        assertEquals(ROOT, visited[0])
+    }
+
+    @Test
+    fun testDirtyFoldersAreVisitedOnce() {
+        TwoWaySyncEngine(cursor(), PARALLELISM) { Task(it) }.run(ROOT, listOf("/sync/c/", "/sync/a/"))
+
+        assertTrue("/sync/c/" in visited)
+        assertEquals(visited.size, visited.toSet().size)
+    }
+
+    @Test
+    fun testConcurrencyIsBounded() {
+        val running = AtomicInteger()
+        val maxRunning = AtomicInteger()
+        val engine = TwoWaySyncEngine(cursor(), PARALLELISM) { folder ->
+            object : Task(folder) {
+                override fun run(): TwoWaySyncEngine.FolderResult {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+                    Thread.sleep(10)
+                    running.decrementAndGet()
+                    return super.run()
+                }
+            }
+        }
+
+        engine.run(ROOT, (0 until 10).map { "/sync/dirty$it/" })
+
+        assertEquals(PARALLELISM, maxRunning.get())
+    }
+
+    @Test
+    fun testFailedFoldersAreRetriedByNextRun() {
+        failing.add("/sync/b/")
+
+        val summary = TwoWaySyncEngine(cursor(), PARALLELISM) { Task(it) }.run(ROOT, emptyList())
+        assertFalse(summary.isSuccess)
+        assertEquals(listOf("/sync/b/"), summary.failedPaths)
+        assertEquals("SYNC_CONFLICT", summary.failureCode)
+        assertEquals(listOf("/sync/b/"), cursor().load())
+
+        failing.clear()
+        visited.clear()
+        TwoWaySyncEngine(cursor(), 1) { Task(it) }.run(ROOT, emptyList())
+        assertEquals("/sync/b/", visited[0])
+        assertTrue(cursor().load().isEmpty())
+    }
+
+    @Test
+    fun testStoppedRunIsResumed() {
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        lateinit var engine: TwoWaySyncEngine
+        engine = TwoWaySyncEngine(cursor(), 1) { folder ->
+            object : Task(folder) {
+                override fun run(): TwoWaySyncEngine.FolderResult {
+                    if (folder.remotePath == "/sync/a/") {
+                        started.countDown()
+                        release.await(WAIT_SECONDS, TimeUnit.SECONDS)
+                        return TwoWaySyncEngine.FolderResult(false, "CANCELLED", emptyList())
+                    }
+                    return super.run()
+                }
+
+                override fun cancel() = release.countDown()
+            }
+        }
+
+        val stopper = Thread {
+            started.await(WAIT_SECONDS, TimeUnit.SECONDS)
+            engine.cancel()
+        }.apply { start() }
+        val summary = engine.run(ROOT, emptyList())
+        stopper.join()
+
+        assertTrue(summary.stopped)
+        assertTrue(summary.failedPaths.isEmpty())
+        assertEquals(listOf("/sync/a/", "/sync/b/"), cursor().load())
+
+        visited.clear()
+        TwoWaySyncEngine(cursor(), 1) { Task(it) }.run(ROOT, emptyList())
+        assertEquals(listOf("/sync/a/", "/sync/b/"), visited.take(2))
+        assertTrue("/sync/a/1/" in visited)
+    }
+
+    @Test
+    fun testDeletedFoldersAreNotRetried() {
+        deleted.add("/sync/b/")
+
+        val summary = TwoWaySyncEngine(cursor(), PARALLELISM) { Task(it) }.run(ROOT, emptyList())
+
+        assertTrue(summary.isSuccess)
+        assertTrue("/sync/b/" in visited)
+        assertTrue(cursor().load().isEmpty())
+    }
+
+    @Test
+    fun testStaleCursorPathsAreDropped() {
+        cursor().save(listOf("/other/", "/sync/gone/", "/sync/b/"))
+
+        TwoWaySyncEngine(cursor(), 1, { it != "/sync/gone/" }) { Task(it) }.run(ROOT, emptyList())
+
+        assertEquals("/sync/b/", visited[0])
+        assertFalse("/other/" in visited)
+        assertFalse("/sync/gone/" in visited)
+        assertTrue(cursor().load().isEmpty())
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs.folderDownload
+
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.utils.MimeType
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class FolderDownloadPlanTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val journalFile: File by lazy { File(temporaryFolder.root, "journal") }
+
+    private fun folder(path: String, etag: String) = OCFile(path).apply {
+        mimeType = MimeType.DIRECTORY
+        setEtag(etag)
+        etagOnServer = etag
+    }
+
+    private fun file(path: String, etag: String, downloaded: Boolean = false) = OCFile(path).apply {
+        mimeType = "text/plain"
+        setEtag(etag)
+        etagOnServer = etag
+        val localFile = File(temporaryFolder.root, etag)
+        if (downloaded) {
+            localFile.createNewFile()
+        }
+        storagePath = localFile.absolutePath
+    }
+
+    // created lazily, the temporary folder only exists once the test runs
+    private val root by lazy { folder("/project/", "r1") }
+    private val docs by lazy { folder("/project/docs/", "d1") }
+    private val readme by lazy { file("/project/readme.md", "f1") }
+    private val logo by lazy { file("/project/logo.png", "f2", downloaded = true) }
+    private val manual by lazy { file("/project/docs/manual.odt", "f3") }
+
+    @Test
+    fun testFolderContentIsPlanned() {
+        val plan = FolderDownloadPlan(FolderDownloadJournal(journalFile))
+
+        assertEquals(listOf(docs), plan.addFolder(root, listOf(docs, readme, logo)))
+        assertEquals(emptyList<OCFile>(), plan.addFolder(docs, listOf(manual)))
+        assertEquals(listOf(readme, manual), plan.files)
+    }
+
+    @Test
+    fun testFoldersCompleteWithTheirSubtree() {
+        val plan = FolderDownloadPlan(FolderDownloadJournal(journalFile))
+        plan.addFolder(root, listOf(docs, readme))
+        plan.addFolder(docs, listOf(manual))
+
+        plan.fileCompleted(readme, "f1")
+        assertFalse(plan.isCompleted(root))
+
+        plan.fileCompleted(manual, "f3")
+        assertTrue(plan.isCompleted(docs))
+        assertTrue(plan.isCompleted(root))
+    }
+
+    @Test
+    fun testResumedPlanSkipsCompletedEntries() {
+        val first = FolderDownloadJournal(journalFile)
+        val plan = FolderDownloadPlan(first)
+        plan.addFolder(root, listOf(docs, readme))
+        plan.addFolder(docs, listOf(manual))
+        plan.fileCompleted(manual, "f3")
+        first.close()
+
+        val journal = FolderDownloadJournal(journalFile)
+        assertFalse(journal.isEmpty)
+        val resumed = FolderDownloadPlan(journal)
+        assertEquals(emptyList<OCFile>(), resumed.addFolder(root, listOf(docs, readme)))
+        assertEquals(listOf(readme), resumed.files)
+    }
+
+    @Test
+    fun testChangedEntriesAreNotSkipped() {
+        val first = FolderDownloadJournal(journalFile)
+        first.fileCompleted(readme.remotePath, "f1")
+        first.folderCompleted(docs.remotePath, "d1")
+        first.close()
+
+        val changedDocs = folder("/project/docs/", "d2")
+        val changedReadme = file("/project/readme.md", "f4")
+        val plan = FolderDownloadPlan(FolderDownloadJournal(journalFile))
+
+        assertEquals(listOf(changedDocs), plan.addFolder(root, listOf(changedDocs, changedReadme)))
+        assertEquals(listOf(changedReadme), plan.files)
+    }
+
+    @Test
+    fun testDeletedJournalIsEmpty() {
+        val journal = FolderDownloadJournal(journalFile)
+        journal.fileCompleted(readme.remotePath, "f1")
+        journal.delete()
+
+        assertFalse(journalFile.exists())
+        assertTrue(FolderDownloadJournal(journalFile).isEmpty)
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs.upload
+
+import com.nextcloud.client.preferences.AppPreferences
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ParallelUploadsTest {
+
+    private fun parallelUploads(configured: Int): Int {
+        val preferences: AppPreferences = mockk {
+            every { parallelUploads } returns configured
+        }
+        return FileUploadWorker.getParallelUploads(preferences)
+    }
+
+    @Test
+    fun testConfiguredValueIsUsed() {
+        assertEquals(1, parallelUploads(1))
+        assertEquals(2, parallelUploads(2))
+        assertEquals(FileUploadWorker.MAX_PARALLEL_UPLOADS, parallelUploads(FileUploadWorker.MAX_PARALLEL_UPLOADS))
+    }
+
+    @Test
+    fun testValueIsLimitedToSaneRange() {
+        assertEquals(1, parallelUploads(0))
+        assertEquals(1, parallelUploads(-3))
+        assertEquals(FileUploadWorker.MAX_PARALLEL_UPLOADS, parallelUploads(FileUploadWorker.MAX_PARALLEL_UPLOADS + 1))
+        assertEquals(FileUploadWorker.MAX_PARALLEL_UPLOADS, parallelUploads(Int.MAX_VALUE))
+    }
+}
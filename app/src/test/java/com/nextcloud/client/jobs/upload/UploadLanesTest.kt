@@ -0,0 +1,134 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.jobs.upload
+
+import com.owncloud.android.datamodel.FileDataStorageManager
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.utils.MimeType
+import io.mockk.every
+import io.mockk.mockk
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.File
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+class UploadLanesTest {
+    private companion object {
+        const val UPLOAD_MILLIS = 50L
+    }
+
+    /** Folders known locally, uploads add the folders they create on the server */
+    private val folders = ConcurrentHashMap<String, OCFile>()
+    private val createdFolders: MutableList<String> = Collections.synchronizedList(mutableListOf())
+    private val running = AtomicInteger()
+    private val maxRunning = AtomicInteger()
+
+    private val storageManager: FileDataStorageManager = mockk(relaxed = true) {
+        every { getFileByPath(any()) } answers { folders[firstArg()] }
+        every { getFileById(any()) } returns null
+    }
+
+    private val lanes = UploadLanes(storageManager)
+
+    private fun addFolder(path: String, encrypted: Boolean = false) {
+        folders[path] = OCFile(path).apply {
+            mimeType = MimeType.DIRECTORY
+            isEncrypted = encrypted
+        }
+    }
+
+    /**
+     * Stand-in for an upload, which creates the missing folders above the file like the upload operation does.
+     */
+    private suspend fun upload(remotePath: String): String {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+        try {
+            val missing = generateSequence(File(remotePath).parentFile) { it.parentFile }
+                .map { if (it.path.endsWith("/")) it.path else it.path + "/" }
+                .filter { !folders.containsKey(it) }
+                .toList()
+                .asReversed()
+            delay(UPLOAD_MILLIS)
+            missing.forEach {
+                createdFolders.add(it)
+                addFolder(it)
+            }
+            return remotePath
+        } finally {
+            running.decrementAndGet()
+        }
+    }
+
+    private fun runAll(paths: List<String>, parallelism: Int) = runBlocking(Dispatchers.IO) {
+        lanes.runAll(paths, parallelism, { it }) { upload(it) }
+    }
+
+    @Test
+    fun testUploadsIntoKnownFolderRunConcurrently() {
+        addFolder("/")
+        addFolder("/photos/")
+        val paths = (0 until 9).map { "/photos/$it.jpg" }
+
+        val results = runAll(paths, 3)
+
+        assertEquals(paths, results)
+        assertEquals(3, maxRunning.get())
+    }
+
+    @Test
+    fun testNewFolderIsCreatedOnceForAllItsSubfolders() {
+        addFolder("/")
+        val paths = listOf("/new/a/1.jpg", "/new/b/2.jpg", "/new/c/3.jpg", "/new/a/4.jpg")
+
+        runAll(paths, 4)
+
+        assertEquals(listOf("/new/", "/new/a/", "/new/b/", "/new/c/"), createdFolders.sorted())
+    }
+
+    @Test
+    fun testUploadsRunConcurrentlyOnceNewFolderIsKnown() {
+        addFolder("/")
+        val paths = (0 until 7).map { "/new/$it.jpg" }
+
+        val results = runAll(paths, 3)
+
+        assertEquals(paths, results)
+        assertEquals(listOf("/new/"), createdFolders)
+        assertTrue(maxRunning.get() > 1)
+    }
+
+    @Test
+    fun testUploadsIntoEncryptedFolderRunOneAfterAnother() {
+        addFolder("/")
+        addFolder("/secret/", encrypted = true)
+        val paths = (0 until 4).map { "/secret/$it.jpg" }
+
+        runAll(paths, 3)
+
+        assertEquals(1, maxRunning.get())
+    }
+
+    @Test
+    fun testMixedPageKeepsOrderAndUsesAllSlots() {
+        addFolder("/")
+        addFolder("/photos/")
+        addFolder("/secret/", encrypted = true)
+        val paths = (0 until 6).flatMap { listOf("/secret/$it.jpg", "/photos/$it.jpg") }
+
+        val results = runAll(paths, 2)
+
+        // encrypted uploads waiting for their lane leave the second slot to the others
+        assertEquals(paths, results)
+        assertEquals(2, maxRunning.get())
+    }
+}
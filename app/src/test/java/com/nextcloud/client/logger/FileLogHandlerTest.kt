@@ -210,6 +210,25 @@ class FileLogHandlerTest {
         //      illegal argument exception
     }
 
+    @Test
+    fun `buffered entries are written on flush`() {
+        // GIVEN
+        //      log writer is opened
+        val writer = FileLogHandler(logDir, "log.txt", FILE_SIZE)
+        writer.open()
+
+        // WHEN
+        //      entry is written and flushed
+        writer.write(StringBuilder("Hello!"))
+        writer.flush()
+
+        // THEN
+        //      entry is in the file while it is still open
+        assertEquals("Hello!", readLogFile("log.txt"))
+        assertTrue(writer.isOpened)
+        writer.close()
+    }
+
     @Test
     fun `all log files are deleted`() {
         // GIVEN
@@ -0,0 +1,89 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.logger
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LogRingBufferTest {
+
+    private companion object {
+        const val CAPACITY = 4
+        const val THREADS = 4
+        const val ENTRIES_PER_THREAD = 10_000
+    }
+
+    private val sut = LogRingBuffer(CAPACITY)
+
+    private fun pollMessage(): String? {
+        var message: String? = null
+        sut.poll { _, _, _, polled -> message = polled }
+        return message
+    }
+
+    @Test
+    fun `entries are polled in order`() {
+        assertTrue(sut.isEmpty)
+        sut.offer(1, Level.DEBUG, "tag", "first")
+        sut.offer(2, Level.ERROR, "tag", "second")
+
+        var level: Level? = null
+        var timestamp = 0L
+        val polled = sut.poll { polledTimestamp, polledLevel, _, _ ->
+            timestamp = polledTimestamp
+            level = polledLevel
+        }
+        assertTrue(polled)
+        assertEquals(1L, timestamp)
+        assertEquals(Level.DEBUG, level)
+        assertEquals("second", pollMessage())
+        assertTrue(sut.isEmpty)
+        assertFalse(sut.poll { _, _, _, _ -> })
+    }
+
+    @Test
+    fun `offer fails when full and succeeds again after poll`() {
+        for (i in 0 until CAPACITY) {
+            assertTrue(sut.offer(0, Level.INFO, "tag", "$i"))
+        }
+        assertFalse(sut.offer(0, Level.INFO, "tag", "overflow"))
+
+        assertEquals("0", pollMessage())
+        assertTrue(sut.offer(0, Level.INFO, "tag", "$CAPACITY"))
+        for (i in 1..CAPACITY) {
+            assertEquals("$i", pollMessage())
+        }
+    }
+
+    @Test
+    fun `no entries are lost or duplicated with concurrent writers`() {
+        val buffer = LogRingBuffer(CAPACITY)
+        val writers = (0 until THREADS).map { thread ->
+            Thread {
+                for (i in 0 until ENTRIES_PER_THREAD) {
+                    while (!buffer.offer(i.toLong(), Level.DEBUG, "$thread", "")) {
+                        Thread.yield()
+                    }
+                }
+            }.apply { start() }
+        }
+
+        val next = LongArray(THREADS)
+        var polled = 0
+        while (polled < THREADS * ENTRIES_PER_THREAD) {
+            buffer.poll { timestamp, _, tag, _ ->
+                val thread = tag.toInt()
+                assertEquals(next[thread]++, timestamp)
+                polled++
+            }
+        }
+        writers.forEach { it.join() }
+        assertTrue(buffer.isEmpty)
+    }
+}
@@ -83,7 +83,7 @@ class LoggerTest {
             writerThreadIds.add(Thread.currentThread().id)
             it.callRealMethod()
             latch.countDown()
-        }.whenever(logHandler).close()
+        }.whenever(logHandler).flush()
 
         // GIVEN
         //      logger event loop is running
@@ -124,7 +124,7 @@ class LoggerTest {
         doAnswer {
             it.callRealMethod()
             latch.countDown()
-        }.whenever(logHandler).close()
+        }.whenever(logHandler).flush()
 
         // GIVEN
         //      logger event loop is running
@@ -137,10 +137,10 @@ class LoggerTest {
         // THEN
         //      log handler opens log file
         //      log handler writes entry
-        //      log handler closes log file
+        //      log handler flushes log file
         //      no lost messages
         val called = latch.await(LATCH_WAIT, TimeUnit.SECONDS)
-        assertTrue("Expected open(), write() and close() calls on bg thread", called)
+        assertTrue("Expected open(), write() and flush() calls on bg thread", called)
         val inOrder = inOrder(logHandler)
         inOrder.verify(logHandler).open()
         inOrder.verify(logHandler).write(
@@ -148,7 +148,7 @@ class LoggerTest {
                 tag in this && message in this
             }
         )
-        inOrder.verify(logHandler).close()
+        inOrder.verify(logHandler).flush()
         assertFalse(logger.lostEntries)
     }
 
@@ -227,7 +227,48 @@ class LoggerTest {
 
         // THEN
         //      overflow flag is raised
+        //      overflowing entry is counted as dropped
         assertTrue(logger.lostEntries)
+        assertEquals(1L, logger.droppedEntryCount)
+    }
+
+    @Test
+    fun `entries below minimum level are not queued`() {
+        // GIVEN
+        //      logger event loop is not running
+        //      minimum level is info
+        logger.minLevel = Level.INFO
+
+        // WHEN
+        //      more debug entries than the queue capacity are logged
+        for (i in 0..QUEUE_CAPACITY) {
+            logger.d("tag", "Message $i")
+        }
+
+        // THEN
+        //      nothing is queued nor lost
+        assertFalse(logger.lostEntries)
+        assertEquals(EMPTY_LONG, logger.droppedEntryCount)
+    }
+
+    @Test
+    fun `debug logging switches minimum level`() {
+        // WHEN
+        //      debug logging is disabled
+        logger.isDebugLoggingEnabled = false
+
+        // THEN
+        //      only info and more severe entries are queued
+        assertEquals(Level.INFO, logger.minLevel)
+
+        // WHEN
+        //      debug logging is enabled
+        logger.isDebugLoggingEnabled = true
+
+        // THEN
+        //      all entries are queued
+        assertEquals(Level.VERBOSE, logger.minLevel)
+        assertTrue(logger.isDebugLoggingEnabled)
     }
 
     @Test
@@ -0,0 +1,76 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.nextcloud.client.preferences;
+
+import com.owncloud.android.datamodel.OCFile;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FolderPreferenceCacheTest {
+    private static final String ACCOUNT = "user@server";
+    private static final String PREFERENCE = "folder_sort_order";
+
+    private final FolderPreferenceCache sut = new FolderPreferenceCache();
+
+    private static OCFile folder(String path, long fileId) {
+        OCFile folder = new OCFile(path);
+        folder.setFileId(fileId);
+        return folder;
+    }
+
+    @Test
+    public void testValuesArePerAccountAndPreference() {
+        OCFile folder = folder("/a/", 2);
+        sut.put(ACCOUNT, PREFERENCE, Collections.singletonList(folder), "size", sut.getGeneration());
+
+        assertEquals("size", sut.get(ACCOUNT, PREFERENCE, folder));
+        assertNull(sut.get("other@server", PREFERENCE, folder));
+        assertNull(sut.get(ACCOUNT, "folder_layout", folder));
+    }
+
+    @Test
+    public void testValueOfMovedFolderIsNotUsed() {
+        sut.put(ACCOUNT, PREFERENCE, Collections.singletonList(folder("/a/", 2)), "size", sut.getGeneration());
+
+        assertNull(sut.get(ACCOUNT, PREFERENCE, folder("/a/", 3)));
+    }
+
+    @Test
+    public void testInvalidateDropsFolderAndDescendants() {
+        OCFile parent = folder("/a/", 2);
+        OCFile child = folder("/a/b/", 3);
+        OCFile sibling = folder("/ab/", 4);
+        sut.put(ACCOUNT, PREFERENCE, Arrays.asList(parent, child, sibling), "", sut.getGeneration());
+
+        sut.invalidate(ACCOUNT, PREFERENCE, parent);
+
+        assertNull(sut.get(ACCOUNT, PREFERENCE, parent));
+        assertNull(sut.get(ACCOUNT, PREFERENCE, child));
+        assertEquals("", sut.get(ACCOUNT, PREFERENCE, sibling));
+
+        sut.invalidate(ACCOUNT, PREFERENCE, null);
+
+        assertNull(sut.get(ACCOUNT, PREFERENCE, sibling));
+    }
+
+    @Test
+    public void testValueResolvedBeforeInvalidationIsDropped() {
+        OCFile folder = folder("/a/", 2);
+        long generation = sut.getGeneration();
+
+        sut.invalidate(ACCOUNT, PREFERENCE, folder);
+        sut.put(ACCOUNT, PREFERENCE, Collections.singletonList(folder), "size", generation);
+
+        assertNull(sut.get(ACCOUNT, PREFERENCE, folder));
+    }
+}
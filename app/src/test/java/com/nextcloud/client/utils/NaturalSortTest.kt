@@ -86,4 +86,26 @@ class NaturalSortTest {
         val sorted = shuffled.sortedWith(sut).toTypedArray()
         Assert.assertArrayEquals("Wrong sort", expected, sorted)
     }
+
+    @Test
+    fun testSortKeys() {
+        val keyFactory = AlphanumComparator.SortKeyFactory()
+        val shuffled = expected.clone().apply { shuffle() }
+        val sorted = shuffled.sortedBy { keyFactory.getSortKey(it) }.toTypedArray()
+        Assert.assertArrayEquals("Wrong sort", expected, sorted)
+    }
+
+    @Test
+    fun testSortKeysMatchComparator() {
+        val keyFactory = AlphanumComparator.SortKeyFactory()
+        for (first in expected) {
+            for (second in expected) {
+                Assert.assertEquals(
+                    "$first <> $second",
+                    Integer.signum(AlphanumComparator.compare(first, second)),
+                    Integer.signum(keyFactory.getSortKey(first).compareTo(keyFactory.getSortKey(second)))
+                )
+            }
+        }
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel
+
+import com.nextcloud.client.database.dao.ArbitraryDataDao
+import com.nextcloud.client.database.entity.ArbitraryDataEntity
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ArbitraryDataProviderImplTest {
+    private val dao: ArbitraryDataDao = mockk<ArbitraryDataDao>(relaxed = true).apply {
+        every { getByAccountAndKey(any(), any()) } returns null
+    }
+
+    @Test
+    fun testValuesAreReadOnce() {
+        every { dao.getByAccountAndKey(ACCOUNT, KEY) } returns ArbitraryDataEntity(1, ACCOUNT, KEY, "42")
+        every { dao.getByAccountAndKey(ACCOUNT, OTHER_KEY) } returns null
+
+        val sut = ArbitraryDataProviderImpl(dao)
+        repeat(REPEAT) {
+            assertEquals(42, sut.getIntegerValue(ACCOUNT, KEY))
+            assertEquals("", sut.getValue(ACCOUNT, OTHER_KEY))
+        }
+
+        // other instances share the cache of the same DAO
+        assertEquals(42L, ArbitraryDataProviderImpl(dao).getLongValue(ACCOUNT, KEY))
+
+        verify(exactly = 1) { dao.getByAccountAndKey(ACCOUNT, KEY) }
+        verify(exactly = 1) { dao.getByAccountAndKey(ACCOUNT, OTHER_KEY) }
+        assertEquals(2L, sut.cacheMissCount)
+        assertEquals(2L * REPEAT - 1, sut.cacheHitCount)
+    }
+
+    @Test
+    fun testWritesGoThroughCache() {
+        val sut = ArbitraryDataProviderImpl(dao)
+
+        sut.storeOrUpdateKeyValue(ACCOUNT, KEY, true)
+        sut.incrementValue(ACCOUNT, OTHER_KEY)
+        sut.incrementValue(ACCOUNT, OTHER_KEY)
+
+        assertEquals(true, sut.getBooleanValue(ACCOUNT, KEY))
+        assertEquals(2, sut.getIntegerValue(ACCOUNT, OTHER_KEY))
+        verify { dao.upsertValue(ACCOUNT, KEY, "true") }
+        verify { dao.upsertValue(ACCOUNT, OTHER_KEY, "2") }
+
+        sut.deleteKeyForAccount(ACCOUNT, KEY)
+
+        assertEquals("", sut.getValue(ACCOUNT, KEY))
+        verify(exactly = 1) { dao.getByAccountAndKey(ACCOUNT, any()) }
+    }
+
+    @Test
+    fun testBatchIsStoredInOneCall() {
+        val sut = ArbitraryDataProviderImpl(dao)
+        val values = mapOf(KEY to "a", OTHER_KEY to "b")
+
+        sut.storeOrUpdateKeyValues(ACCOUNT, values)
+
+        assertEquals("a", sut.getValue(ACCOUNT, KEY))
+        assertEquals("b", sut.getValue(ACCOUNT, OTHER_KEY))
+        assertEquals("", sut.getValue("other@server", KEY))
+        verify(exactly = 1) { dao.upsertValues(ACCOUNT, values) }
+    }
+
+    companion object {
+        private const val ACCOUNT = "user@server"
+        private const val KEY = "key"
+        private const val OTHER_KEY = "otherKey"
+        private const val REPEAT = 10
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel
+
+import com.google.gson.Gson
+import com.owncloud.android.lib.resources.files.model.GeoLocation
+import com.owncloud.android.lib.resources.files.model.ImageDimension
+import com.owncloud.android.lib.resources.shares.ShareType
+import com.owncloud.android.lib.resources.shares.ShareeUser
+import com.owncloud.android.lib.resources.tags.Tag
+import com.owncloud.android.utils.FileStorageUtils
+import com.owncloud.android.utils.MimeType
+import io.mockk.every
+import io.mockk.mockkStatic
+import io.mockk.unmockkStatic
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+
+class DeferredFileColumnsTest {
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val gson = Gson()
+
+    private val sharees = gson.toJson(arrayOf(ShareeUser("admin", "Server Admin", ShareType.USER)))
+    private val tags = gson.toJson(arrayOf(Tag("1", "Top secret", null)))
+    private val metadataSize = gson.toJson(ImageDimension(WIDTH, HEIGHT))
+    private val metadataGPS = gson.toJson(GeoLocation(LATITUDE, LONGITUDE))
+
+    private fun file(columns: DeferredFileColumns?) = OCFile("/image.jpg").apply {
+        sharees = ArrayList()
+        tags = ArrayList()
+        setDeferredColumns(columns)
+    }
+
+    @Test
+    fun testTrivialColumnsAreNotDeferred() {
+        assertNull(DeferredFileColumns.create(null, "", "null", "NULL", null))
+        assertNull(DeferredFileColumns.create("[]", "null", "", null, null))
+
+        val sut = file(DeferredFileColumns.create("[]", "[]", null, null, null))
+        assertTrue(sut.sharees.isEmpty())
+        assertTrue(sut.tags.isEmpty())
+        assertNull(sut.imageDimension)
+        assertNull(sut.geoLocation)
+    }
+
+    @Test
+    fun testColumnsAreDecodedByGetters() {
+        val sut = file(DeferredFileColumns.create(sharees, tags, metadataSize, metadataGPS, null))
+
+        assertTrue(sut.isShared)
+        assertEquals("Server Admin", sut.sharees.single().displayName)
+        assertEquals("Top secret", sut.tags.single().name)
+        assertEquals(WIDTH, sut.imageDimension?.width)
+        assertEquals(HEIGHT, sut.imageDimension?.height)
+        assertEquals(LATITUDE, sut.geoLocation?.latitude)
+        assertEquals(LONGITUDE, sut.geoLocation?.longitude)
+
+        // decoded once, later calls return the same instances
+        assertTrue(sut.tags === sut.tags)
+    }
+
+    @Test
+    fun testSettersOverrideDeferredColumns() {
+        val sut = file(DeferredFileColumns.create(sharees, tags, metadataSize, metadataGPS, null))
+
+        sut.sharees = ArrayList()
+        sut.tags = ArrayList()
+        sut.imageDimension = null
+        sut.geoLocation = null
+
+        assertTrue(sut.sharees.isEmpty())
+        assertTrue(sut.tags.isEmpty())
+        assertNull(sut.imageDimension)
+        assertNull(sut.geoLocation)
+    }
+
+    @Test
+    fun testInvalidColumnsAreIgnored() {
+        val sut = file(DeferredFileColumns.create("{invalid", "[{]", "[1,2]", "{\"latitude\": []}", null))
+
+        assertTrue(sut.sharees.isEmpty())
+        assertTrue(sut.tags.isEmpty())
+        assertNull(sut.imageDimension)
+        assertNull(sut.geoLocation)
+    }
+
+    @Test
+    fun testStoragePathOverridesDefaultFolderLookup() {
+        val sut = OCFile("/folder/").apply {
+            mimeType = MimeType.DIRECTORY
+            setDeferredColumns(DeferredFileColumns.create(null, null, null, null, "user@server"))
+            storagePath = "/storage/folder"
+        }
+
+        assertEquals("/storage/folder/", sut.storagePath)
+    }
+
+    @Test
+    fun testDefaultFolderIsBoundWithItsSyncDate() {
+        val localFolder = temporaryFolder.newFolder("folder").apply { setLastModified(LAST_MODIFIED) }
+        mockkStatic(FileStorageUtils::class)
+        try {
+            every { FileStorageUtils.getDefaultSavePathFor("user@server", any()) } returns localFolder.absolutePath
+
+            val sut = OCFile("/folder/").apply {
+                mimeType = MimeType.DIRECTORY
+                setDeferredColumns(DeferredFileColumns.create(null, null, null, null, "user@server"))
+            }
+
+            assertEquals(LAST_MODIFIED, sut.lastSyncDateForData)
+            assertEquals(localFolder.absolutePath + "/", sut.storagePath)
+        } finally {
+            unmockkStatic(FileStorageUtils::class)
+        }
+    }
+
+    @Test
+    fun testColumnsAreDecodedOnceForConcurrentReaders() {
+        repeat(ROUNDS) {
+            val sut = file(DeferredFileColumns.create(sharees, tags, null, null, null))
+            val start = CountDownLatch(1)
+            val results = Collections.synchronizedList(mutableListOf<Pair<Int, List<Tag>>>())
+            val readers = (0 until READERS).map {
+                Thread {
+                    start.await()
+                    results.add(sut.sharees.size to sut.tags)
+                }.apply { start() }
+            }
+
+            start.countDown()
+            readers.forEach { it.join() }
+
+            assertEquals(READERS, results.size)
+            results.forEach { (shareeCount, fileTags) ->
+                assertEquals(1, shareeCount)
+                assertTrue(fileTags === sut.tags)
+            }
+        }
+    }
+
+    companion object {
+        private const val ROUNDS = 50
+        private const val READERS = 4
+        private const val WIDTH = 4032f
+        private const val HEIGHT = 3024f
+        private const val LATITUDE = 52.52
+        private const val LONGITUDE = 13.405
+        private const val LAST_MODIFIED = 1_700_000_000_000L
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel
+
+import com.nextcloud.client.database.dao.FileDao
+import com.nextcloud.client.database.dao.FileNameRow
+import com.nextcloud.client.database.entity.FileEntity
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class FileNameIndexTest {
+    private val rows = mutableListOf(
+        row(1, 0, "Documents", "DIR"),
+        row(2, 1, "report.pdf"),
+        row(3, 1, "Annual Report 2025.pdf"),
+        row(4, 1, "report"),
+        row(5, 0, "xreportx.txt"),
+        row(6, 0, "todo.md"),
+        row(7, 1, "reporter", "DIR")
+    )
+
+    private fun row(id: Long, parent: Long, name: String, contentType: String = "text/plain") =
+        FileNameRow(id, parent, name, contentType)
+
+    private fun entity(row: FileNameRow) = mockk<FileEntity> {
+        every { id } returns row.id
+        every { parent } returns row.parent
+        every { name } returns row.name
+        every { contentType } returns row.contentType
+    }
+
+    private fun fileDao(): FileDao = mockk {
+        every { getFileNames(any()) } answers { rows.toList() }
+        every { getFileNamesInFolders(any(), any()) } answers {
+            val folderIds = firstArg<List<Long>>()
+            rows.filter { it.parent in folderIds }
+        }
+        every { getFilesByIds(any(), any()) } answers {
+            val ids = firstArg<List<Long>>()
+            rows.filter { it.id in ids }.map { entity(it) }
+        }
+    }
+
+    private fun index() = FileNameIndex(rows.map { FileNameIndex.Entry(it) }, 0)
+
+    @Test
+    fun testFindMatchesSubstringsIgnoringCase() {
+        val found = index().find("report").map { it.id }.toSet()
+        assertEquals(setOf(2L, 3L, 4L, 5L, 7L), found)
+    }
+
+    @Test
+    fun testFindNeedsSequencesInOrder() {
+        rows.add(row(8, 0, "abcxbcaxcab"))
+
+        assertTrue(index().find("abcab").isEmpty())
+        assertEquals(listOf(8L), index().find("bca").map { it.id })
+    }
+
+    @Test
+    fun testFindShortQueries() {
+        assertEquals(setOf(1L, 6L), index().find("do").map { it.id }.toSet())
+        assertEquals(rows.size, index().find("").size)
+    }
+
+    @Test
+    fun testRank() {
+        assertEquals(0, FileNameIndex.rank("report", "report"))
+        assertEquals(1, FileNameIndex.rank("report.pdf", "report"))
+        assertEquals(2, FileNameIndex.rank("annual report 2025.pdf", "report"))
+        assertEquals(3, FileNameIndex.rank("xreportx.txt", "report"))
+    }
+
+    @Test
+    fun testSearchRanksFiltersAndPages() {
+        val fileDao = fileDao()
+        val account = "rank@server"
+
+        val all = FileNameIndex.search(fileDao, account, "Report", null, true, 0, 10).map { it.id }
+        assertEquals(listOf(4L, 2L, 3L, 5L), all)
+
+        val page = FileNameIndex.search(fileDao, account, "report", null, true, 1, 2).map { it.id }
+        assertEquals(listOf(2L, 3L), page)
+
+        val inFolder = FileNameIndex.search(fileDao, account, "report", 1, false, 0, 10).map { it.id }
+        assertEquals(listOf(4L, 7L, 2L, 3L), inFolder)
+    }
+
+    @Test
+    fun testSearchReadsChangedFoldersAgain() {
+        val fileDao = fileDao()
+        val account = "changes@server"
+        FileNameIndex.search(fileDao, account, "report", null, true, 0, 10)
+
+        rows.add(row(8, 1, "new report.txt"))
+        rows.removeIf { it.id == 4L }
+        FileNameIndex.onFolderChanged(account, 1)
+
+        val found = FileNameIndex.search(fileDao, account, "report", null, true, 0, 10).map { it.id }
+        assertEquals(listOf(2L, 8L, 3L, 5L), found)
+        verify(exactly = 1) { fileDao.getFileNames(account) }
+        verify(exactly = 1) { fileDao.getFileNamesInFolders(listOf(1L), account) }
+    }
+
+    @Test
+    fun testSearchLeavesOutRenamedFiles() {
+        val fileDao = fileDao()
+        val account = "renamed@server"
+        FileNameIndex.search(fileDao, account, "todo", null, true, 0, 10)
+
+        rows[rows.indexOfFirst { it.id == 6L }] = row(6, 0, "done.md")
+
+        assertTrue(FileNameIndex.search(fileDao, account, "todo", null, true, 0, 10).isEmpty())
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.datamodel.e2e
+
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFile
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedFolderMetadataFile
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedMetadata
+import com.owncloud.android.datamodel.e2e.v2.decrypted.DecryptedUser
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import javax.crypto.KeyGenerator
+import javax.crypto.SecretKey
+
+class E2EMetadataCacheTest {
+    private companion object {
+        const val ACCOUNT = "user@cloud.example"
+        const val LOCAL_ID = "00000123ocabcdef"
+        const val ENCRYPTED = "{\"metadata\":{\"ciphertext\":\"abc\"}}"
+        const val SIGNATURE = "c2lnbmF0dXJl"
+        const val COUNTER = 5L
+    }
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val key: SecretKey = KeyGenerator.getInstance("AES").run {
+        init(256)
+        generateKey()
+    }
+
+    private val directory: File by lazy { File(temporaryFolder.root, "cache") }
+
+    private fun cache(secretKey: SecretKey = key) = E2EMetadataCache(directory) { secretKey }
+
+    private fun metadata() = DecryptedFolderMetadataFile(
+        DecryptedMetadata(
+            mutableListOf("checksum"),
+            false,
+            COUNTER,
+            mutableMapOf(),
+            mutableMapOf("key1" to DecryptedFile("report.pdf", "application/pdf", "nonce", "tag", "fileKey"))
+        ),
+        mutableListOf(DecryptedUser("user", "certificate", "encryptedKey"))
+    )
+
+    @Test
+    fun testHitReturnsCopyOfStoredMetadata() {
+        val stored = metadata()
+        val cache = cache()
+        cache.put(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, stored)
+
+        val first = cache.get(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER)
+        assertNotNull(first)
+        assertEquals(stored, first)
+        assertArrayEquals(stored.metadata.metadataKey, first!!.metadata.metadataKey)
+
+        first.metadata.files["key1"]!!.filename = "renamed.pdf"
+        val second = cache.get(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER)
+        assertNotSame(first, second)
+        assertEquals("report.pdf", second!!.metadata.files["key1"]!!.filename)
+
+        assertEquals(2, cache.hitCount)
+        assertEquals(0, cache.missCount)
+    }
+
+    @Test
+    fun testChangedMetadataOrNewerCounterMisses() {
+        val cache = cache()
+        cache.put(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, metadata())
+
+        assertNull(cache.get(ACCOUNT, LOCAL_ID, ENCRYPTED + " ", SIGNATURE, COUNTER))
+        assertNull(cache.get(ACCOUNT, LOCAL_ID, ENCRYPTED, "b3RoZXI=", COUNTER))
+        assertNull(cache.get(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER + 1))
+        assertNull(cache.get(ACCOUNT, "other", ENCRYPTED, SIGNATURE, COUNTER))
+        assertNull(cache.get("other@cloud.example", LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER))
+
+        assertEquals(0, cache.hitCount)
+        assertEquals(5, cache.missCount)
+    }
+
+    @Test
+    fun testEntriesSurviveRestartEncrypted() {
+        cache().put(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, metadata())
+
+        val files = directory.walk().filter { it.isFile }.toList()
+        assertEquals(1, files.size)
+        assertFalse(String(files[0].readBytes(), Charsets.ISO_8859_1).contains("report.pdf"))
+
+        val restarted = cache()
+        assertEquals(metadata(), restarted.get(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER))
+    }
+
+    @Test
+    fun testEntryUnreadableWithOtherKeyIsDropped() {
+        cache().put(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, metadata())
+
+        val otherKey = KeyGenerator.getInstance("AES").run {
+            init(256)
+            generateKey()
+        }
+        assertNull(cache(otherKey).get(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER))
+        assertTrue(directory.walk().none { it.isFile })
+    }
+
+    @Test
+    fun testInvalidateAndClear() {
+        val cache = cache()
+        cache.put(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, metadata())
+        cache.put(ACCOUNT, "second", ENCRYPTED, SIGNATURE, metadata())
+        cache.put("other@cloud.example", LOCAL_ID, ENCRYPTED, SIGNATURE, metadata())
+
+        cache.invalidate(ACCOUNT, LOCAL_ID)
+        assertNull(cache.get(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER))
+        assertNotNull(cache.get(ACCOUNT, "second", ENCRYPTED, SIGNATURE, COUNTER))
+
+        cache.clear(ACCOUNT)
+        assertNull(cache.get(ACCOUNT, "second", ENCRYPTED, SIGNATURE, COUNTER))
+        assertNotNull(cache.get("other@cloud.example", LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER))
+        assertNull(cache().get(ACCOUNT, "second", ENCRYPTED, SIGNATURE, COUNTER))
+    }
+
+    @Test
+    fun testPutIsBestEffortWhenKeyIsUnavailable() {
+        val cache = E2EMetadataCache(directory) { throw IllegalStateException("keystore unavailable") }
+
+        cache.put(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, metadata())
+
+        // kept in memory only
+        assertEquals(metadata(), cache.get(ACCOUNT, LOCAL_ID, ENCRYPTED, SIGNATURE, COUNTER))
+        assertTrue(directory.walk().none { it.isFile })
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.operations
+
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.IOException
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+class ContentTransferExecutorTest {
+    private companion object {
+        const val LARGE = ContentTransferExecutor.LARGE_FILE_SIZE
+        const val WAIT_SECONDS = 5L
+    }
+
+    private val cancelled = AtomicBoolean()
+    private val started: MutableList<String> = Collections.synchronizedList(mutableListOf())
+    private val running = AtomicInteger()
+    private val maxRunning = AtomicInteger()
+    private val largeRunning = AtomicInteger()
+    private val maxLargeRunning = AtomicInteger()
+
+    private open inner class FakeTransfer(val name: String, override val size: Long, val millis: Long = 10) :
+        ContentTransferExecutor.Transfer<String> {
+
+        @Volatile
+        var cancelRequested = false
+
+        override fun run(progressListener: OnDatatransferProgressListener): String {
+            started.add(name)
+            maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            if (size >= LARGE) {
+                maxLargeRunning.accumulateAndGet(largeRunning.incrementAndGet(), ::maxOf)
+            }
+            try {
+                progressListener.onTransferProgress(size / 2, size / 2, size, name)
+                work()
+                return name
+            } finally {
+                if (size >= LARGE) {
+                    largeRunning.decrementAndGet()
+                }
+                running.decrementAndGet()
+            }
+        }
+
+        open fun work() = Thread.sleep(millis)
+
+        override fun cancel() {
+            cancelRequested = true
+        }
+    }
+
+    @Test
+    fun testSmallFilesFirstWithSingleLane() {
+        val transfers = listOf(
+            FakeTransfer("big", LARGE),
+            FakeTransfer("medium", 2000),
+            FakeTransfer("tiny", 10),
+            FakeTransfer("small", 500)
+        )
+
+        val complete = ContentTransferExecutor("single.example", cancelled::get, 1).execute(transfers) { _, _ -> }
+
+        assertTrue(complete)
+        assertEquals(listOf("tiny", "small", "medium", "big"), started)
+    }
+
+    @Test
+    fun testBigFilesShareOneLane() {
+        val transfers = (0 until 3).map { FakeTransfer("big$it", LARGE + it) } +
+            (0 until 12).map { FakeTransfer("small$it", it.toLong()) }
+        val results = mutableListOf<String?>()
+
+        val complete = ContentTransferExecutor("lanes.example", cancelled::get, 3).execute(transfers) { _, result ->
+            results.add(result)
+        }
+
+        assertTrue(complete)
+        assertEquals(transfers.map { it.name }.toSet(), results.toSet())
+        assertEquals(3, maxRunning.get())
+        assertEquals(1, maxLargeRunning.get())
+        // the big lane starts right away, next to the small files
+        assertTrue(started.indexOf("big0") < 3)
+    }
+
+    @Test
+    fun testConnectionsPerHostAreShared() {
+        val host = "budget.example"
+        val threads = (0 until 3).map {
+            Thread {
+                val transfers = (0 until 8).map { i -> FakeTransfer("t$it-$i", 100, 20) }
+                ContentTransferExecutor(host, cancelled::get, 4).execute(transfers) { _, _ -> }
+            }.apply { start() }
+        }
+        threads.forEach { it.join() }
+
+        assertEquals(24, started.size)
+        assertEquals(ContentTransferExecutor.CONNECTIONS_PER_HOST, maxRunning.get())
+    }
+
+    @Test
+    fun testCancellationStopsTransfers() {
+        val blocking = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val blocked = object : FakeTransfer("blocked", 1) {
+            override fun work() {
+                blocking.countDown()
+                release.await(WAIT_SECONDS, TimeUnit.SECONDS)
+            }
+
+            override fun cancel() {
+                super.cancel()
+                release.countDown()
+            }
+        }
+        val transfers = listOf(blocked) + (0 until 5).map { FakeTransfer("later$it", 10L + it) }
+        val results = mutableListOf<String?>()
+
+        val stopper = Thread {
+            blocking.await(WAIT_SECONDS, TimeUnit.SECONDS)
+            cancelled.set(true)
+        }.apply { start() }
+        val complete = ContentTransferExecutor("cancel.example", cancelled::get, 1).execute(transfers) { _, result ->
+            results.add(result)
+        }
+        stopper.join()
+
+        assertFalse(complete)
+        assertTrue(blocked.cancelRequested)
+        assertEquals(listOf("blocked"), started)
+        assertEquals(listOf<String?>("blocked"), results)
+    }
+
+    @Test
+    fun testFailedTransferIsReportedWithoutResult() {
+        val failing = object : FakeTransfer("failing", 1) {
+            override fun work() = throw IllegalStateException("failed")
+        }
+        val results = mutableListOf<String?>()
+
+        val complete = ContentTransferExecutor("failure.example", cancelled::get, 2)
+            .execute(listOf(failing, FakeTransfer("ok", 2))) { _, result -> results.add(result) }
+
+        assertTrue(complete)
+        assertEquals(setOf(null, "ok"), results.toSet())
+    }
+
+    @Test
+    fun testTransfersFailingWithCheckedExceptionOrErrorAreReportedWithoutResult() {
+        val checked = object : FakeTransfer("checked", 1) {
+            override fun work() = throw IOException("failed")
+        }
+        val error = object : FakeTransfer("error", 2) {
+            override fun work() = throw NotImplementedError("failed")
+        }
+        val results = mutableMapOf<String, String?>()
+
+        val complete = ContentTransferExecutor("error.example", cancelled::get, 2)
+            .execute(listOf(checked, error, FakeTransfer("ok", 3))) { transfer, result ->
+                results[(transfer as FakeTransfer).name] = result
+            }
+
+        assertTrue(complete)
+        assertEquals(mapOf("checked" to null, "error" to null, "ok" to "ok"), results)
+    }
+
+    @Test
+    fun testProgressCoversAllTransfers() {
+        val transfers = (0 until 6).map { FakeTransfer("file$it", 1000L * (it + 1)) }
+        val reports = Collections.synchronizedList(mutableListOf<LongArray>())
+        val executor = ContentTransferExecutor("progress.example", cancelled::get, 2)
+        executor.progressListener = ContentTransferExecutor.ProgressListener { transferred, total, finished, count ->
+            reports.add(longArrayOf(transferred, total, finished.toLong(), count.toLong()))
+        }
+
+        executor.execute(transfers) { _, _ -> }
+
+        val last = reports.last()
+        assertEquals(21000L, last[0])
+        assertEquals(21000L, last[1])
+        assertEquals(6L, last[2])
+        assertEquals(6L, last[3])
+        assertTrue(reports.all { it[0] <= it[1] })
+    }
+}
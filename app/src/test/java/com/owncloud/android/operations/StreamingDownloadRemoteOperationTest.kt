@@ -0,0 +1,290 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.operations
+
+import com.owncloud.android.lib.common.OwnCloudClient
+import com.owncloud.android.lib.common.network.OnDatatransferProgressListener
+import com.owncloud.android.lib.common.operations.OperationCancelledException
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import io.mockk.every
+import io.mockk.mockk
+import org.apache.commons.httpclient.HttpClient
+import org.apache.commons.httpclient.HttpMethod
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.util.Collections
+import kotlin.random.Random
+
+class StreamingDownloadRemoteOperationTest {
+    private companion object {
+        const val REMOTE_PATH = "/movie.mkv"
+        const val SIZE = 1024 * 1024
+        const val BROKEN_AFTER = 300 * 1024
+
+        // nothing listens on port 1, connecting is refused
+        const val UNREACHABLE_URL = "http://127.0.0.1:1/remote.php/dav/files/user"
+    }
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    /**
+     * Stand-in for the WebDAV endpoint of the server, answering GET requests with Range and If-Range support.
+     */
+    private inner class StandInServer {
+        @Volatile
+        var content: ByteArray = Random(1).nextBytes(SIZE)
+
+        @Volatile
+        var etag = "\"v1\""
+
+        /** Number of bytes sent before the next response is broken off, null to send everything */
+        @Volatile
+        var breakAfter: Int? = null
+
+        @Volatile
+        var honorIfRange = true
+
+        @Volatile
+        var deleted = false
+
+        /** Status of the next response instead of the content, null to send the content */
+        @Volatile
+        var failWith: Int? = null
+
+        val requests: MutableList<Pair<String?, String?>> = Collections.synchronizedList(mutableListOf())
+
+        private val server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0).apply {
+            createContext("/") { handle(it) }
+            start()
+        }
+
+        val url: String
+            get() = "http://127.0.0.1:${server.address.port}/remote.php/dav/files/user"
+
+        private fun handle(exchange: HttpExchange) {
+            val range = exchange.requestHeaders.getFirst("Range")
+            val ifRange = exchange.requestHeaders.getFirst("If-Range")
+            requests.add(range to ifRange)
+
+            val failure = if (deleted) 404 else failWith.also { failWith = null }
+            if (failure != null) {
+                exchange.sendResponseHeaders(failure, -1)
+                exchange.close()
+                return
+            }
+
+            val body = content
+            var start = 0
+            if (range != null && (ifRange == null || ifRange == etag || !honorIfRange)) {
+                start = range.removePrefix("bytes=").removeSuffix("-").toInt()
+            }
+
+            exchange.responseHeaders.add("ETag", etag)
+            try {
+                if (start > 0) {
+                    exchange.responseHeaders.add("Content-Range", "bytes $start-${body.size - 1}/${body.size}")
+                    exchange.sendResponseHeaders(206, (body.size - start).toLong())
+                } else {
+                    exchange.sendResponseHeaders(200, body.size.toLong())
+                }
+
+                val end = breakAfter?.let { minOf(start + it, body.size) } ?: body.size
+                breakAfter = null
+                exchange.responseBody.write(body, start, end - start)
+                exchange.responseBody.flush()
+                exchange.responseBody.close()
+            } catch (e: IOException) {
+                // closing a response with missing bytes drops the connection, like a broken mobile link
+                exchange.close()
+            }
+        }
+
+        fun stop() = server.stop(0)
+    }
+
+    private lateinit var server: StandInServer
+    private lateinit var client: OwnCloudClient
+    private lateinit var target: File
+
+    /** Set to make requests fail at connect, like without network */
+    @Volatile
+    private var unreachable = false
+
+    @Before
+    fun setUp() {
+        server = StandInServer()
+        val httpClient = HttpClient()
+        client = mockk(relaxed = true) {
+            every { getFilesDavUri(any<String>()) } answers {
+                (if (unreachable) UNREACHABLE_URL else server.url) + firstArg<String>()
+            }
+            every { executeMethod(any<HttpMethod>()) } answers { httpClient.executeMethod(firstArg<HttpMethod>()) }
+        }
+        target = File(temporaryFolder.root, "tmp$REMOTE_PATH")
+    }
+
+    @After
+    fun tearDown() {
+        server.stop()
+    }
+
+    private fun download(resumable: Boolean = true) = StreamingDownloadRemoteOperation(REMOTE_PATH, target)
+        .apply { setResumable(resumable) }
+        .execute(client)
+
+    private val etagFile: File
+        get() = File(target.path + ".etag")
+
+    @Test
+    fun testCompleteDownload() {
+        val result = download()
+
+        assertTrue(result.isSuccess)
+        assertArrayEquals(server.content, target.readBytes())
+        assertFalse(etagFile.exists())
+        assertEquals(listOf<Pair<String?, String?>>(null to null), server.requests)
+    }
+
+    @Test
+    fun testInterruptedDownloadIsResumed() {
+        server.breakAfter = BROKEN_AFTER
+        assertFalse(download().isSuccess)
+        assertEquals(BROKEN_AFTER.toLong(), target.length())
+        assertTrue(etagFile.exists())
+
+        val result = download()
+
+        assertTrue(result.isSuccess)
+        assertArrayEquals(server.content, target.readBytes())
+        assertEquals("bytes=$BROKEN_AFTER-" to "\"v1\"", server.requests.last())
+        assertFalse(etagFile.exists())
+    }
+
+    @Test
+    fun testChangedContentIsDownloadedAgain() {
+        server.breakAfter = BROKEN_AFTER
+        assertFalse(download().isSuccess)
+
+        server.content = Random(2).nextBytes(SIZE / 2)
+        server.etag = "\"v2\""
+        val result = download()
+
+        assertTrue(result.isSuccess)
+        assertArrayEquals(server.content, target.readBytes())
+        assertEquals(2, server.requests.size)
+    }
+
+    @Test
+    fun testPartialResponseOfChangedContentIsNotAppended() {
+        server.breakAfter = BROKEN_AFTER
+        assertFalse(download().isSuccess)
+
+        // a server ignoring If-Range answers with a range of the new content
+        server.honorIfRange = false
+        server.content = Random(3).nextBytes(SIZE)
+        server.etag = "\"v3\""
+        val result = download()
+
+        assertTrue(result.isSuccess)
+        assertArrayEquals(server.content, target.readBytes())
+        assertNull(server.requests.last().first)
+    }
+
+    @Test
+    fun testPartialFileIsDeletedWhenNotResumable() {
+        server.breakAfter = BROKEN_AFTER
+
+        assertFalse(download(resumable = false).isSuccess)
+        assertFalse(target.exists())
+        assertFalse(etagFile.exists())
+    }
+
+    @Test
+    fun testPartialFileIsDeletedWhenCancelled() {
+        val operation = StreamingDownloadRemoteOperation(REMOTE_PATH, target).apply { setResumable(true) }
+        operation.addDatatransferProgressListener(OnDatatransferProgressListener { _, _, _, _ -> operation.cancel() })
+
+        val result = operation.execute(client)
+
+        assertFalse(result.isSuccess)
+        assertTrue(result.exception is OperationCancelledException)
+        assertFalse(target.exists())
+        assertFalse(etagFile.exists())
+    }
+
+    @Test
+    fun testPartialFileIsDeletedWhenFileIsGone() {
+        server.breakAfter = BROKEN_AFTER
+        assertFalse(download().isSuccess)
+        assertTrue(target.exists())
+
+        server.deleted = true
+
+        assertFalse(download().isSuccess)
+        assertFalse(target.exists())
+        assertFalse(etagFile.exists())
+    }
+
+    @Test
+    fun testPartialContentIsDeleted() {
+        server.breakAfter = BROKEN_AFTER
+        assertFalse(download().isSuccess)
+
+        StreamingDownloadRemoteOperation.deletePartialContent(target)
+
+        assertFalse(target.exists())
+        assertFalse(etagFile.exists())
+    }
+
+    @Test
+    fun testPartialFileSurvivesResumeFailingAtConnect() {
+        server.breakAfter = BROKEN_AFTER
+        assertFalse(download().isSuccess)
+
+        unreachable = true
+        assertFalse(download().isSuccess)
+        assertEquals(BROKEN_AFTER.toLong(), target.length())
+        assertTrue(etagFile.exists())
+
+        unreachable = false
+        val result = download()
+
+        assertTrue(result.isSuccess)
+        assertArrayEquals(server.content, target.readBytes())
+        assertEquals("bytes=$BROKEN_AFTER-" to "\"v1\"", server.requests.last())
+    }
+
+    @Test
+    fun testPartialFileSurvivesServerError() {
+        server.breakAfter = BROKEN_AFTER
+        assertFalse(download().isSuccess)
+
+        server.failWith = 503
+        assertFalse(download().isSuccess)
+        assertEquals(BROKEN_AFTER.toLong(), target.length())
+        assertTrue(etagFile.exists())
+
+        val result = download()
+
+        assertTrue(result.isSuccess)
+        assertArrayEquals(server.content, target.readBytes())
+        assertEquals("bytes=$BROKEN_AFTER-" to "\"v1\"", server.requests.last())
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.providers
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class SparseBlockFileTest {
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val content = ByteArray(LENGTH) { it.toByte() }
+
+    private fun open(name: String = NAME) = SparseBlockFile(folder.root, name, LENGTH.toLong(), BLOCK_SIZE)
+
+    @Test
+    fun testOnlyCompleteBlocksAreMarked() {
+        val sut = open()
+
+        sut.write(0, content, BLOCK_SIZE + 1)
+        assertTrue(sut.hasBlock(0))
+        assertFalse(sut.hasBlock(1))
+
+        // the last block is shorter than the others
+        val lastOffset = sut.getBlockOffset(sut.getBlockCount() - 1)
+        sut.write(lastOffset, content.copyOfRange(lastOffset.toInt(), LENGTH), LENGTH - lastOffset.toInt())
+        assertTrue(sut.hasBlock(sut.getBlockCount() - 1))
+
+        val data = ByteArray(BLOCK_SIZE)
+        assertEquals(BLOCK_SIZE, sut.read(0, data, BLOCK_SIZE))
+        assertArrayEquals(content.copyOfRange(0, BLOCK_SIZE), data)
+        sut.close()
+    }
+
+    @Test
+    fun testBlocksAreKeptAfterClose() {
+        open().apply {
+            write(getBlockOffset(2), content.copyOfRange(2 * BLOCK_SIZE, 3 * BLOCK_SIZE), BLOCK_SIZE)
+            close()
+        }
+
+        val sut = open()
+        assertFalse(sut.hasBlock(1))
+        assertTrue(sut.hasBlock(2))
+
+        val data = ByteArray(BLOCK_SIZE)
+        sut.read(sut.getBlockOffset(2), data, BLOCK_SIZE)
+        assertArrayEquals(content.copyOfRange(2 * BLOCK_SIZE, 3 * BLOCK_SIZE), data)
+        sut.close()
+    }
+
+    @Test
+    fun testTrimKeepsOpenAndRecentFiles() {
+        open("old").close()
+        File(folder.root, "old.data").setLastModified(0)
+        open("recent").close()
+        val open = open()
+
+        SparseBlockFile.trim(folder.root, 2L * LENGTH)
+        assertFalse(File(folder.root, "old.data").exists())
+        assertFalse(File(folder.root, "old.blocks").exists())
+        assertTrue(File(folder.root, "recent.data").exists())
+
+        SparseBlockFile.trim(folder.root, 0)
+        assertFalse(File(folder.root, "recent.data").exists())
+        assertTrue(File(folder.root, "$NAME.data").exists())
+        open.close()
+    }
+
+    companion object {
+        private const val NAME = "file"
+        private const val BLOCK_SIZE = 16
+        private const val LENGTH = 5 * BLOCK_SIZE + 3
+    }
+}
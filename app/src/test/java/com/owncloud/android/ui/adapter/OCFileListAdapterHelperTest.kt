@@ -272,4 +272,88 @@ class OCFileListAdapterHelperTest {
         )
         assertEquals(FileSortOrder.SORT_A_TO_Z, sort)
     }
+
+    @Test
+    fun `mergeOCFilesForLivePhoto attaches videos to their images`() {
+        val env = Sut()
+        val root = env.root
+
+        val image = env.file(root, "live.jpg", 1, MimeType.JPEG, localId = 77)
+        val video = env.file(root, "live.mp4", 2, MimeType.MP4, localId = 78).apply { setLivePhoto("77") }
+        val earlierVideo = env.file(root, "other.mp4", 3, MimeType.MP4, localId = 79)
+        val laterImage = env.file(root, "other.jpg", 4, MimeType.JPEG, localId = 80).apply { setLivePhoto("79") }
+        val unrelated = env.file(root, "unrelated.jpg", 5, MimeType.JPEG, localId = 81).apply { setLivePhoto("1") }
+
+        val result = helper.mergeOCFilesForLivePhoto(listOf(image, video, earlierVideo, laterImage, unrelated))
+
+        assertEquals(listOf("live.jpg", "other.jpg", "unrelated.jpg"), result.map { it.fileName })
+        assertEquals(video, image.livePhotoVideo)
+        assertEquals(earlierVideo, laterImage.livePhotoVideo)
+    }
+
+    @Test
+    fun `addOfflineOperations skips files that are listed already`() {
+        val env = Sut()
+        val root = env.root
+
+        val listed = env.file(root, "listed.jpg", 1, MimeType.JPEG).apply { decryptedRemotePath = "/listed.jpg" }
+        val pending = env.file(root, "pending.jpg", 2, MimeType.JPEG).apply { decryptedRemotePath = "/pending.jpg" }
+        val duplicate = env.file(root, "listed.jpg", 3, MimeType.JPEG).apply { decryptedRemotePath = "/listed.jpg" }
+
+        val result = helper.addOfflineOperations(listOf(listed), listOf(pending, duplicate))
+
+        assertEquals(listOf(listed, pending), result)
+    }
+
+    @Test
+    fun `live photo merge and offline operations on a large folder`() {
+        val env = Sut()
+        val root = env.root
+
+        // every tenth file is the video of the image before it
+        val files = (0 until FOLDER_SIZE).map { index ->
+            val isLiveVideo = index % LIVE_PHOTO_RATIO == 1
+            env.file(
+                root,
+                "file$index" + if (isLiveVideo) ".mp4" else ".jpg",
+                index.toLong() + 1,
+                if (isLiveVideo) MimeType.MP4 else MimeType.JPEG,
+                localId = index.toLong() + 1
+            ).apply {
+                decryptedRemotePath = remotePath
+                if (isLiveVideo) {
+                    setLivePhoto(index.toString())
+                }
+            }
+        }
+        val offlineOperations = (0 until FOLDER_SIZE / OFFLINE_RATIO).map { index ->
+            env.file(root, "offline$index.jpg", (FOLDER_SIZE + index).toLong(), MimeType.JPEG).apply {
+                // every other one is listed already, as an image that stays in the list
+                decryptedRemotePath = if (index % 2 == 0) {
+                    remotePath
+                } else {
+                    files[index * LIVE_PHOTO_RATIO].decryptedRemotePath
+                }
+            }
+        }
+
+        val merged = helper.mergeOCFilesForLivePhoto(files)
+        val result = helper.addOfflineOperations(merged, offlineOperations)
+
+        val videos = files.filter { it.mimeType == MimeType.MP4 }
+        val expectedFiles = files.filter { it.mimeType != MimeType.MP4 }
+        val expectedOffline = offlineOperations.filterIndexed { index, _ -> index % 2 == 0 }
+        assertEquals(expectedFiles + expectedOffline, result)
+        videos.forEach { video ->
+            val image = files[files.indexOf(video) - 1]
+            assertEquals(video, image.livePhotoVideo)
+        }
+        assertEquals(videos.size, files.count { it.livePhotoVideo != null })
+    }
+
+    companion object {
+        private const val FOLDER_SIZE = 1_000
+        private const val LIVE_PHOTO_RATIO = 10
+        private const val OFFLINE_RATIO = 100
+    }
 }
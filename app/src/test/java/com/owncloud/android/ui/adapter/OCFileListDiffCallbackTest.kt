@@ -0,0 +1,147 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+package com.owncloud.android.ui.adapter
+
+import androidx.recyclerview.widget.DiffUtil
+import androidx.recyclerview.widget.ListUpdateCallback
+import com.owncloud.android.datamodel.OCFile
+import com.owncloud.android.ui.adapter.helper.OCFileListDiffCallback
+import com.owncloud.android.ui.adapter.helper.OCFileListItemState
+import com.owncloud.android.utils.MimeType
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class OCFileListDiffCallbackTest {
+
+    private fun file(id: Long, name: String = "file$id.txt") = OCFile("/$name").apply {
+        fileId = id
+        remotePath = "/$name"
+        mimeType = MimeType.FILE
+        etag = "etag_$id"
+    }
+
+    private fun callback(old: List<OCFile>, new: List<OCFile>) =
+        OCFileListDiffCallback(OCFileListItemState.of(old), OCFileListItemState.of(new))
+
+    @Test
+    fun testItemsAreTheSameByFileId() {
+        val callback = callback(listOf(file(1), file(2)), listOf(file(2, "renamed.txt"), file(3)))
+
+        assertTrue(callback.areItemsTheSame(1, 0))
+        assertFalse(callback.areItemsTheSame(0, 0))
+        assertFalse(callback.areItemsTheSame(1, 1))
+    }
+
+    @Test
+    fun testContentsAreTheSameForUnchangedFile() {
+        val callback = callback(listOf(file(1)), listOf(file(1)))
+
+        assertTrue(callback.areContentsTheSame(0, 0))
+    }
+
+    @Test
+    fun testContentsDifferForChangedFile() {
+        val changed = listOf(
+            file(1).apply { etag = "other" },
+            file(1, "renamed.txt"),
+            file(1).apply { fileLength = 1024 },
+            file(1).apply { isFavorite = true },
+            file(1).apply { unreadCommentsCount = 2 }
+        )
+
+        changed.forEach {
+            assertFalse(callback(listOf(file(1)), listOf(it)).areContentsTheSame(0, 0))
+        }
+    }
+
+    @Test
+    fun testSnapshotIsNotAffectedByLaterChangesOfTheFile() {
+        val old = file(1)
+        val oldItems = OCFileListItemState.of(listOf(old))
+
+        // the adapter updates files in place, e.g. when toggling favorites
+        old.isFavorite = true
+        val callback = OCFileListDiffCallback(oldItems, OCFileListItemState.of(listOf(old)))
+
+        assertFalse(callback.areContentsTheSame(0, 0))
+        assertEquals(listOf(OCFileListDiffCallback.PAYLOAD_FAVORITE), callback.getChangePayload(0, 0))
+    }
+
+    @Test
+    fun testPayloadsOfValuesRebindableOnTheirOwn() {
+        val favorite = callback(listOf(file(1)), listOf(file(1).apply { isFavorite = true }))
+        assertEquals(listOf(OCFileListDiffCallback.PAYLOAD_FAVORITE), favorite.getChangePayload(0, 0))
+
+        val comments = callback(listOf(file(1)), listOf(file(1).apply { unreadCommentsCount = 3 }))
+        assertEquals(listOf(OCFileListDiffCallback.PAYLOAD_UNREAD_COMMENTS), comments.getChangePayload(0, 0))
+
+        val both = callback(
+            listOf(file(1)),
+            listOf(
+                file(1).apply {
+                    isFavorite = true
+                    unreadCommentsCount = 1
+                }
+            )
+        )
+        assertEquals(
+            listOf(OCFileListDiffCallback.PAYLOAD_FAVORITE, OCFileListDiffCallback.PAYLOAD_UNREAD_COMMENTS),
+            both.getChangePayload(0, 0)
+        )
+    }
+
+    @Test
+    fun testNoPayloadWhenOtherContentChanged() {
+        val callback = callback(
+            listOf(file(1)),
+            listOf(
+                file(1).apply {
+                    etag = "other"
+                    isFavorite = true
+                }
+            )
+        )
+
+        assertNull(callback.getChangePayload(0, 0))
+    }
+
+    @Test
+    fun testDiffDispatchesMovesInsertsRemovalsAndPayloads() {
+        val old = listOf(file(1), file(2), file(3))
+        val new = listOf(file(3), file(1).apply { isFavorite = true }, file(4))
+        val events = mutableListOf<String>()
+
+        DiffUtil.calculateDiff(callback(old, new)).dispatchUpdatesTo(object : ListUpdateCallback {
+            override fun onInserted(position: Int, count: Int) {
+                events.add("insert")
+            }
+
+            override fun onRemoved(position: Int, count: Int) {
+                events.add("remove")
+            }
+
+            override fun onMoved(fromPosition: Int, toPosition: Int) {
+                events.add("move")
+            }
+
+            override fun onChanged(position: Int, count: Int, payload: Any?) {
+                events.add("change $payload")
+            }
+        })
+
+        assertEquals(1, events.count { it == "insert" })
+        assertEquals(1, events.count { it == "remove" })
+        assertEquals(1, events.count { it == "move" })
+        assertEquals(
+            listOf("change [${OCFileListDiffCallback.PAYLOAD_FAVORITE}]"),
+            events.filter { it.startsWith("change") }
+        )
+    }
+}
@@ -9,7 +9,9 @@ package com.owncloud.android.utils
 
 import android.content.Context
 import com.nextcloud.client.database.dao.FileSystemDao
+import com.nextcloud.client.database.entity.FilesystemEntity
 import com.nextcloud.client.jobs.autoUpload.AutoUploadHelper
+import com.nextcloud.client.jobs.autoUpload.FileFingerprint
 import com.nextcloud.client.jobs.autoUpload.FileSystemRepository
 import com.nextcloud.client.preferences.SubFolderRule
 import com.nextcloud.utils.extensions.shouldSkipFile
@@ -17,14 +19,19 @@ import com.owncloud.android.datamodel.MediaFolderType
 import com.owncloud.android.datamodel.SyncedFolder
 import com.owncloud.android.datamodel.UploadsStorageManager
 import io.mockk.clearAllMocks
+import io.mockk.every
 import io.mockk.mockk
+import io.mockk.verify
 import org.junit.After
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
 import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import java.io.File
 import java.nio.file.Files
+import java.util.zip.CRC32
 
 @Suppress("MagicNumber")
 class AutoUploadHelperTest {
@@ -101,6 +108,20 @@ class AutoUploadHelperTest {
         assertEquals("Should process 2 files", 2, processedCount)
     }
 
+    @Test
+    fun testInsertCustomFolderStoresChangesInOneBatch() {
+        File(tempDir, "file1.txt").writeText("Hello")
+        File(tempDir, "file2.txt").writeText("World")
+        every { mockDao.getFilesBySyncedFolder(any()) } returns emptyList()
+
+        val folder = createTestFolder(type = MediaFolderType.CUSTOM)
+        val processedCount = helper.insertCustomFolderIntoDB(folder, repo)
+
+        assertEquals("Should process 2 files", 2, processedCount)
+        verify(exactly = 0) { mockDao.getFileByPathAndFolder(any(), any()) }
+        verify(exactly = 1) { mockDao.insertOrReplaceAll(match { it.size == 2 }) }
+    }
+
     @Test
     fun testInsertCustomFolderWithHiddenFiles() {
         File(tempDir, "visible.txt").apply { writeText("Visible") }
@@ -329,4 +350,58 @@ class AutoUploadHelperTest {
             folderUploadAll.shouldSkipFile(newFile, newFileLastModified, newFileCreationTime, false)
         assertTrue(!shouldSkipNewFileIfAlsoUploadExistingFile)
     }
+
+    private fun uploadedEntity(file: File, crc32: String?, fileSize: Long?, inode: Long?) = FilesystemEntity(
+        id = 1,
+        localPath = file.absolutePath,
+        fileIsFolder = 0,
+        fileFoundRecently = 0L,
+        fileSentForUpload = 1,
+        syncedFolderId = "1",
+        crc32 = crc32,
+        fileModified = file.lastModified() - 1000,
+        fileSize = fileSize,
+        inode = inode
+    )
+
+    private fun checksum(content: String) = CRC32().apply { update(content.toByteArray()) }.value
+
+    @Test
+    fun testTouchedFileWithoutStoredChecksumIsQueuedAgain() {
+        val file = File(tempDir, "touched.txt").apply { writeText("Hello") }
+        val entity = uploadedEntity(file, null, file.length(), FileFingerprint.of(file).inode)
+
+        val result = repo.createEntity(file, file.absolutePath, file.lastModified(), null, createTestFolder(), entity)
+
+        assertNotNull(result)
+        assertEquals(0, result!!.fileSentForUpload)
+        assertNull("content must not be read", result.crc32)
+        assertEquals(file.length(), result.fileSize)
+    }
+
+    @Test
+    fun testTouchedFileWithSameLegacyChecksumIsSkipped() {
+        val file = File(tempDir, "touched.txt").apply { writeText("Hello") }
+        val entity = uploadedEntity(file, checksum("Hello").toString(), null, null)
+
+        val result = repo.createEntity(file, file.absolutePath, file.lastModified(), null, createTestFolder(), entity)
+
+        assertNotNull(result)
+        assertEquals(1, result!!.fileSentForUpload)
+        assertEquals(checksum("Hello").toString(), result.crc32)
+        assertEquals("size is stored for the next scan", file.length(), result.fileSize)
+    }
+
+    @Test
+    fun testFileWithDifferentSizeIsQueuedWithoutChecksum() {
+        val file = File(tempDir, "changed.txt").apply { writeText("Hello world") }
+        val entity = uploadedEntity(file, checksum("Hello").toString(), 5L, null)
+
+        val result = repo.createEntity(file, file.absolutePath, file.lastModified(), null, createTestFolder(), entity)
+
+        assertNotNull(result)
+        assertEquals(0, result!!.fileSentForUpload)
+        assertNull("content must not be read", result.crc32)
+        assertEquals(file.length(), result.fileSize)
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+
+package com.owncloud.android.utils
+
+import com.nextcloud.client.database.entity.FilesystemEntity
+import com.nextcloud.client.jobs.autoUpload.FileFingerprint
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+@Suppress("MagicNumber")
+class FileFingerprintTest {
+
+    @Test
+    fun testOfEntity() {
+        val entity = FilesystemEntity(
+            id = 1,
+            localPath = "/sdcard/DCIM/image.jpg",
+            fileIsFolder = 0,
+            fileFoundRecently = 0L,
+            fileSentForUpload = 1,
+            syncedFolderId = "1",
+            crc32 = "907060870",
+            fileModified = 0L,
+            fileSize = 1024L,
+            inode = 42L
+        )
+
+        assertEquals(FileFingerprint(1024L, 42L), FileFingerprint.of(entity))
+        assertEquals(FileFingerprint(null, null), FileFingerprint.of(entity.copy(fileSize = null, inode = null)))
+    }
+
+    @Test
+    fun testHasDifferentKey() {
+        val fingerprint = FileFingerprint(1024L, 42L)
+
+        assertFalse(fingerprint.hasDifferentKey(FileFingerprint(1024L, 42L)))
+        assertTrue(fingerprint.hasDifferentKey(FileFingerprint(2048L, 42L)))
+        assertTrue(fingerprint.hasDifferentKey(FileFingerprint(1024L, 43L)))
+
+        // unknown parts are ambiguous and must not count as a change
+        assertFalse(fingerprint.hasDifferentKey(FileFingerprint(null, null)))
+        assertFalse(fingerprint.hasDifferentKey(FileFingerprint(1024L, null)))
+    }
+}
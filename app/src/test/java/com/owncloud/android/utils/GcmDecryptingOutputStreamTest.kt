@@ -0,0 +1,108 @@
+/*
+ * Nextcloud - Android Client
+ *
+ * SPDX-FileCopyrightText: 2026 Nextcloud GmbH and Nextcloud contributors
+ * SPDX-License-Identifier: AGPL-3.0-or-later
+ */
+
+package com.owncloud.android.utils
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertThrows
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.security.SecureRandom
+import javax.crypto.Cipher
+import javax.crypto.spec.GCMParameterSpec
+import javax.crypto.spec.SecretKeySpec
+
+@Suppress("MagicNumber")
+class GcmDecryptingOutputStreamTest {
+
+    companion object {
+        // nonce length used for end-to-end encrypted files
+        private const val IV_LENGTH = 16
+    }
+
+    private val random = SecureRandom()
+
+    private fun encrypt(plaintext: ByteArray, key: ByteArray, iv: ByteArray): ByteArray {
+        val cipher = Cipher.getInstance("AES/GCM/NoPadding")
+        cipher.init(Cipher.ENCRYPT_MODE, SecretKeySpec(key, "AES"), GCMParameterSpec(128, iv))
+        return cipher.doFinal(plaintext)
+    }
+
+    private fun decrypt(ciphertext: ByteArray, key: ByteArray, iv: ByteArray, chunkSize: Int): ByteArray {
+        val output = ByteArrayOutputStream()
+        GcmDecryptingOutputStream(output, key, iv).use { stream ->
+            var offset = 0
+            while (offset < ciphertext.size) {
+                val length = minOf(chunkSize, ciphertext.size - offset)
+                stream.write(ciphertext, offset, length)
+                offset += length
+            }
+        }
+        return output.toByteArray()
+    }
+
+    private fun randomBytes(size: Int) = ByteArray(size).also { random.nextBytes(it) }
+
+    @Test
+    fun testDecryptsLikePlatformCipher() {
+        val sizes = listOf(0, 1, 15, 16, 17, 4096, 256 * 1024, 256 * 1024 + 17, 1_000_003)
+        val chunkSizes = listOf(7, 16, 4096, 300_000)
+
+        for (ivLength in listOf(12, IV_LENGTH)) {
+            for (size in sizes) {
+                val key = randomBytes(16)
+                val iv = randomBytes(ivLength)
+                val plaintext = randomBytes(size)
+                val ciphertext = encrypt(plaintext, key, iv)
+
+                for (chunkSize in chunkSizes) {
+                    assertArrayEquals(
+                        "iv $ivLength, size $size, chunk $chunkSize",
+                        plaintext,
+                        decrypt(ciphertext, key, iv, chunkSize)
+                    )
+                }
+            }
+        }
+    }
+
+    @Test
+    fun testExposesTagOfCiphertext() {
+        val key = randomBytes(16)
+        val iv = randomBytes(IV_LENGTH)
+        val ciphertext = encrypt(randomBytes(10_000), key, iv)
+        val stream = GcmDecryptingOutputStream(ByteArrayOutputStream(), key, iv)
+
+        stream.write(ciphertext, 0, ciphertext.size)
+        assertNull(stream.authenticationTag)
+        stream.close()
+
+        assertArrayEquals(ciphertext.copyOfRange(ciphertext.size - 16, ciphertext.size), stream.authenticationTag)
+    }
+
+    @Test
+    fun testRejectsModifiedCiphertext() {
+        val key = randomBytes(16)
+        val iv = randomBytes(IV_LENGTH)
+        val ciphertext = encrypt(randomBytes(10_000), key, iv)
+        ciphertext[5000] = (ciphertext[5000].toInt() xor 1).toByte()
+
+        assertThrows(IOException::class.java) { decrypt(ciphertext, key, iv, 4096) }
+    }
+
+    @Test
+    fun testRejectsTruncatedCiphertext() {
+        val key = randomBytes(16)
+        val iv = randomBytes(IV_LENGTH)
+        val ciphertext = encrypt(randomBytes(10_000), key, iv)
+
+        assertThrows(IOException::class.java) { decrypt(ciphertext.copyOf(9_000), key, iv, 4096) }
+        assertThrows(IOException::class.java) { decrypt(ciphertext.copyOf(10), key, iv, 4096) }
+    }
+}